@@ -2,9 +2,10 @@ package com.bank.transaction.common;
 
 /**
  * 当请求的交易不存在时抛出的异常。
+ * 只用于返回 404，不记录堆栈，对不存在的ID的反复查询不需要为每次请求填充堆栈。
  */
 public class TransactionNotFoundException extends RuntimeException {
     public TransactionNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
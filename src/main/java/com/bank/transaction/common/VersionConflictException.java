@@ -0,0 +1,10 @@
+package com.bank.transaction.common;
+
+/**
+ * 当请求携带的版本号（If-Match）与交易当前版本不一致时抛出的异常。
+ */
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
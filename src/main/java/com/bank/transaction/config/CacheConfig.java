@@ -1,13 +1,21 @@
 package com.bank.transaction.config;
 
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.response.TransactionResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.concurrent.Executor;
 
 /**
  * 缓存配置类。
@@ -17,23 +25,57 @@ import java.util.concurrent.TimeUnit;
 @EnableCaching
 public class CacheConfig {
 
+    // 缓存加载和维护任务的执行器，每个任务一个虚拟线程，仓库较慢时加载不会占满公共线程池
+    private static final Executor LOADER_EXECUTOR = task -> Thread.ofVirtual().name("cache-loader").start(task);
+
     /**
      * 配置 Caffeine 缓存管理器。
      * 定义了1个缓存区域：
      * - "transactions": 用于缓存单个交易对象，例如通过 ID 查询的结果。
+     * 缓存按估算的字节数限制大小，大小、过期时间和刷新时间通过 transaction.cache.* 配置。
      *
+     * @param maxSize 缓存占用内存的上限
+     * @param expireAfterWrite 写入后的过期时间
+     * @param refreshAfterWrite 写入后经过该时间的条目在下一次访问时异步从仓库重新加载，为 0 时不刷新
+     * @param transactionRepository 刷新时重新加载交易使用的仓库
      * @return 配置好的 CacheManager 实例
      */
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    public CacheManager cacheManager(@Value("${transaction.cache.max-size:64MB}") DataSize maxSize,
+                                     @Value("${transaction.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                                     @Value("${transaction.cache.refresh-after-write:0}") Duration refreshAfterWrite,
+                                     TransactionRepository transactionRepository) {
+        // 交易缓存由创建和更新直接写入，使用按版本号写入的缓存，避免并发更新时旧版本覆盖新版本
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, AsyncCache<Object, Object> cache) {
+                return new VersionedCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
+        // 异步缓存：同一个键未命中时只放入一个 CompletableFuture，由缓存的执行器加载一次，
+        // 并发查询同一个键的线程都等待这个 future。等待时虚拟线程被挂起，不会像同步缓存那样
+        // 在 ConcurrentHashMap 的 synchronized 中阻塞而占住载体线程。
+        cacheManager.setAsyncCacheMode(true);
 
         // 配置 "transactions" 缓存：
-        // 最大缓存 1000 条记录
-        // 写入后 10 分钟过期
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(10, TimeUnit.MINUTES));
+        // 按估算的字节数限制大小，描述较长的交易占用更多的配额
+        // 写入后超过 expireAfterWrite 过期
+        // 记录命中率、淘汰数和加载耗时等统计信息，通过 /api/cache/stats 查看
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher(new TransactionWeigher())
+                .expireAfterWrite(expireAfterWrite)
+                .executor(LOADER_EXECUTOR)
+                .recordStats();
+        if (!refreshAfterWrite.isZero()) {
+            // 刷新期间仍返回旧值；交易已被删除时加载结果为 null，条目被移除
+            builder.refreshAfterWrite(refreshAfterWrite);
+            cacheManager.setCacheLoader(key -> {
+                Transaction transaction = transactionRepository.findById((String) key);
+                return transaction == null ? null : TransactionResponse.fromEntity(transaction);
+            });
+        }
+        cacheManager.setCaffeine(builder);
 
         // 指定要管理的缓存名称，Spring 会根据这些名称查找对应的缓存
         cacheManager.setCacheNames(java.util.Set.of("transactions"));
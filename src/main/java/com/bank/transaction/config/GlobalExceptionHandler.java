@@ -2,6 +2,7 @@ package com.bank.transaction.config;
 
 import com.bank.transaction.common.InvalidRequestException;
 import com.bank.transaction.common.TransactionNotFoundException;
+import com.bank.transaction.common.VersionConflictException;
 import com.sun.jdi.request.DuplicateRequestException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -54,6 +55,22 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.CONFLICT);
     }
 
+    /**
+     * 处理VersionConflictException，返回412 Precondition Failed。
+     * @param ex VersionConflictException实例
+     * @return 包含错误信息的ResponseEntity
+     */
+    @ExceptionHandler(VersionConflictException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED) // 设置HTTP状态码为412
+    public ResponseEntity<Object> handleVersionConflictException(VersionConflictException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.PRECONDITION_FAILED.value());
+        body.put("error", "Precondition Failed");
+        body.put("message", ex.getMessage());
+        return new ResponseEntity<>(body, HttpStatus.PRECONDITION_FAILED);
+    }
+
     /**
      * 处理InvalidRequestException，返回400 Bad Request。
      * @param ex InvalidRequestException实例
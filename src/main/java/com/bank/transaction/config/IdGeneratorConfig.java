@@ -0,0 +1,53 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.util.SnowflakeIdGenerator;
+import com.bank.transaction.util.TransactionIdGenerateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 交易ID生成配置类。
+ * transaction.id.generator=snowflake（默认）时生成 64 位 Snowflake 风格ID，以 13 位 Crockford Base32 字符串返回；
+ * transaction.id.generator=timestamp 时使用带日期的 20 位流水号。
+ * 多个副本的节点ID必须不同，在 Kubernetes 中运行时必须配置 transaction.id.node-id（deployment.yaml 使用 StatefulSet 的序号），
+ * 只有本地运行时才按主机名取哈希。
+ * transaction.repository.type=longkey 只能保存 Snowflake ID，与其他ID格式同时配置时启动失败，而不是在第一次写入时才报错。
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    public IdGeneratorConfig(@Value("${transaction.id.generator:snowflake}") String generator,
+                             @Value("${transaction.id.node-id:-1}") int nodeId,
+                             @Value("${transaction.repository.type:memory}") String repositoryType) {
+        if (!"snowflake".equalsIgnoreCase(generator)) {
+            if ("longkey".equalsIgnoreCase(repositoryType)) {
+                throw new IllegalStateException("transaction.repository.type=longkey 需要配合 transaction.id.generator=snowflake，当前为 " + generator);
+            }
+            TransactionIdGenerateUtil.useSnowflake(null);
+            return;
+        }
+        if (nodeId < 0) {
+            // 主机名的哈希可能相同，两个副本使用同一个节点ID时会生成重复的ID
+            if (System.getenv("KUBERNETES_SERVICE_HOST") != null) {
+                throw new IllegalStateException("在 Kubernetes 中运行时必须配置 transaction.id.node-id，多个副本的节点ID不能相同");
+            }
+            nodeId = defaultNodeId();
+            log.warn("未配置 transaction.id.node-id，按主机名使用节点ID {}，多副本部署时必须为每个副本配置不同的节点ID", nodeId);
+        } else {
+            log.info("Snowflake 交易ID使用节点ID {}", nodeId);
+        }
+        TransactionIdGenerateUtil.useSnowflake(new SnowflakeIdGenerator(nodeId));
+    }
+
+    /**
+     * 未配置节点ID时按主机名取哈希，只用于本地运行
+     */
+    private static int defaultNodeId() {
+        String hostname = System.getenv("HOSTNAME");
+        return hostname == null ? 0 : Math.floorMod(hostname.hashCode(), SnowflakeIdGenerator.MAX_NODE_ID + 1);
+    }
+}
@@ -0,0 +1,45 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.util.SignedTokens;
+import com.bank.transaction.util.TokenUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+
+/**
+ * 防重token配置类。
+ * transaction.token.mode=store（默认）时token保存在本副本的 TokenStore 中；
+ * transaction.token.mode=signed 时使用 HMAC 签名的无状态token，多个副本共用 transaction.token.secret 即可互相校验。
+ * signed 模式下未配置密钥时启动失败；只有显式设置 transaction.token.allow-random-secret=true（仅用于本地单副本调试）时才使用随机密钥。
+ */
+@Configuration
+public class TokenConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenConfig.class);
+
+    public TokenConfig(@Value("${transaction.token.mode:store}") String mode,
+                       @Value("${transaction.token.secret:}") String secret,
+                       @Value("${transaction.token.allow-random-secret:false}") boolean allowRandomSecret) {
+        if (!"signed".equalsIgnoreCase(mode)) {
+            TokenUtil.useSignedTokens(null);
+            return;
+        }
+        byte[] key;
+        if (secret.isBlank()) {
+            if (!allowRandomSecret) {
+                throw new IllegalStateException("transaction.token.mode=signed 时必须配置 transaction.token.secret");
+            }
+            // 随机密钥只能校验本副本签发的token
+            log.warn("未配置 transaction.token.secret，使用随机密钥，token 不能跨副本使用");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        TokenUtil.useSignedTokens(new SignedTokens(key, TokenUtil.expireSeconds()));
+    }
+}
@@ -0,0 +1,499 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.request.BatchCreateTransactionRequest;
+import com.bank.transaction.request.BatchTransactionItem;
+import com.bank.transaction.request.CreateTransactionRequest;
+import com.bank.transaction.response.TransactionBatchItemResult;
+import com.bank.transaction.response.TransactionBatchResponse;
+import com.bank.transaction.response.TransactionResponse;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 交易接口的二进制报文转换器，供内部服务调用，媒体类型为 application/x-bank-transaction。
+ * 支持创建交易请求、批量创建请求、交易响应、交易分页和批量创建响应，字段按固定顺序写入，不写字段名：
+ * <ul>
+ *     <li>每个报文以 1 字节的格式版本开头</li>
+ *     <li>整数为变长编码（每字节 7 位），可能为负的整数先做 ZigZag 变换</li>
+ *     <li>字符串为长度加一和 UTF-8 字节，长度为 0 表示 null</li>
+ *     <li>金额为标记字节、scale 和未缩放值，未缩放值在 long 范围内时按整数写入，否则写入补码字节</li>
+ *     <li>交易类型为序号加一，日期为纳秒加一和 UTC 秒数，0 表示 null</li>
+ * </ul>
+ * 与 JSON 相比不需要格式化和解析 BigDecimal、LocalDateTime 的文本。
+ * 注册在 JSON 转换器之后，未指定 Accept 或 Accept 为 *&#47;* 时仍返回 JSON。
+ */
+public class TransactionBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String TRANSACTION_BINARY_VALUE = "application/x-bank-transaction";
+
+    public static final MediaType TRANSACTION_BINARY = MediaType.valueOf(TRANSACTION_BINARY_VALUE);
+
+    // 报文格式版本，修改字段布局时递增
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final Set<Class<?>> SUPPORTED = Set.of(TransactionResponse.class, TransactionBatchResponse.class,
+            CreateTransactionRequest.class, BatchCreateTransactionRequest.class);
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    // 金额的标记字节
+    private static final byte DECIMAL_NULL = 0;
+    private static final byte DECIMAL_LONG = 1;
+    private static final byte DECIMAL_BIG = 2;
+
+    public TransactionBinaryHttpMessageConverter() {
+        super(TRANSACTION_BINARY);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SUPPORTED.contains(clazz) || Page.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return supports(ResolvableType.forType(type)) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        ResolvableType resolvableType = type == null ? ResolvableType.forClass(clazz) : ResolvableType.forType(type);
+        return supports(resolvableType) && canWrite(mediaType);
+    }
+
+    /**
+     * 分页只支持元素为 TransactionResponse 的 Page
+     */
+    private static boolean supports(ResolvableType type) {
+        Class<?> clazz = type.toClass();
+        if (Page.class.isAssignableFrom(clazz)) {
+            return type.as(Page.class).getGeneric(0).toClass() == TransactionResponse.class;
+        }
+        return SUPPORTED.contains(clazz);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(ResolvableType.forType(type).toClass(), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        byte[] data = inputMessage.getBody().readAllBytes();
+        try {
+            return decode(data, clazz);
+        } catch (RuntimeException e) {
+            throw new HttpMessageNotReadableException("二进制交易报文格式错误: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Writer writer = new Writer();
+        try {
+            encode(writer, value);
+        } catch (ClassCastException e) {
+            throw new HttpMessageNotWritableException("不支持的二进制交易报文内容", e);
+        }
+        outputMessage.getBody().write(writer.buffer, 0, writer.position);
+    }
+
+    /**
+     * 编码为二进制报文
+     * @param value 支持的请求或响应对象
+     * @return 报文字节
+     */
+    byte[] encode(Object value) {
+        Writer writer = new Writer();
+        encode(writer, value);
+        return Arrays.copyOf(writer.buffer, writer.position);
+    }
+
+    /**
+     * 解码二进制报文
+     * @param data 报文字节
+     * @param clazz 目标类型
+     * @return 解码后的对象
+     */
+    Object decode(byte[] data, Class<?> clazz) {
+        Reader reader = new Reader(data);
+        byte version = reader.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的格式版本 " + version);
+        }
+        Object value;
+        if (clazz == TransactionResponse.class) {
+            value = readTransaction(reader);
+        } else if (Page.class.isAssignableFrom(clazz)) {
+            value = readPage(reader);
+        } else if (clazz == TransactionBatchResponse.class) {
+            value = readBatchResponse(reader);
+        } else if (clazz == CreateTransactionRequest.class) {
+            value = readCreateRequest(reader);
+        } else if (clazz == BatchCreateTransactionRequest.class) {
+            value = readBatchRequest(reader);
+        } else {
+            throw new IllegalArgumentException("不支持的类型 " + clazz.getName());
+        }
+        if (reader.position != data.length) {
+            throw new IllegalArgumentException("报文末尾有多余的 " + (data.length - reader.position) + " 字节");
+        }
+        return value;
+    }
+
+    private static void encode(Writer writer, Object value) {
+        writer.writeByte(FORMAT_VERSION);
+        switch (value) {
+            case TransactionResponse response -> writeTransaction(writer, response);
+            case Page<?> page -> writePage(writer, page);
+            case TransactionBatchResponse response -> writeBatchResponse(writer, response);
+            case CreateTransactionRequest request -> writeCreateRequest(writer, request);
+            case BatchCreateTransactionRequest request -> writeBatchRequest(writer, request);
+            default -> throw new ClassCastException(value.getClass().getName());
+        }
+    }
+
+    private static void writeTransaction(Writer writer, TransactionResponse response) {
+        writer.writeString(response.getId());
+        writer.writeString(response.getAccountId());
+        writer.writeDecimal(response.getAmount());
+        writer.writeType(response.getType());
+        writer.writeDate(response.getDate());
+        writer.writeString(response.getDescription());
+        writer.writeVarLong(response.getVersion());
+    }
+
+    private static TransactionResponse readTransaction(Reader reader) {
+        return TransactionResponse.builder()
+                .id(reader.readString())
+                .accountId(reader.readString())
+                .amount(reader.readDecimal())
+                .type(reader.readType())
+                .date(reader.readDate())
+                .description(reader.readString())
+                .version(reader.readVarLong())
+                .build();
+    }
+
+    private static void writePage(Writer writer, Page<?> page) {
+        writer.writeVarLong(page.getNumber());
+        writer.writeVarLong(page.getSize());
+        writer.writeVarLong(page.getTotalElements());
+        List<?> content = page.getContent();
+        writer.writeVarLong(content.size());
+        for (Object item : content) {
+            writeTransaction(writer, (TransactionResponse) item);
+        }
+    }
+
+    private static Page<TransactionResponse> readPage(Reader reader) {
+        int number = reader.readCount();
+        int size = reader.readCount();
+        long total = reader.readVarLong();
+        int count = reader.readCount();
+        List<TransactionResponse> content = reader.newList(count);
+        for (int i = 0; i < count; i++) {
+            content.add(readTransaction(reader));
+        }
+        Pageable pageable = size > 0 ? PageRequest.of(number, size) : Pageable.unpaged();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private static void writeBatchResponse(Writer writer, TransactionBatchResponse response) {
+        writer.writeVarLong(response.getCreated());
+        writer.writeVarLong(response.getFailed());
+        List<TransactionBatchItemResult> results = response.getResults();
+        writer.writeVarLong(results == null ? 0 : results.size() + 1);
+        if (results == null) {
+            return;
+        }
+        for (TransactionBatchItemResult result : results) {
+            writer.writeVarLong(result.getIndex());
+            writer.writeByte(result.isSuccess() ? 1 : 0);
+            writer.writeByte(result.getTransaction() == null ? 0 : 1);
+            if (result.getTransaction() != null) {
+                writeTransaction(writer, result.getTransaction());
+            }
+            writer.writeString(result.getMessage());
+        }
+    }
+
+    private static TransactionBatchResponse readBatchResponse(Reader reader) {
+        int created = reader.readCount();
+        int failed = reader.readCount();
+        int count = reader.readCount() - 1;
+        List<TransactionBatchItemResult> results = count < 0 ? null : reader.newList(count);
+        for (int i = 0; i < count; i++) {
+            results.add(TransactionBatchItemResult.builder()
+                    .index(reader.readCount())
+                    .success(reader.readByte() != 0)
+                    .transaction(reader.readByte() != 0 ? readTransaction(reader) : null)
+                    .message(reader.readString())
+                    .build());
+        }
+        return TransactionBatchResponse.builder().created(created).failed(failed).results(results).build();
+    }
+
+    private static void writeCreateRequest(Writer writer, CreateTransactionRequest request) {
+        writer.writeString(request.getPreventDuplicateToken());
+        writer.writeString(request.getAccountId());
+        writer.writeDecimal(request.getAmount());
+        writer.writeType(request.getType());
+        writer.writeString(request.getDescription());
+    }
+
+    private static CreateTransactionRequest readCreateRequest(Reader reader) {
+        return new CreateTransactionRequest(reader.readString(), reader.readString(), reader.readDecimal(),
+                reader.readType(), reader.readString());
+    }
+
+    private static void writeBatchRequest(Writer writer, BatchCreateTransactionRequest request) {
+        writer.writeString(request.getPreventDuplicateToken());
+        List<BatchTransactionItem> items = request.getTransactions();
+        writer.writeVarLong(items == null ? 0 : items.size() + 1);
+        if (items == null) {
+            return;
+        }
+        for (BatchTransactionItem item : items) {
+            // 单条为 null 时写入 0，由服务层按校验失败处理
+            writer.writeByte(item == null ? 0 : 1);
+            if (item != null) {
+                writer.writeString(item.getAccountId());
+                writer.writeDecimal(item.getAmount());
+                writer.writeType(item.getType());
+                writer.writeString(item.getDescription());
+            }
+        }
+    }
+
+    private static BatchCreateTransactionRequest readBatchRequest(Reader reader) {
+        String token = reader.readString();
+        int count = reader.readCount() - 1;
+        List<BatchTransactionItem> items = count < 0 ? null : reader.newList(count);
+        for (int i = 0; i < count; i++) {
+            items.add(reader.readByte() == 0 ? null : new BatchTransactionItem(reader.readString(),
+                    reader.readDecimal(), reader.readType(), reader.readString()));
+        }
+        return new BatchCreateTransactionRequest(token, items);
+    }
+
+    /**
+     * 按需扩容的字节缓冲区
+     */
+    private static final class Writer {
+
+        private byte[] buffer = new byte[256];
+        private int position;
+
+        private void ensure(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            int length = value.length();
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                ascii = value.charAt(i) < 0x80;
+            }
+            if (!ascii) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(bytes.length + 1L);
+                ensure(bytes.length);
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+                return;
+            }
+            // ASCII 字符串的 UTF-8 编码就是字符本身，直接写入，不分配中间数组
+            writeVarLong(length + 1L);
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                buffer[position++] = (byte) value.charAt(i);
+            }
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (value == null) {
+                writeByte(DECIMAL_NULL);
+                return;
+            }
+            BigInteger unscaled = value.unscaledValue();
+            if (unscaled.bitLength() < Long.SIZE) {
+                writeByte(DECIMAL_LONG);
+                writeZigZag(value.scale());
+                writeZigZag(unscaled.longValue());
+                return;
+            }
+            byte[] bytes = unscaled.toByteArray();
+            writeByte(DECIMAL_BIG);
+            writeZigZag(value.scale());
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeType(TransactionType type) {
+            writeByte(type == null ? 0 : type.ordinal() + 1);
+        }
+
+        void writeDate(LocalDateTime value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            writeVarLong(value.getNano() + 1L);
+            writeZigZag(value.toEpochSecond(ZoneOffset.UTC));
+        }
+    }
+
+    /**
+     * 顺序读取报文，越界或取值非法时抛出 IllegalArgumentException
+     */
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        private void require(int length) {
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("报文在第 " + position + " 字节处不完整");
+            }
+        }
+
+        /**
+         * 列表每条至少占 1 字节，按剩余字节数限制预分配的容量，避免按非法的条数分配内存
+         */
+        <T> List<T> newList(int count) {
+            return new ArrayList<>(Math.min(count, data.length - position));
+        }
+
+        byte readByte() {
+            require(1);
+            return data[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("变长整数过长");
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * 读取非负的条数、长度或下标
+         */
+        int readCount() {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("非法的数值 " + value);
+            }
+            return (int) value;
+        }
+
+        String readString() {
+            int length = readCount() - 1;
+            if (length < 0) {
+                return null;
+            }
+            require(length);
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        BigDecimal readDecimal() {
+            byte tag = readByte();
+            if (tag == DECIMAL_NULL) {
+                return null;
+            }
+            int scale = Math.toIntExact(readZigZag());
+            if (tag == DECIMAL_LONG) {
+                return BigDecimal.valueOf(readZigZag(), scale);
+            }
+            if (tag != DECIMAL_BIG) {
+                throw new IllegalArgumentException("非法的金额标记 " + tag);
+            }
+            int length = readCount();
+            require(length);
+            BigInteger unscaled = new BigInteger(data, position, length);
+            position += length;
+            return new BigDecimal(unscaled, scale);
+        }
+
+        TransactionType readType() {
+            int ordinal = readByte();
+            if (ordinal < 0 || ordinal > TYPES.length) {
+                throw new IllegalArgumentException("非法的交易类型 " + ordinal);
+            }
+            return ordinal == 0 ? null : TYPES[ordinal - 1];
+        }
+
+        LocalDateTime readDate() {
+            long nano = readVarLong() - 1;
+            if (nano < 0) {
+                return null;
+            }
+            return LocalDateTime.ofEpochSecond(readZigZag(), Math.toIntExact(nano), ZoneOffset.UTC);
+        }
+    }
+}
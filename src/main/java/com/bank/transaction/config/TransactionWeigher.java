@@ -0,0 +1,72 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.response.TransactionResponse;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.math.BigDecimal;
+
+/**
+ * 按估算的堆内存字节数计算缓存条目的权重。
+ * 描述等字符串的长度差别很大，按条数限制缓存无法控制缓存实际占用的内存。
+ * 估算按 64 位 JVM、开启压缩指针计算，包括缓存节点、键字符串和 TransactionResponse 引用的全部对象，
+ * 枚举等共享对象不计入。
+ */
+class TransactionWeigher implements Weigher<Object, Object> {
+
+    // Caffeine 带过期时间和权重的节点
+    private static final int ENTRY_BYTES = 64;
+    // TransactionResponse 对象本身：对象头 + 6 个引用 + long
+    private static final int RESPONSE_BYTES = 48;
+    // LocalDateTime 及其引用的 LocalDate、LocalTime
+    private static final int DATE_TIME_BYTES = 72;
+    // BigDecimal 对象，未缩放值超出 long 范围时另有 BigInteger
+    private static final int DECIMAL_BYTES = 40;
+    private static final int BIG_INTEGER_BYTES = 40;
+    // 其他类型的值，例如缓存的 null
+    private static final int OTHER_BYTES = 16;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long bytes = ENTRY_BYTES + (key instanceof String text ? sizeOf(text) : OTHER_BYTES);
+        if (value instanceof TransactionResponse response) {
+            bytes += RESPONSE_BYTES
+                    + sizeOf(response.getId())
+                    + sizeOf(response.getAccountId())
+                    + sizeOf(response.getDescription())
+                    + sizeOf(response.getAmount())
+                    + (response.getDate() == null ? 0 : DATE_TIME_BYTES);
+        } else {
+            bytes += OTHER_BYTES;
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 字符串对象加 byte[]：只含 Latin-1 字符时每个字符 1 字节，否则 2 字节
+     */
+    static long sizeOf(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int bytesPerChar = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return 24 + align(16 + (long) text.length() * bytesPerChar);
+    }
+
+    private static long sizeOf(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        // 不超过 18 位有效数字时未缩放值一定能用 long 表示，不会创建 BigInteger
+        return amount.precision() <= 18 ? DECIMAL_BYTES : DECIMAL_BYTES + BIG_INTEGER_BYTES;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
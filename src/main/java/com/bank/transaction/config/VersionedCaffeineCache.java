@@ -0,0 +1,60 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.response.TransactionResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 按版本号写入的 Caffeine 缓存。
+ * 写入交易时只有版本号不低于已缓存的版本才会替换，并发更新的写回顺序与仓库中的提交顺序不一致时，
+ * 较早的版本不会覆盖较新的版本。比较和替换在 Caffeine 的 merge 中原子完成。
+ * 同一个键正在加载时，写入等待加载完成后再比较版本。
+ * 加载结果为 null 时不写入缓存，加载以 null 正常结束，不会作为加载失败记录异常日志。
+ * 非 TransactionResponse 的值按普通缓存处理。
+ */
+class VersionedCaffeineCache extends CaffeineCache {
+
+    VersionedCaffeineCache(String name, AsyncCache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Caffeine 不保存结果为 null 的 future，并发等待同一次加载的查询都得到 null
+        CompletableFuture<Object> future = getAsyncCache().get(key, (k, executor) -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return valueLoader.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }, executor));
+        try {
+            return (T) fromStoreValue(future.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        getNativeCache().asMap().merge(key, toStoreValue(value), VersionedCaffeineCache::newer);
+    }
+
+    private static Object newer(Object current, Object candidate) {
+        if (current instanceof TransactionResponse cached && candidate instanceof TransactionResponse written
+                && cached.getVersion() > written.getVersion()) {
+            return current;
+        }
+        return candidate;
+    }
+}
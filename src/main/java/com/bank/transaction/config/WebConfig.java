@@ -0,0 +1,21 @@
+package com.bank.transaction.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Spring MVC 配置。
+ * 在默认的转换器之后加入交易二进制报文转换器：请求头 Accept 或 Content-Type 为 application/x-bank-transaction 时使用二进制报文，
+ * 其余请求的协商结果不变，仍然使用 JSON。
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new TransactionBinaryHttpMessageConverter());
+    }
+}
@@ -0,0 +1,47 @@
+package com.bank.transaction.controller;
+
+import com.bank.transaction.response.CacheStatsResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 缓存监控API控制器。
+ * 返回各个缓存的命中率、淘汰数和加载耗时，用于在生产负载下调整缓存配置。
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final CacheManager cacheManager;
+
+    // 通过构造函数注入CacheManager
+    public CacheController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * 获取全部缓存的统计信息。
+     * @return 每个缓存的统计信息和200 OK状态码。
+     */
+    @Operation(summary = "获取缓存统计信息", description = "返回每个缓存的条数、估算占用字节数、命中率、淘汰数和平均加载耗时")
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStatsResponse>> getCacheStats() {
+        List<CacheStatsResponse> result = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache instanceof CaffeineCache caffeineCache) {
+                result.add(CacheStatsResponse.fromCache(name, caffeineCache.getNativeCache()));
+            }
+        }
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,51 @@
+package com.bank.transaction.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 健康检查API控制器。
+ * 供 Kubernetes 的存活探针和就绪探针使用，状态来自 Spring Boot 的应用可用性状态。
+ */
+@RestController
+@RequestMapping("/health")
+public class HealthController {
+
+    private final ApplicationAvailability applicationAvailability;
+
+    // 通过构造函数注入ApplicationAvailability
+    public HealthController(ApplicationAvailability applicationAvailability) {
+        this.applicationAvailability = applicationAvailability;
+    }
+
+    /**
+     * 存活检查。
+     * @return 应用状态正常时返回200 OK，否则返回503 Service Unavailable。
+     */
+    @Operation(summary = "存活检查", description = "应用状态正常时返回 200")
+    @GetMapping("/liveness")
+    public ResponseEntity<String> liveness() {
+        LivenessState state = applicationAvailability.getLivenessState();
+        return ResponseEntity.status(state == LivenessState.CORRECT ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(state.name());
+    }
+
+    /**
+     * 就绪检查，启动流程（包括缓存预热）完成前返回503。
+     * @return 可以接收流量时返回200 OK，否则返回503 Service Unavailable。
+     */
+    @Operation(summary = "就绪检查", description = "启动完成、可以接收流量时返回 200，缓存预热期间返回 503")
+    @GetMapping("/readiness")
+    public ResponseEntity<String> readiness() {
+        ReadinessState state = applicationAvailability.getReadinessState();
+        return ResponseEntity.status(state == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(state.name());
+    }
+}
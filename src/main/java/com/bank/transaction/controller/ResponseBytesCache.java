@@ -0,0 +1,63 @@
+package com.bank.transaction.controller;
+
+import com.bank.transaction.response.TransactionResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.UncheckedIOException;
+
+/**
+ * 单笔交易响应的 JSON 字节缓存。
+ * 以交易缓存中的 TransactionResponse 对象本身为键（按引用比较、弱引用），值为该对象序列化后的 UTF-8 JSON，
+ * 缓存命中时直接写出字节，不再经过 Jackson 序列化 BigDecimal、LocalDateTime 和枚举。
+ * 创建、更新会在交易缓存中放入新的对象，删除会移除旧对象，旧对象的字节随之不再被使用并在对象回收后清除，
+ * 因此不需要单独失效，也不会返回过期的内容。
+ * transaction.cache.json-bytes-max-size 为 0 时不缓存。
+ */
+@Component
+class ResponseBytesCache {
+
+    private final ObjectMapper objectMapper;
+
+    // 未启用时为 null
+    private final Cache<TransactionResponse, byte[]> cache;
+
+    ResponseBytesCache(ObjectMapper objectMapper,
+                       @Value("${transaction.cache.json-bytes-max-size:16MB}") DataSize maxSize) {
+        this.objectMapper = objectMapper;
+        this.cache = maxSize.toBytes() <= 0 ? null : Caffeine.newBuilder()
+                .weakKeys()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((TransactionResponse response, byte[] json) -> json.length)
+                .build();
+    }
+
+    /**
+     * @return 是否启用
+     */
+    boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * 获取交易的 JSON 字节，未缓存时序列化并缓存
+     * @param response 交易缓存返回的交易响应DTO
+     * @return UTF-8 JSON，调用方不能修改
+     */
+    byte[] get(TransactionResponse response) {
+        return cache.get(response, this::serialize);
+    }
+
+    private byte[] serialize(TransactionResponse response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
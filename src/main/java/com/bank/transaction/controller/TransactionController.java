@@ -1,20 +1,42 @@
 package com.bank.transaction.controller;
 
+import com.bank.transaction.common.VersionConflictException;
+import com.bank.transaction.config.TransactionBinaryHttpMessageConverter;
+import com.bank.transaction.request.BatchCreateTransactionRequest;
 import com.bank.transaction.request.CreateTransactionRequest;
 import com.bank.transaction.request.UpdateTransactionRequest;
+import com.bank.transaction.response.TransactionBatchResponse;
+import com.bank.transaction.response.TransactionChangeEvent;
 import com.bank.transaction.response.TransactionResponse;
+import com.bank.transaction.response.TransactionScrollResponse;
+import com.bank.transaction.service.TransactionChangeFeed;
 import com.bank.transaction.service.TransactionService;
 import com.bank.transaction.util.TokenUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 /**
  * 交易管理RestFul API控制器。
@@ -27,9 +49,28 @@ public class TransactionController {
 
     private final TransactionService transactionService;
 
+    // 流式输出时逐条序列化交易，与普通响应使用同一个 ObjectMapper
+    private final ObjectMapper objectMapper;
+
+    // 单笔交易查询的 JSON 字节缓存
+    private final ResponseBytesCache responseBytesCache;
+
+    // 二进制报文 ETag 的后缀
+    private static final String BINARY_ETAG_SUFFIX = "-bin";
+
+    // 列表 ETag 的前缀，每次启动随机生成：修改计数重启后从 0 开始，不同实例或重启前后相同的计数不代表相同的数据
+    private final String instanceTag = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+    // 交易变更事件流
+    private final TransactionChangeFeed changeFeed;
+
     // 通过构造函数注入TransactionService
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, ObjectMapper objectMapper,
+                                 ResponseBytesCache responseBytesCache, TransactionChangeFeed changeFeed) {
         this.transactionService = transactionService;
+        this.objectMapper = objectMapper;
+        this.responseBytesCache = responseBytesCache;
+        this.changeFeed = changeFeed;
     }
 
     /**
@@ -45,60 +86,201 @@ public class TransactionController {
     /**
      * 创建一笔新交易。
      * @param request 包含交易数据的请求体，通过@Valid进行数据验证。
-     * @return 创建成功的交易响应DTO和201 Created状态码。
+     * @return 创建成功的交易响应DTO和201 Created状态码，ETag 为交易的版本号。
      */
     @Operation(summary = "创建一笔新交易", description = "创建一笔新的交易，返回这笔交易信息，请求需要带上访问令牌")
     @PostMapping
     public ResponseEntity<TransactionResponse> createTransaction(@Valid @RequestBody CreateTransactionRequest request) {
         TransactionResponse response = transactionService.createTransaction(request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(eTag(response)).body(response);
+    }
+
+    /**
+     * 批量创建交易。
+     * @param request 包含防重令牌和交易列表的请求体，整批共用一个令牌。
+     * @return 每条交易的处理结果和200 OK状态码，校验失败的交易在结果中单独报告。
+     */
+    @Operation(summary = "批量创建交易", description = "使用一个访问令牌批量创建交易，逐条返回创建结果，单次最多 10000 条")
+    @PostMapping("/batch")
+    public ResponseEntity<TransactionBatchResponse> createTransactions(@Valid @RequestBody BatchCreateTransactionRequest request) {
+        return ResponseEntity.ok(transactionService.createTransactions(request));
     }
 
     /**
      * 根据ID获取特定交易详情。
      * @param id 路径变量中的交易ID。
-     * @return 交易响应DTO和200 OK状态码。如果未找到，GlobalExceptionHandler会返回404。
+     * @param webRequest 用于比较 If-None-Match 请求头
+     * @return 交易响应DTO和200 OK状态码，ETag 为交易的版本号，带有 Vary: Accept。如果未找到，GlobalExceptionHandler会返回404；
+     *         If-None-Match 与当前版本一致时返回304，不序列化响应体。
+     *         启用 JSON 字节缓存时直接返回缓存的 UTF-8 JSON，内容与序列化交易响应DTO相同。
      */
     @Operation(summary = "获取特定交易详情", description = "根据ID获取特定交易详情")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = TransactionResponse.class)))
     @GetMapping("/{id}")
-    public ResponseEntity<TransactionResponse> getTransactionById(@PathVariable String id) {
+    public ResponseEntity<?> getTransactionById(@PathVariable String id, WebRequest webRequest) {
+        TransactionResponse response = transactionService.getTransactionById(id);
+        varyByAccept(webRequest);
+        if (webRequest.checkNotModified(eTag(response))) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(eTag(response));
+        if (!responseBytesCache.isEnabled()) {
+            return builder.body(response);
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(responseBytesCache.get(response));
+    }
+
+    /**
+     * 以二进制报文获取特定交易详情，供内部服务调用。
+     * 请求头 Accept 为 application/x-bank-transaction 时匹配该方法，不经过 JSON 字节缓存。
+     * @param id 路径变量中的交易ID。
+     * @param webRequest 用于比较 If-None-Match 请求头
+     * @return 交易响应DTO和200 OK状态码，由 TransactionBinaryHttpMessageConverter 编码；
+     *         ETag 为版本号加上 -bin 后缀，与 JSON 表示的 ETag 不同，条件请求的处理与 JSON 相同。
+     */
+    @Operation(summary = "以二进制报文获取特定交易详情", description = "请求头 Accept: application/x-bank-transaction 时返回二进制报文")
+    @GetMapping(value = "/{id}", produces = TransactionBinaryHttpMessageConverter.TRANSACTION_BINARY_VALUE)
+    public ResponseEntity<TransactionResponse> getTransactionByIdBinary(@PathVariable String id, WebRequest webRequest) {
         TransactionResponse response = transactionService.getTransactionById(id);
-        return ResponseEntity.ok(response);
+        varyByAccept(webRequest);
+        if (webRequest.checkNotModified(binaryETag(response))) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(binaryETag(response)).body(response);
     }
 
     /**
      * 获取所有交易。
-     * @return 所有交易响应DTO的列表和200 OK状态码。
+     * @param webRequest 用于比较 If-None-Match 请求头
+     * @return 所有交易响应DTO的列表和200 OK状态码，ETag 由修改计数生成；交易没有变化时返回304。
      */
-    @Operation(summary = "获取所有交易", description = "获取所有交易")
+    @Operation(summary = "获取所有交易", description = "获取所有交易；携带 If-None-Match 且交易没有变化时返回 304")
     @GetMapping
-    public ResponseEntity<List<TransactionResponse>> getAllTransactions() {
-        List<TransactionResponse> transactions = transactionService.getAllTransactions();
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<List<TransactionResponse>> getAllTransactions(WebRequest webRequest) {
+        return ifModified(webRequest, transactionService::getAllTransactions);
+    }
+
+    /**
+     * 以 NDJSON 流式获取所有交易，每行一笔交易的 JSON。
+     * 按批从仓库读取后直接写入响应流，不在内存中组装完整的列表，内存占用与交易总数无关。
+     * @return 逐行写出交易的响应体和200 OK状态码。
+     */
+    @Operation(summary = "流式获取所有交易", description = "请求头 Accept: application/x-ndjson 时按日期降序逐行输出全部交易，每行一个 JSON 对象，适合导出大量数据")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTransactions() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // 每行之间只用换行分隔，不使用默认的空格
+                generator.setRootValueSeparator(null);
+                transactionService.forEachTransaction(response -> {
+                    try {
+                        generator.writeObject(response);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * 以 Server-Sent Events 推送交易的创建、更新和删除事件，代替轮询全部交易。
+     * 每个连接由一个虚拟线程从订阅队列读取事件并写出，事件名为变更类型，事件ID用于断线续传。
+     * 消费过慢的连接被服务端关闭，客户端可以携带 Last-Event-ID 重连继续接收；无法续传时先收到 reset 事件，需要重新读取全部交易。
+     * @param lastEventId 可选的 Last-Event-ID 请求头，客户端收到的最后一个事件ID
+     * @return 推送事件的 SseEmitter，超时时间为 spring.mvc.async.request-timeout，超时后客户端自动重连续传
+     */
+    @Operation(summary = "订阅交易变更", description = "以 text/event-stream 推送交易的创建、更新和删除事件；重连时携带 Last-Event-ID 从断开处继续，无法续传时推送 reset 事件")
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter();
+        TransactionChangeFeed.Subscription subscription = changeFeed.subscribe(lastEventId);
+        Thread sender = Thread.ofVirtual().name("change-feed").start(() -> {
+            try (subscription) {
+                if (subscription.isReset()) {
+                    emitter.send(SseEmitter.event().name("reset").data("Last-Event-ID 无法续传，请重新读取全部交易"));
+                }
+                TransactionChangeEvent event;
+                while ((event = subscription.next()) != null) {
+                    emitter.send(SseEmitter.event().id(event.getEventId()).name(event.getType().name()).data(event));
+                }
+                // 消费过慢被丢弃，关闭连接，由客户端携带 Last-Event-ID 重连
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开或连接已结束
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                // 连接结束时由回调中断
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runnable stop = () -> {
+            subscription.close();
+            sender.interrupt();
+        };
+        emitter.onCompletion(stop);
+        emitter.onTimeout(stop);
+        emitter.onError(e -> stop.run());
+        return emitter;
+    }
+
+    /**
+     * 分页获取某个账户下的交易。
+     * @param accountId 账户ID
+     * @param page 页码 (默认 0)
+     * @param size 每页大小 (默认 10)
+     * @param webRequest 用于比较 If-None-Match 请求头
+     * @return 该账户交易的分页响应对象和 200 OK 状态码；交易没有变化时返回304
+     */
+    @Operation(summary = "分页获取账户交易", description = "根据账户ID分页获取该账户下的交易，按日期降序排列；携带 If-None-Match 且交易没有变化时返回 304")
+    @GetMapping(params = "accountId")
+    public ResponseEntity<Page<TransactionResponse>> getTransactionsByAccountId(
+            @RequestParam String accountId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        Pageable pageable = PageRequest.of(page, size);
+        return ifModified(webRequest, () -> transactionService.getTransactionsByAccountId(accountId, pageable));
     }
 
     /**
      * 更新一笔现有交易。
      * @param id 路径变量中的交易ID。
+     * @param ifMatch 可选的 If-Match 请求头，携带时仅当版本一致才更新。
      * @param request 包含更新数据的请求体，通过@Valid进行数据验证。
-     * @return 更新后的交易响应DTO和200 OK状态码。如果未找到，GlobalExceptionHandler会返回404。
+     * @return 更新后的交易响应DTO和200 OK状态码。如果未找到，GlobalExceptionHandler会返回404；版本不一致返回412。
      */
-    @Operation(summary = "更新一笔现有交易", description = "根据ID更新一笔现有交易，返回更新后的交易信息,不存在会报错")
+    @Operation(summary = "更新一笔现有交易", description = "根据ID更新一笔现有交易，返回更新后的交易信息,不存在会报错；携带 If-Match 时版本不一致返回412")
     @PutMapping("/{id}")
-    public ResponseEntity<TransactionResponse> updateTransaction(@PathVariable String id, @Valid @RequestBody UpdateTransactionRequest request) {
-        TransactionResponse response = transactionService.updateTransaction(id, request);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<TransactionResponse> updateTransaction(@PathVariable String id,
+                                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                 @Valid @RequestBody UpdateTransactionRequest request) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        TransactionResponse response = expectedVersion == null
+                ? transactionService.updateTransaction(id, request)
+                : transactionService.updateTransaction(id, request, expectedVersion);
+        return ResponseEntity.ok().eTag(eTag(response)).body(response);
     }
 
     /**
      * 根据ID删除交易。
      * @param id 路径变量中的交易ID。
-     * @return 204 No Content状态码。如果未找到，GlobalExceptionHandler会返回404。
+     * @param ifMatch 可选的 If-Match 请求头，携带时仅当版本一致才删除。
+     * @return 204 No Content状态码。如果未找到，GlobalExceptionHandler会返回404；版本不一致返回412。
      */
-    @Operation(summary = "删除交易",description = "根据ID删除交易,不存在会报错")
+    @Operation(summary = "删除交易",description = "根据ID删除交易,不存在会报错；携带 If-Match 时版本不一致返回412")
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTransaction(@PathVariable String id) {
-        transactionService.deleteTransaction(id);
+    public ResponseEntity<Void> deleteTransaction(@PathVariable String id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        if (expectedVersion == null) {
+            transactionService.deleteTransaction(id);
+        } else {
+            transactionService.deleteTransaction(id, expectedVersion);
+        }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content 表示请求成功但没有返回数据。
     }
 
@@ -106,16 +288,101 @@ public class TransactionController {
      * 分页获取所有交易。
      * @param page 页码 (默认 0)
      * @param size 每页大小 (默认 10)
-     * @return 包含交易列表的分页响应对象和 200 OK 状态码
+     * @param webRequest 用于比较 If-None-Match 请求头
+     * @return 包含交易列表的分页响应对象和 200 OK 状态码；交易没有变化时返回304
      */
-    @Operation(summary = "分页获取所有交易",  description = "分页获取所有交易")
+    @Operation(summary = "分页获取所有交易",  description = "分页获取所有交易；携带 If-None-Match 且交易没有变化时返回 304")
     @GetMapping("/page")
     public ResponseEntity<Page<TransactionResponse>> getAllTransactions(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
         Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(transactionService.getAllTransactions(pageable));
+        return ifModified(webRequest, () -> transactionService.getAllTransactions(pageable));
+    }
+
+    /**
+     * 游标分页获取交易，适合深度翻页和全量遍历，不返回总数。
+     * @param after 上一批返回的游标 (首批不传)
+     * @param limit 每批大小 (默认 10)
+     * @param webRequest 用于比较 If-None-Match 请求头
+     * @return 当前批次的交易和下一批的游标，没有更多数据时游标为 null；交易没有变化时返回304
+     */
+    @Operation(summary = "游标分页获取交易", description = "按日期降序游标分页获取交易，使用上一批返回的 nextCursor 获取下一批；携带 If-None-Match 且交易没有变化时返回 304")
+    @GetMapping("/scroll")
+    public ResponseEntity<TransactionScrollResponse> scrollTransactions(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest webRequest) {
+        return ifModified(webRequest, () -> transactionService.scrollTransactions(after, limit));
     }
-}
 
+    /**
+     * 交易的 ETag，取值为版本号。
+     * @param response 交易响应DTO
+     * @return ETag 值，由 Spring 加上双引号
+     */
+    private static String eTag(TransactionResponse response) {
+        return String.valueOf(response.getVersion());
+    }
 
+    /**
+     * 交易二进制报文的 ETag，取值为版本号加上后缀，与同一版本的 JSON 表示区分。
+     * @param response 交易响应DTO
+     * @return ETag 值，由 Spring 加上双引号
+     */
+    private static String binaryETag(TransactionResponse response) {
+        return eTag(response) + BINARY_ETAG_SUFFIX;
+    }
+
+    /**
+     * 单笔交易的 JSON 和二进制报文由同一个URL按 Accept 返回，响应（包括304）都带上 Vary: Accept，
+     * 共享缓存按 Accept 分别保存两种表示。
+     * @param webRequest 当前请求
+     */
+    private static void varyByAccept(WebRequest webRequest) {
+        if (webRequest instanceof ServletWebRequest servletWebRequest && servletWebRequest.getResponse() != null) {
+            servletWebRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
+
+    /**
+     * 按修改计数处理列表查询的条件请求。
+     * 先读取修改计数再查询数据，返回的数据不会比 ETag 旧；If-None-Match 与当前 ETag 一致时返回304，不查询也不序列化数据。
+     * @param webRequest 当前请求
+     * @param body 查询数据
+     * @return 带 ETag 的200响应；未修改时返回 null，由 Spring 写出304
+     */
+    private <T> ResponseEntity<T> ifModified(WebRequest webRequest, Supplier<T> body) {
+        String eTag = instanceTag + "-" + transactionService.getModificationCount();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(body.get());
+    }
+
+    /**
+     * 解析 If-Match 请求头中的版本号。
+     * @param ifMatch If-Match 请求头
+     * @return 期望的版本号；未携带或为 * 时返回 null，表示不校验版本
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        // 二进制报文的 ETag 带有后缀，版本号相同
+        if (value.endsWith(BINARY_ETAG_SUFFIX)) {
+            value = value.substring(0, value.length() - BINARY_ETAG_SUFFIX.length());
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            // 弱 ETag 或无法识别的值不可能与当前版本强匹配
+            throw new VersionConflictException(String.format("If-Match 与交易当前版本不一致: %s", ifMatch));
+        }
+    }
+}
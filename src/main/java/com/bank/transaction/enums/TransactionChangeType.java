@@ -0,0 +1,10 @@
+package com.bank.transaction.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum TransactionChangeType {
+    CREATED,    // 创建
+    UPDATED,    // 更新
+    DELETED     // 删除
+}
@@ -21,4 +21,9 @@ public class Transaction {
     private TransactionType type;   // 交易类型，例如存款或取款
     private LocalDateTime date;     // 交易发生日期和时间
     private String description;     // 交易描述
+    private long version;           // 版本号，每次更新由仓库加一，用于乐观并发控制
+
+    public Transaction(String id, String accountId, BigDecimal amount, TransactionType type, LocalDateTime date, String description) {
+        this(id, accountId, amount, type, date, description, 0);
+    }
 }
@@ -0,0 +1,239 @@
+package com.bank.transaction.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * 以非负 long 为键的并发开放寻址哈希表。
+ * 键和值分别保存在 long[] 和 Object[] 中，没有 Entry 节点、键对象和装箱。
+ * 按键的哈希分为多个段，每段一把 StampedLock：读取先用乐观读，期间没有写入时不加锁；
+ * 写入持有该段的写锁，compute 回调在锁内执行，对同一个键是原子的。
+ *
+ * @param <V> 值的类型
+ */
+final class ConcurrentLongMap<V> {
+
+    private static final int SEGMENTS = 64;
+    // 空槽的键，要求所有键非负
+    private static final long EMPTY = -1;
+
+    @SuppressWarnings("unchecked")
+    private final Segment<V>[] segments = new Segment[SEGMENTS];
+
+    ConcurrentLongMap() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    /**
+     * @param key 键
+     * @return 键对应的值，不存在时返回 null
+     */
+    V get(long key) {
+        return segment(key).get(key);
+    }
+
+    /**
+     * 在该段的写锁内根据旧值计算新值，新值为 null 时删除
+     * @param key 键，必须非负
+     * @param remapping 参数为旧值（不存在时为 null），返回新值
+     * @return 新值
+     */
+    V compute(long key, UnaryOperator<V> remapping) {
+        if (key < 0) {
+            throw new IllegalArgumentException("键必须非负: " + key);
+        }
+        return segment(key).compute(key, remapping);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * @return 全部值的快照
+     */
+    List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        for (Segment<V> segment : segments) {
+            segment.copyValues(values);
+        }
+        return values;
+    }
+
+    /**
+     * 哈希表本身占用的字节数（按压缩指针计算两个数组），不含值对象
+     */
+    long sizeInBytes() {
+        long bytes = 0;
+        for (Segment<V> segment : segments) {
+            bytes += 12L * segment.table.keys.length;
+        }
+        return bytes;
+    }
+
+    private Segment<V> segment(long key) {
+        return segments[(int) (mix(key) >>> 58)];
+    }
+
+    private static long mix(long key) {
+        // MurmurHash3 的 64 位混合函数
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb3fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * 键和值数组，扩容时整体替换，保证读取时两个数组的长度一致
+     */
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+    }
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(16);
+        private volatile int size;
+
+        @SuppressWarnings("unchecked")
+        V get(long key) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                Object value = find(table, key);
+                if (lock.validate(stamp)) {
+                    return (V) value;
+                }
+            }
+            // 读取期间有写入，改为加读锁重新读取
+            stamp = lock.readLock();
+            try {
+                return (V) find(table, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V compute(long key, UnaryOperator<V> remapping) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = slot(table, key);
+                V previous = table.keys[slot] == key ? (V) table.values[slot] : null;
+                V value = remapping.apply(previous);
+                if (value != null) {
+                    if (previous == null) {
+                        if ((size + 1) * 4 > table.keys.length * 3) {
+                            resize();
+                            slot = slot(table, key);
+                        }
+                        table.keys[slot] = key;
+                        size++;
+                    }
+                    table.values[slot] = value;
+                } else if (previous != null) {
+                    delete(slot);
+                    size--;
+                }
+                return value;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void copyValues(List<V> target) {
+            long stamp = lock.readLock();
+            try {
+                for (int i = 0; i < table.keys.length; i++) {
+                    if (table.keys[i] != EMPTY) {
+                        @SuppressWarnings("unchecked")
+                        V value = (V) table.values[i];
+                        target.add(value);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * 乐观读时数组可能正被修改，探测次数以容量为上限，结果由调用方校验
+         */
+        private static Object find(Table table, long key) {
+            long[] keys = table.keys;
+            int mask = keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            for (int probes = 0; probes < keys.length; probes++) {
+                long current = keys[slot];
+                if (current == key) {
+                    return table.values[slot];
+                }
+                if (current == EMPTY) {
+                    return null;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * 键所在的槽，不存在时返回探测链末尾的空槽
+         */
+        private static int slot(Table table, long key) {
+            int mask = table.keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            while (table.keys[slot] != EMPTY && table.keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void delete(int slot) {
+            long[] keys = table.keys;
+            Object[] values = table.values;
+            int mask = keys.length - 1;
+            // 把后续同一探测链上的元素前移，保证查找不会提前遇到空槽
+            int hole = slot;
+            for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+                int home = (int) mix(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = EMPTY;
+            values[hole] = null;
+        }
+
+        private void resize() {
+            Table old = table;
+            Table resized = new Table(old.keys.length * 2);
+            for (int i = 0; i < old.keys.length; i++) {
+                if (old.keys[i] != EMPTY) {
+                    int slot = slot(resized, old.keys[i]);
+                    resized.keys[slot] = old.keys[i];
+                    resized.values[slot] = old.values[i];
+                }
+            }
+            table = resized;
+        }
+    }
+}
@@ -1,35 +1,55 @@
 package com.bank.transaction.repository;
 
 import com.bank.transaction.model.Transaction;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
-import java.util.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
  * TransactionRepository的内存实现。
  * 使用ConcurrentHashMap来模拟内存中的数据存储，确保线程安全。
+ * 同时维护按日期排序和按账户分组的二级索引，分页查询时无需对全部数据排序或过滤。
  */
 @Repository
+@ConditionalOnProperty(name = "transaction.repository.type", havingValue = "memory", matchIfMissing = true)
 public class InMemoryTransactionRepository implements TransactionRepository {
 
     // 使用ConcurrentHashMap存储交易，键是交易ID，值是Transaction对象。
     // ConcurrentHashMap是线程安全的，适合高并发场景下的内存数据存储。
     private final ConcurrentHashMap<String, Transaction> transactions = new ConcurrentHashMap<>();
 
+    // 日期索引和账户索引。索引只在主存储的 compute 回调中修改，保证同一ID的主存储与索引变更是串行的。
+    private final TransactionIndex index = new TransactionIndex();
+
     @Override
     public Transaction save(Transaction transaction) {
         // 由于是内存存储，这里直接将交易放入map中。
         // 在实际应用中，如果ID是数据库生成的，会在这里设置。
         // 对于本作业，ID在Service层生成。
-        transactions.put(transaction.getId(), transaction);
+        transactions.compute(transaction.getId(), (id, previous) -> {
+            index.reindex(previous, transaction);
+            return transaction;
+        });
         return transaction;
     }
 
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        // 逐条在 compute 回调中维护索引，每个ID的变更仍是原子的；不为整批加锁，不阻塞并发读写
+        for (Transaction transaction : transactions) {
+            save(transaction);
+        }
+        return transactions;
+    }
+
     @Override
     public Transaction findById(String id) {
         // 从map中根据ID获取交易,不存在时返回 null。
@@ -46,44 +66,76 @@ public class InMemoryTransactionRepository implements TransactionRepository {
 
     @Override
     public Page<Transaction> findAll(Pageable pageable) {
-        // 对于内存存储，我们首先获取所有交易，然后进行内存分页。
-        // 对于大数据集，这种方式效率低下，通常会使用持久化数据库。
-        List<Transaction> allTransactions = transactions.values().stream()
-                // 默认按日期降序排序，可以根据实际需求调整
-                .sorted(Comparator.comparing(Transaction::getDate).reversed())
-                .collect(Collectors.toList());
-
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), allTransactions.size());
-
-        // 确保子列表索引不越界
-        List<Transaction> pagedTransactions;
-        if (start < allTransactions.size()) {
-            pagedTransactions = allTransactions.subList(start, end);
-        } else {
-            pagedTransactions = new ArrayList<>(); // 如果起始索引超出列表大小，返回空列表
-        }
+        // 直接沿日期索引顺序遍历，不再复制和排序全部交易。
+        // 总数取自主存储，ConcurrentSkipListMap.size() 需要遍历全部节点
+        return index.page(pageable, transactions.size());
+    }
 
-        return new PageImpl<>(pagedTransactions, pageable, allTransactions.size());
+    @Override
+    public Page<Transaction> findByAccountId(String accountId, Pageable pageable) {
+        // 只遍历该账户自己的索引，代价与该账户的交易数相关，与总数据量无关。
+        return index.pageByAccountId(accountId, pageable);
+    }
+
+    @Override
+    public List<Transaction> findAllAfter(LocalDateTime afterDate, String afterId, int limit) {
+        // 通过跳表的 tailMap 直接定位到游标之后的位置，代价为 O(log n + limit)
+        return index.after(afterDate, afterId, limit, transactions.size());
     }
 
     @Override
     public Transaction update(Transaction transaction) {
         // 更新交易：如果ID存在，则替换旧的交易对象。
-        if (transactions.containsKey(transaction.getId())) {
-            transactions.put(transaction.getId(), transaction);
-            return transaction;
-        }
         // 如果不存在，根据业务逻辑可能抛出异常或返回null。
         // 在本例中，Service层会先检查是否存在。
-        return null; // 通常在Service层处理“未找到”的情况
+        Transaction updated = transactions.computeIfPresent(transaction.getId(), (id, previous) -> {
+            transaction.setVersion(previous.getVersion() + 1);
+            index.reindex(previous, transaction);
+            return transaction;
+        });
+        return updated; // 不存在时为 null，通常在Service层处理“未找到”的情况
+    }
+
+    @Override
+    public Transaction updateIfVersion(Transaction transaction, long expectedVersion) {
+        // 版本比较和替换在同一个 compute 回调中完成，对同一ID是原子的，不需要额外加锁
+        Transaction[] witness = new Transaction[1];
+        transactions.computeIfPresent(transaction.getId(), (id, previous) -> {
+            witness[0] = previous;
+            if (previous.getVersion() != expectedVersion) {
+                return previous;
+            }
+            transaction.setVersion(expectedVersion + 1);
+            index.reindex(previous, transaction);
+            return transaction;
+        });
+        return witness[0];
     }
 
     @Override
     public boolean deleteById(String id) {
-        // 根据ID删除交易。
-        // remove方法会返回被移除的值，如果值不存在则返回null。
-        return transactions.remove(id) != null;
+        // 根据ID删除交易，同时从日期索引和账户索引中移除。
+        boolean[] removed = new boolean[1];
+        transactions.computeIfPresent(id, (key, previous) -> {
+            index.unindex(previous);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public Transaction deleteByIdIfVersion(String id, long expectedVersion) {
+        Transaction[] witness = new Transaction[1];
+        transactions.computeIfPresent(id, (key, previous) -> {
+            witness[0] = previous;
+            if (previous.getVersion() != expectedVersion) {
+                return previous;
+            }
+            index.unindex(previous);
+            return null;
+        });
+        return witness[0];
     }
 
     @Override
@@ -91,4 +143,49 @@ public class InMemoryTransactionRepository implements TransactionRepository {
         // 检查交易ID是否存在。
         return transactions.containsKey(id);
     }
+
+    /**
+     * 主存储中全部交易的只读视图，弱一致性，遍历时不会阻塞并发写入。
+     * 供快照等需要遍历全部数据但不需要复制的场景使用。
+     * @return 全部交易的只读视图
+     */
+    Collection<Transaction> values() {
+        return Collections.unmodifiableCollection(transactions.values());
+    }
+
+    /**
+     * 按日期索引顺序排列的只读视图，弱一致性，供分片仓库做多路归并。
+     * @param afterDate 游标日期
+     * @param afterId   游标ID，为 null 时从第一条开始
+     * @return 排在游标之后的交易
+     */
+    Collection<Transaction> sortedValues(LocalDateTime afterDate, String afterId) {
+        return index.sortedValues(afterDate, afterId);
+    }
+
+    /**
+     * 指定账户下按日期索引顺序排列的只读视图，账户不存在时为空。
+     * @param accountId 账户ID
+     * @return 该账户的交易
+     */
+    Collection<Transaction> sortedValues(String accountId) {
+        return index.sortedValues(accountId);
+    }
+
+    /**
+     * 指定账户下的交易数
+     * @param accountId 账户ID
+     * @return 交易数
+     */
+    int countByAccountId(String accountId) {
+        return index.countByAccountId(accountId);
+    }
+
+    /**
+     * 交易总数
+     * @return 交易总数
+     */
+    int size() {
+        return transactions.size();
+    }
 }
@@ -0,0 +1,198 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.SnowflakeIdGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 以 long 为主键的内存 TransactionRepository 实现。
+ * 交易ID必须是 Snowflake ID 的 13 位 Crockford Base32 标准形式，存储时解码为 long，
+ * 主存储是以 long 为键的并发开放寻址哈希表，查找时不需要计算字符串哈希、比较字符，也没有 Entry 节点。
+ * 日期索引和账户索引与 InMemoryTransactionRepository 相同。
+ * 通过 transaction.repository.type=longkey 启用，需要配合 transaction.id.generator=snowflake。
+ */
+@Repository
+@ConditionalOnProperty(name = "transaction.repository.type", havingValue = "longkey")
+public class LongKeyTransactionRepository implements TransactionRepository {
+
+    private final ConcurrentLongMap<Transaction> transactions = new ConcurrentLongMap<>();
+
+    // 日期索引和账户索引，只在主存储的 compute 回调中修改
+    private final TransactionIndex index = new TransactionIndex();
+
+    /**
+     * 把交易ID解码为主键，调用方解码一次后可以直接使用以 long 为参数的方法
+     * @param id 交易ID
+     * @return 主键，ID 不是标准形式时返回 -1
+     */
+    public static long key(String id) {
+        // 与内存实现一样对 null ID 抛出 NullPointerException
+        if (id == null) {
+            throw new NullPointerException("交易ID不能为空");
+        }
+        return SnowflakeIdGenerator.decode(id);
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        transactions.compute(requireKey(transaction.getId()), previous -> {
+            index.reindex(previous, transaction);
+            return transaction;
+        });
+        return transaction;
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        // 先校验整批ID，避免写入一半后失败
+        for (Transaction transaction : transactions) {
+            requireKey(transaction.getId());
+        }
+        for (Transaction transaction : transactions) {
+            save(transaction);
+        }
+        return transactions;
+    }
+
+    @Override
+    public Transaction findById(String id) {
+        return findById(key(id));
+    }
+
+    /**
+     * 根据已解码的主键查找交易
+     * @param key 主键，为 -1 时表示ID无法解码
+     * @return 交易，不存在时返回 null
+     */
+    public Transaction findById(long key) {
+        return key < 0 ? null : transactions.get(key);
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        return transactions.values();
+    }
+
+    @Override
+    public Page<Transaction> findAll(Pageable pageable) {
+        return index.page(pageable, transactions.size());
+    }
+
+    @Override
+    public Page<Transaction> findByAccountId(String accountId, Pageable pageable) {
+        return index.pageByAccountId(accountId, pageable);
+    }
+
+    @Override
+    public List<Transaction> findAllAfter(LocalDateTime afterDate, String afterId, int limit) {
+        return index.after(afterDate, afterId, limit, transactions.size());
+    }
+
+    @Override
+    public Transaction update(Transaction transaction) {
+        long key = key(transaction.getId());
+        if (key < 0) {
+            return null;
+        }
+        Transaction[] updated = new Transaction[1];
+        transactions.compute(key, previous -> {
+            if (previous == null) {
+                return null;
+            }
+            transaction.setVersion(previous.getVersion() + 1);
+            index.reindex(previous, transaction);
+            updated[0] = transaction;
+            return transaction;
+        });
+        return updated[0];
+    }
+
+    @Override
+    public Transaction updateIfVersion(Transaction transaction, long expectedVersion) {
+        long key = key(transaction.getId());
+        if (key < 0) {
+            return null;
+        }
+        // 版本比较和替换在同一个 compute 回调中完成，对同一ID是原子的
+        Transaction[] witness = new Transaction[1];
+        transactions.compute(key, previous -> {
+            witness[0] = previous;
+            if (previous == null || previous.getVersion() != expectedVersion) {
+                return previous;
+            }
+            transaction.setVersion(expectedVersion + 1);
+            index.reindex(previous, transaction);
+            return transaction;
+        });
+        return witness[0];
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        return deleteById(key(id));
+    }
+
+    /**
+     * 根据已解码的主键删除交易
+     * @param key 主键，为 -1 时表示ID无法解码
+     * @return 如果删除成功返回true，否则返回false
+     */
+    public boolean deleteById(long key) {
+        if (key < 0) {
+            return false;
+        }
+        boolean[] removed = new boolean[1];
+        transactions.compute(key, previous -> {
+            if (previous != null) {
+                index.unindex(previous);
+                removed[0] = true;
+            }
+            return null;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public Transaction deleteByIdIfVersion(String id, long expectedVersion) {
+        long key = key(id);
+        if (key < 0) {
+            return null;
+        }
+        Transaction[] witness = new Transaction[1];
+        transactions.compute(key, previous -> {
+            witness[0] = previous;
+            if (previous == null || previous.getVersion() != expectedVersion) {
+                return previous;
+            }
+            index.unindex(previous);
+            return null;
+        });
+        return witness[0];
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return findById(key(id)) != null;
+    }
+
+    /**
+     * 主存储哈希表占用的字节数，不含交易对象和索引
+     */
+    public long tableSizeInBytes() {
+        return transactions.sizeInBytes();
+    }
+
+    private static long requireKey(String id) {
+        long key = key(id);
+        if (key < 0) {
+            throw new IllegalArgumentException("交易ID不是 Snowflake ID 的标准形式: " + id);
+        }
+        return key;
+    }
+}
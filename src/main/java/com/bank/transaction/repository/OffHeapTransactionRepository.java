@@ -0,0 +1,845 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.SnowflakeIdGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 堆外存储的 TransactionRepository 实现，用于在有限的堆内存下保存大量交易。
+ * 每笔交易按固定 40 字节编码在堆外 ByteBuffer 分块（slab）中：
+ * ID 编码为 long（数字ID、Snowflake ID 和时间戳流水号直接编码，其余ID经字典编码），
+ * 金额为未缩放 long 加 scale，日期为纪元纳秒，类型为 byte，版本号为 int，账户ID和描述通过字典编码为 int。
+ * ID 到行号使用开放寻址的原始类型哈希表，日期排序和每个账户的交易使用按行号组成的有序 int 数组，
+ * 每行只占用堆外 40 字节加上约 20 字节的索引，不为每行分配堆对象。
+ * 字典条目按引用计数，删除或更新后不再被任何行引用的字符串会被释放。
+ * 所有操作由读写锁保护，读取时才把行解码为 Transaction 对象。
+ * 通过 transaction.repository.type=offheap 启用。
+ */
+@Repository
+@ConditionalOnProperty(name = "transaction.repository.type", havingValue = "offheap")
+public class OffHeapTransactionRepository implements TransactionRepository {
+
+    // 行布局：各字段在行内的偏移
+    private static final int ROW_SIZE = 40;
+    private static final int ID = 0;              // long：编码后的交易ID
+    private static final int AMOUNT = 8;          // long：金额的未缩放值
+    private static final int DATE = 16;           // long：日期的纪元纳秒（UTC），Long.MIN_VALUE 表示 null
+    private static final int ACCOUNT = 24;        // int：账户ID的字典编码，-1 表示 null
+    private static final int DESCRIPTION = 28;    // int：描述的字典编码，-1 表示 null
+    private static final int TYPE = 32;           // byte：交易类型序号，-1 表示 null
+    private static final int SCALE = 33;          // byte：金额的 scale，Byte.MIN_VALUE 表示金额为 null
+    private static final int VERSION = 36;        // int：版本号
+
+    // 每个分块容纳的行数
+    private static final int ROWS_PER_SLAB_SHIFT = 16;
+    private static final int ROWS_PER_SLAB = 1 << ROWS_PER_SLAB_SHIFT;
+
+    private static final long NULL_DATE = Long.MIN_VALUE;
+    private static final byte NULL_AMOUNT = Byte.MIN_VALUE;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 堆外分块，行号 r 位于第 r >>> ROWS_PER_SLAB_SHIFT 块
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    // 已分配的行数（含已删除的行）
+    private int allocatedRows;
+    // 已删除可复用的行号
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    // 交易ID（编码后）-> 行号
+    private final LongIntHashMap idIndex = new LongIntHashMap();
+    // 按排序规则倒序排列的行号：下标越大越新，最新的交易追加在末尾
+    private int[] order = new int[1024];
+    private int size;
+
+    // 账户ID、描述以及无法直接编码的ID共用的字符串字典
+    private final StringDictionary dictionary = new StringDictionary();
+    // 按账户字典编码索引的行号数组，与 order 的排序规则相同，只有前 accountCounts[code] 个有效
+    private int[][] accountRows = new int[1024][];
+    private int[] accountCounts = new int[1024];
+
+    /**
+     * 堆外存储的内存占用报告，用于估算 Pod 能容纳的交易数。
+     * @param rows 当前交易数
+     * @param slabBytes 堆外分块占用的字节数
+     * @param indexBytes ID 哈希表、排序数组和账户索引占用的堆内字节数
+     * @param dictionaryEntries 字典中的字符串数
+     * @param dictionaryBytes 字典占用的堆内字节数（估算）
+     * @param bytesPerRow 平均每行占用的字节数
+     */
+    public record MemoryReport(long rows, long slabBytes, long indexBytes, long dictionaryEntries,
+                               long dictionaryBytes, double bytesPerRow) {
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        Objects.requireNonNull(transaction.getId());
+        checkEncodable(transaction);
+        lock.writeLock().lock();
+        try {
+            put(transaction);
+            return transaction;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        // 先校验整批，再在一次写锁内写入全部行，避免部分写入
+        for (Transaction transaction : transactions) {
+            Objects.requireNonNull(transaction.getId());
+            checkEncodable(transaction);
+        }
+        lock.writeLock().lock();
+        try {
+            for (Transaction transaction : transactions) {
+                put(transaction);
+            }
+            return transactions;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Transaction findById(String id) {
+        Objects.requireNonNull(id);
+        lock.readLock().lock();
+        try {
+            int row = rowOf(id);
+            return row < 0 ? null : readRow(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Transaction> result = new ArrayList<>(size);
+            for (int i = size - 1; i >= 0; i--) {
+                result.add(readRow(order[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<Transaction> findAll(Pageable pageable) {
+        long offset = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        lock.readLock().lock();
+        try {
+            // 排序数组可以直接按下标定位到第 offset 条
+            List<Transaction> content = new ArrayList<>((int) Math.max(0, Math.min(pageSize, size - offset)));
+            for (long i = size - 1 - offset; i >= 0 && content.size() < pageSize; i--) {
+                content.add(readRow(order[(int) i]));
+            }
+            return new PageImpl<>(content, pageable, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<Transaction> findByAccountId(String accountId, Pageable pageable) {
+        long offset = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        lock.readLock().lock();
+        try {
+            int code = dictionary.codeOf(accountId);
+            int total = code < 0 || code >= accountCounts.length ? 0 : accountCounts[code];
+            // 账户索引与 order 一样倒序排列，直接按下标定位到第 offset 条
+            List<Transaction> content = new ArrayList<>((int) Math.max(0, Math.min(pageSize, total - offset)));
+            for (long i = total - 1 - offset; i >= 0 && content.size() < pageSize; i--) {
+                content.add(readRow(accountRows[code][(int) i]));
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findAllAfter(LocalDateTime afterDate, String afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            // 二分查找游标位置，排序在游标之后的行位于它前面的下标
+            int position = afterId == null ? size : orderPosition(toNanos(afterDate), afterId);
+            List<Transaction> result = new ArrayList<>(Math.min(limit, position));
+            for (int i = position - 1; i >= 0 && result.size() < limit; i--) {
+                result.add(readRow(order[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Transaction update(Transaction transaction) {
+        String id = transaction.getId();
+        Objects.requireNonNull(id);
+        checkEncodable(transaction);
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row < 0) {
+                return null;
+            }
+            transaction.setVersion(nextVersion(slab(row).getInt(offset(row) + VERSION)));
+            rewriteRow(row, slab(row).getLong(offset(row) + ID), transaction);
+            return transaction;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Transaction updateIfVersion(Transaction transaction, long expectedVersion) {
+        String id = transaction.getId();
+        Objects.requireNonNull(id);
+        checkEncodable(transaction);
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row < 0) {
+                return null;
+            }
+            Transaction previous = readRow(row);
+            if (previous.getVersion() == expectedVersion) {
+                transaction.setVersion(nextVersion(expectedVersion));
+                rewriteRow(row, slab(row).getLong(offset(row) + ID), transaction);
+            }
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        Objects.requireNonNull(id);
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row < 0) {
+                return false;
+            }
+            removeRow(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Transaction deleteByIdIfVersion(String id, long expectedVersion) {
+        Objects.requireNonNull(id);
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row < 0) {
+                return null;
+            }
+            Transaction previous = readRow(row);
+            if (previous.getVersion() == expectedVersion) {
+                removeRow(row);
+            }
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        Objects.requireNonNull(id);
+        lock.readLock().lock();
+        try {
+            return rowOf(id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 统计当前的内存占用
+     * @return 内存占用报告
+     */
+    public MemoryReport memoryReport() {
+        lock.readLock().lock();
+        try {
+            long slabBytes = (long) slabs.size() * ROWS_PER_SLAB * ROW_SIZE;
+            long indexBytes = idIndex.sizeInBytes() + 4L * order.length + 4L * freeRows.length
+                    + 4L * accountCounts.length + 4L * accountRows.length;
+            for (int[] rows : accountRows) {
+                indexBytes += rows == null ? 0 : 16L + 4L * rows.length;
+            }
+            long dictionaryBytes = dictionary.sizeInBytes();
+            double bytesPerRow = size == 0 ? 0 : (double) (slabBytes + indexBytes + dictionaryBytes) / size;
+            return new MemoryReport(size, slabBytes, indexBytes, dictionary.size(), dictionaryBytes, bytesPerRow);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- 行读写
+
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        int row = allocatedRows++;
+        if ((row >>> ROWS_PER_SLAB_SHIFT) == slabs.size()) {
+            slabs.add(ByteBuffer.allocateDirect(ROWS_PER_SLAB * ROW_SIZE));
+        }
+        return row;
+    }
+
+    private void put(Transaction transaction) {
+        int row = rowOf(transaction.getId());
+        if (row >= 0) {
+            rewriteRow(row, slab(row).getLong(offset(row) + ID), transaction);
+            return;
+        }
+        // 只有新行才引用ID的字典条目
+        long idKey = idKey(transaction.getId(), true);
+        row = allocateRow();
+        idIndex.put(idKey, row);
+        writeRow(row, idKey, transaction);
+        insertOrder(row);
+        insertAccountRow(row);
+    }
+
+    private void removeRow(int row) {
+        ByteBuffer slab = slab(row);
+        int base = offset(row);
+        removeOrder(row);
+        removeAccountRow(row);
+        long idKey = slab.getLong(base + ID);
+        idIndex.remove(idKey);
+        if (isDictionaryKey(idKey)) {
+            dictionary.release(dictionaryCode(idKey));
+        }
+        dictionary.release(slab.getInt(base + ACCOUNT));
+        dictionary.release(slab.getInt(base + DESCRIPTION));
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    private ByteBuffer slab(int row) {
+        return slabs.get(row >>> ROWS_PER_SLAB_SHIFT);
+    }
+
+    private static int offset(int row) {
+        return (row & (ROWS_PER_SLAB - 1)) * ROW_SIZE;
+    }
+
+    private void writeRow(int row, long idKey, Transaction transaction) {
+        ByteBuffer slab = slab(row);
+        int base = offset(row);
+        BigDecimal amount = transaction.getAmount();
+        if (amount == null) {
+            slab.putLong(base + AMOUNT, 0);
+            slab.put(base + SCALE, NULL_AMOUNT);
+        } else {
+            BigDecimal normalized = normalize(amount);
+            slab.putLong(base + AMOUNT, normalized.unscaledValue().longValueExact());
+            slab.put(base + SCALE, (byte) normalized.scale());
+        }
+        slab.putLong(base + ID, idKey);
+        slab.putLong(base + DATE, toNanos(transaction.getDate()));
+        slab.putInt(base + ACCOUNT, dictionary.intern(transaction.getAccountId()));
+        slab.putInt(base + DESCRIPTION, dictionary.intern(transaction.getDescription()));
+        slab.put(base + TYPE, transaction.getType() == null ? -1 : (byte) transaction.getType().ordinal());
+        slab.putInt(base + VERSION, (int) transaction.getVersion());
+    }
+
+    private void rewriteRow(int row, long idKey, Transaction transaction) {
+        // 日期变化时需要重新排序，日期或账户变化时需要移动账户索引，先移除再按新值插入
+        ByteBuffer slab = slab(row);
+        int base = offset(row);
+        int previousAccount = slab.getInt(base + ACCOUNT);
+        int previousDescription = slab.getInt(base + DESCRIPTION);
+        boolean reorder = slab.getLong(base + DATE) != toNanos(transaction.getDate());
+        boolean reindex = reorder || !Objects.equals(dictionary.valueOf(previousAccount), transaction.getAccountId());
+        if (reorder) {
+            removeOrder(row);
+        }
+        if (reindex) {
+            removeAccountRow(row);
+        }
+        // 先引用新值再释放旧值，值不变时字典条目不会被释放后重建
+        writeRow(row, idKey, transaction);
+        dictionary.release(previousAccount);
+        dictionary.release(previousDescription);
+        if (reorder) {
+            insertOrder(row);
+        }
+        if (reindex) {
+            insertAccountRow(row);
+        }
+    }
+
+    private Transaction readRow(int row) {
+        ByteBuffer slab = slab(row);
+        int base = offset(row);
+        byte scale = slab.get(base + SCALE);
+        byte type = slab.get(base + TYPE);
+        return new Transaction(
+                decodeId(slab.getLong(base + ID)),
+                dictionary.valueOf(slab.getInt(base + ACCOUNT)),
+                scale == NULL_AMOUNT ? null : BigDecimal.valueOf(slab.getLong(base + AMOUNT), scale),
+                type < 0 ? null : TYPES[type],
+                fromNanos(slab.getLong(base + DATE)),
+                dictionary.valueOf(slab.getInt(base + DESCRIPTION)),
+                slab.getInt(base + VERSION));
+    }
+
+    private static void checkEncodable(Transaction transaction) {
+        // 写入前校验，避免编码失败时留下写了一半的行
+        if (transaction.getAmount() != null) {
+            normalize(transaction.getAmount());
+        }
+        toNanos(transaction.getDate());
+        if (transaction.getVersion() < 0 || transaction.getVersion() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("版本号超出堆外存储支持的范围: " + transaction.getVersion());
+        }
+    }
+
+    private static long nextVersion(long version) {
+        if (version >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("版本号超出堆外存储支持的范围: " + version);
+        }
+        return version + 1;
+    }
+
+    private static BigDecimal normalize(BigDecimal amount) {
+        // 金额必须能用 long 未缩放值和 byte scale 精确表示
+        BigDecimal normalized = amount.scale() > Byte.MAX_VALUE || amount.scale() < 0 ? amount.stripTrailingZeros() : amount;
+        if (normalized.scale() < 0) {
+            normalized = normalized.setScale(0);
+        }
+        if (normalized.scale() > Byte.MAX_VALUE || normalized.unscaledValue().bitLength() > 63) {
+            throw new IllegalArgumentException("金额超出堆外存储支持的范围: " + amount);
+        }
+        return normalized;
+    }
+
+    // ---------------------------------------------------------------- ID 编码
+
+    // 编码后的ID按取值范围区分来源，各范围互不重叠，编码后能还原出相同的字符串：
+    // [0, 2^62)                          规范的十进制数，直接使用其数值
+    // [2^62, 2^63)                       标准形式的 Snowflake ID，低 62 位为解码后的数值
+    // [-2^63 + 1, -2^63 + 1 + 10^18)     以 20 开头的 20 位时间戳流水号，存储后 18 位数字
+    // [-2^31, -1]                        其余ID的字典编码
+    // Long.MIN_VALUE 表示不存在
+    private static final long SNOWFLAKE_KEY = 1L << 62;
+    private static final long TIMESTAMP_KEY = Long.MIN_VALUE + 1;
+    private static final int TIMESTAMP_ID_LENGTH = 20;
+    private static final long TIMESTAMP_ID_LIMIT = 1_000_000_000_000_000_000L;
+
+    /**
+     * 把交易ID编码为 long，生成器生成的ID（Snowflake ID 和时间戳流水号）都不进入字典
+     * @param id 交易ID
+     * @param create 字典中不存在时是否创建；创建或命中时增加字典条目的引用计数
+     * @return 编码后的ID，不存在且不创建时返回 Long.MIN_VALUE
+     */
+    private long idKey(String id, boolean create) {
+        Objects.requireNonNull(id);
+        long numeric = parseCanonicalLong(id);
+        if (numeric >= 0 && numeric < SNOWFLAKE_KEY) {
+            return numeric;
+        }
+        long timestamp = parseTimestampId(id);
+        if (timestamp >= 0) {
+            return TIMESTAMP_KEY + timestamp;
+        }
+        // 与 LongKeyTransactionRepository 一样只接受标准形式，保证一个数值只对应一个字符串
+        long snowflake = SnowflakeIdGenerator.decode(id);
+        if (snowflake >= 0 && snowflake < SNOWFLAKE_KEY) {
+            return SNOWFLAKE_KEY | snowflake;
+        }
+        int code = create ? dictionary.intern(id) : dictionary.codeOf(id);
+        return code < 0 ? Long.MIN_VALUE : -1L - code;
+    }
+
+    private String decodeId(long idKey) {
+        if (idKey >= SNOWFLAKE_KEY) {
+            return SnowflakeIdGenerator.toString(idKey & (SNOWFLAKE_KEY - 1));
+        }
+        if (idKey >= 0) {
+            return Long.toString(idKey);
+        }
+        if (isDictionaryKey(idKey)) {
+            return dictionary.valueOf(dictionaryCode(idKey));
+        }
+        // 补齐时间戳流水号后 18 位的前导零
+        char[] chars = new char[TIMESTAMP_ID_LENGTH];
+        chars[0] = '2';
+        chars[1] = '0';
+        long value = idKey - TIMESTAMP_KEY;
+        for (int i = TIMESTAMP_ID_LENGTH - 1; i >= 2; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(chars);
+    }
+
+    private static boolean isDictionaryKey(long idKey) {
+        return idKey < 0 && idKey >= -1L - Integer.MAX_VALUE;
+    }
+
+    private static int dictionaryCode(long idKey) {
+        return (int) (-1L - idKey);
+    }
+
+    private int rowOf(String id) {
+        long idKey = idKey(id, false);
+        return idKey == Long.MIN_VALUE ? -1 : idIndex.get(idKey);
+    }
+
+    /**
+     * 解析 TransactionIdGenerateUtil 生成的时间戳流水号：以 20 开头的 20 位数字
+     * @return 后 18 位数字的数值，不是时间戳流水号时返回 -1
+     */
+    private static long parseTimestampId(String value) {
+        if (value.length() != TIMESTAMP_ID_LENGTH || value.charAt(0) != '2' || value.charAt(1) != '0') {
+            return -1;
+        }
+        long result = 0;
+        for (int i = 2; i < TIMESTAMP_ID_LENGTH; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static long parseCanonicalLong(String value) {
+        // 只接受没有前导零和符号的十进制数，保证编码后能还原出相同的字符串
+        int length = value.length();
+        if (length == 0 || length > 19 || (length > 1 && value.charAt(0) == '0')) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+            if (result < 0) {
+                return -1;
+            }
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------------- 日期排序
+
+    private static long toNanos(LocalDateTime date) {
+        if (date == null) {
+            return NULL_DATE;
+        }
+        try {
+            return Math.addExact(Math.multiplyExact(date.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L), date.getNano());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("日期超出堆外存储支持的范围: " + date);
+        }
+    }
+
+    private static LocalDateTime fromNanos(long nanos) {
+        if (nanos == NULL_DATE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * 与 TransactionSortKey 一致的排序：日期降序、null 日期在最后，日期相同按ID升序。
+     */
+    private int compare(long dateNanos, String id, int row) {
+        long rowDate = slab(row).getLong(offset(row) + DATE);
+        if (dateNanos != rowDate) {
+            if (dateNanos == NULL_DATE) {
+                return 1;
+            }
+            if (rowDate == NULL_DATE) {
+                return -1;
+            }
+            return Long.compare(rowDate, dateNanos);
+        }
+        return id.compareTo(decodeId(slab(row).getLong(offset(row) + ID)));
+    }
+
+    /**
+     * order 按排序规则倒序存放，返回第一个排序不晚于给定键的下标，
+     * 即排序在给定键之后的行都位于 [0, position)。
+     */
+    private int orderPosition(long dateNanos, String id) {
+        return position(order, size, dateNanos, id);
+    }
+
+    private int position(int[] rows, int count, long dateNanos, String id) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(dateNanos, id, rows[mid]) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void insertOrder(int row) {
+        int base = offset(row);
+        int position = orderPosition(slab(row).getLong(base + DATE), decodeId(slab(row).getLong(base + ID)));
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size * 2);
+        }
+        // 新交易通常是最新的，插入在末尾，无需移动
+        System.arraycopy(order, position, order, position + 1, size - position);
+        order[position] = row;
+        size++;
+    }
+
+    private void removeOrder(int row) {
+        int base = offset(row);
+        int position = orderPosition(slab(row).getLong(base + DATE), decodeId(slab(row).getLong(base + ID)));
+        System.arraycopy(order, position + 1, order, position, size - position - 1);
+        size--;
+    }
+
+    private void insertAccountRow(int row) {
+        int base = offset(row);
+        int code = slab(row).getInt(base + ACCOUNT);
+        if (code < 0) {
+            return;
+        }
+        if (code >= accountRows.length) {
+            int length = Math.max(code + 1, accountRows.length * 2);
+            accountRows = Arrays.copyOf(accountRows, length);
+            accountCounts = Arrays.copyOf(accountCounts, length);
+        }
+        int[] rows = accountRows[code];
+        int count = accountCounts[code];
+        if (rows == null) {
+            rows = accountRows[code] = new int[4];
+        } else if (count == rows.length) {
+            rows = accountRows[code] = Arrays.copyOf(rows, count * 2);
+        }
+        int position = position(rows, count, slab(row).getLong(base + DATE), decodeId(slab(row).getLong(base + ID)));
+        System.arraycopy(rows, position, rows, position + 1, count - position);
+        rows[position] = row;
+        accountCounts[code] = count + 1;
+    }
+
+    private void removeAccountRow(int row) {
+        int base = offset(row);
+        int code = slab(row).getInt(base + ACCOUNT);
+        if (code < 0) {
+            return;
+        }
+        int[] rows = accountRows[code];
+        int count = accountCounts[code];
+        int position = position(rows, count, slab(row).getLong(base + DATE), decodeId(slab(row).getLong(base + ID)));
+        System.arraycopy(rows, position + 1, rows, position, count - position - 1);
+        accountCounts[code] = --count;
+        // 账户没有交易后字典编码可能被其他字符串复用，释放它的数组
+        if (count == 0) {
+            accountRows[code] = null;
+        }
+    }
+
+    // ---------------------------------------------------------------- 原始类型容器
+
+    /**
+     * long -> int 的开放寻址哈希表，线性探测，删除时后移填补空位，不产生墓碑。
+     * 由外层读写锁保护。
+     */
+    private static final class LongIntHashMap {
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];   // -1 表示空槽
+        private int count;
+
+        LongIntHashMap() {
+            Arrays.fill(values, -1);
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; values[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if (count * 2 >= keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] >= 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] < 0) {
+                count++;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] >= 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] < 0) {
+                return;
+            }
+            count--;
+            // 把后续同一探测链上的元素前移，保证查找不会提前遇到空槽
+            int hole = slot;
+            for (int next = (hole + 1) & mask; values[next] >= 0; next = (next + 1) & mask) {
+                int home = hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            values[hole] = -1;
+        }
+
+        long sizeInBytes() {
+            return 12L * keys.length;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(values, -1);
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            // MurmurHash3 的 64 位混合函数
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            key *= 0xc4ceb3fe1a85ec53L;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+
+    /**
+     * 按引用计数的字符串字典，把重复出现的账户ID和描述编码为 int。
+     * 每次 intern 增加一次引用，引用计数归零的条目被移除，编码放入空闲列表复用。
+     * 由外层读写锁保护。
+     */
+    private static final class StringDictionary {
+        private final HashMap<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[1024];
+        private int[] references = new int[1024];
+        // 已释放可复用的编码
+        private int[] freeCodes = new int[16];
+        private int freeCount;
+        private int allocatedCodes;
+        private long charBytes;
+
+        int intern(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code != null) {
+                references[code]++;
+                return code;
+            }
+            int newCode = freeCount > 0 ? freeCodes[--freeCount] : allocatedCodes++;
+            if (newCode == values.length) {
+                values = Arrays.copyOf(values, newCode * 2);
+                references = Arrays.copyOf(references, newCode * 2);
+            }
+            codes.put(value, newCode);
+            values[newCode] = value;
+            references[newCode] = 1;
+            charBytes += value.length();
+            return newCode;
+        }
+
+        void release(int code) {
+            if (code < 0 || --references[code] > 0) {
+                return;
+            }
+            codes.remove(values[code]);
+            charBytes -= values[code].length();
+            values[code] = null;
+            if (freeCount == freeCodes.length) {
+                freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+            }
+            freeCodes[freeCount++] = code;
+        }
+
+        int codeOf(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String valueOf(int code) {
+            return code < 0 ? null : values[code];
+        }
+
+        int size() {
+            return codes.size();
+        }
+
+        long sizeInBytes() {
+            // 每个条目：String 对象 24 + byte[] 头 16 + HashMap 节点 32 + 桶引用约 4 + Integer 16，
+            // 另加编码数组中的引用和引用计数
+            return codes.size() * 92L + charBytes + 8L * values.length + 4L * freeCodes.length;
+        }
+    }
+}
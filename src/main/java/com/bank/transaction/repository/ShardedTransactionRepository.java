@@ -0,0 +1,201 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 分片的 TransactionRepository 实现。
+ * 按交易ID的哈希把数据划分到 N 个互相独立的 InMemoryTransactionRepository，
+ * 每个分片有自己的主存储、日期索引和账户索引，不同分片的写入之间没有任何共享的竞争点。
+ * 跨分片的有序查询对各分片已排序的索引做多路归并，只读取 offset + pageSize 条数据。
+ * 通过 transaction.repository.type=sharded 启用，分片数由 transaction.repository.shards 指定。
+ */
+@Repository
+@ConditionalOnProperty(name = "transaction.repository.type", havingValue = "sharded")
+public class ShardedTransactionRepository implements TransactionRepository {
+
+    private final InMemoryTransactionRepository[] shards;
+
+    /**
+     * @param shardCount 分片数，小于等于 0 时使用 CPU 核数
+     */
+    public ShardedTransactionRepository(@Value("${transaction.repository.shards:0}") int shardCount) {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new InMemoryTransactionRepository[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new InMemoryTransactionRepository();
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        return shard(transaction.getId()).save(transaction);
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        // 先按分片分组，每个分片只调用一次 saveAll
+        List<List<Transaction>> groups = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (Transaction transaction : transactions) {
+            groups.get(shardIndex(transaction.getId())).add(transaction);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (!groups.get(i).isEmpty()) {
+                shards[i].saveAll(groups.get(i));
+            }
+        }
+        return transactions;
+    }
+
+    @Override
+    public Transaction findById(String id) {
+        return shard(id).findById(id);
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        List<Transaction> result = new ArrayList<>(size());
+        for (InMemoryTransactionRepository shard : shards) {
+            result.addAll(shard.values());
+        }
+        return result;
+    }
+
+    @Override
+    public Page<Transaction> findAll(Pageable pageable) {
+        List<Transaction> content = merge(shard -> shard.sortedValues(null, null), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(content, pageable, size());
+    }
+
+    @Override
+    public Page<Transaction> findByAccountId(String accountId, Pageable pageable) {
+        long total = 0;
+        for (InMemoryTransactionRepository shard : shards) {
+            total += shard.countByAccountId(accountId);
+        }
+        if (total == 0) {
+            return new PageImpl<>(new ArrayList<>(), pageable, 0);
+        }
+        List<Transaction> content = merge(shard -> shard.sortedValues(accountId), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public List<Transaction> findAllAfter(LocalDateTime afterDate, String afterId, int limit) {
+        return merge(shard -> shard.sortedValues(afterDate, afterId), 0, limit);
+    }
+
+    @Override
+    public Transaction update(Transaction transaction) {
+        return shard(transaction.getId()).update(transaction);
+    }
+
+    @Override
+    public Transaction updateIfVersion(Transaction transaction, long expectedVersion) {
+        return shard(transaction.getId()).updateIfVersion(transaction, expectedVersion);
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        return shard(id).deleteById(id);
+    }
+
+    @Override
+    public Transaction deleteByIdIfVersion(String id, long expectedVersion) {
+        return shard(id).deleteByIdIfVersion(id, expectedVersion);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return shard(id).existsById(id);
+    }
+
+    /**
+     * 分片数
+     * @return 分片数
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    private InMemoryTransactionRepository shard(String id) {
+        return shards[shardIndex(id)];
+    }
+
+    private int shardIndex(String id) {
+        // 与内存实现一样对 null ID 抛出 NullPointerException
+        int hash = id.hashCode();
+        // 混合高位，避免相邻ID只在低位不同时集中到少数分片
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, shards.length);
+    }
+
+    private int size() {
+        int size = 0;
+        for (InMemoryTransactionRepository shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * 对各分片已排序的结果做多路归并：用小顶堆保存每个分片的当前最小元素，
+     * 每次取出全局最小的一条，代价为 O((skip + limit) * log N)。
+     * @param source 每个分片的有序视图
+     * @param skip 跳过的条数
+     * @param limit 最多返回的条数
+     * @return 归并后的结果
+     */
+    private List<Transaction> merge(Function<InMemoryTransactionRepository, Collection<Transaction>> source, long skip, int limit) {
+        PriorityQueue<Head> heap = new PriorityQueue<>(shards.length);
+        for (InMemoryTransactionRepository shard : shards) {
+            Iterator<Transaction> iterator = source.apply(shard).iterator();
+            if (iterator.hasNext()) {
+                heap.add(new Head(iterator.next(), iterator));
+            }
+        }
+        List<Transaction> result = new ArrayList<>(Math.min(limit, 1024));
+        for (long index = 0; result.size() < limit && !heap.isEmpty(); index++) {
+            Head head = heap.poll();
+            if (index >= skip) {
+                result.add(head.transaction);
+            }
+            if (head.iterator.hasNext()) {
+                heap.add(new Head(head.iterator.next(), head.iterator));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 某个分片当前待归并的交易
+     */
+    private static final class Head implements Comparable<Head> {
+        private final Transaction transaction;
+        private final TransactionSortKey key;
+        private final Iterator<Transaction> iterator;
+
+        Head(Transaction transaction, Iterator<Transaction> iterator) {
+            this.transaction = transaction;
+            this.key = TransactionSortKey.of(transaction);
+            this.iterator = iterator;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            return key.compareTo(other.key);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.model.Transaction;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 交易对象的二进制编解码，供预写日志等持久化实现使用。
+ * 字段按固定顺序写入：id、accountId、amount、type、date、description、version，除 version 外都允许为 null。
+ */
+final class TransactionCodec {
+
+    private TransactionCodec() {
+    }
+
+    /**
+     * 将交易写入输出流
+     * @param out 输出流
+     * @param transaction 交易对象
+     */
+    static void write(DataOutput out, Transaction transaction) throws IOException {
+        writeString(out, transaction.getId());
+        writeString(out, transaction.getAccountId());
+        writeDecimal(out, transaction.getAmount());
+        out.writeByte(transaction.getType() == null ? -1 : transaction.getType().ordinal());
+        writeDate(out, transaction.getDate());
+        writeString(out, transaction.getDescription());
+        out.writeLong(transaction.getVersion());
+    }
+
+    /**
+     * 从输入流读取交易，输入流只包含单条记录
+     * @param in 输入流
+     * @return 交易对象
+     */
+    static Transaction read(DataInputStream in) throws IOException {
+        String id = readString(in);
+        String accountId = readString(in);
+        BigDecimal amount = readDecimal(in);
+        byte type = in.readByte();
+        LocalDateTime date = readDate(in);
+        String description = readString(in);
+        // 加入版本号之前写入的记录没有该字段，按版本 0 读取
+        long version = in.available() >= Long.BYTES ? in.readLong() : 0;
+        return new Transaction(id, accountId, amount, type < 0 ? null : TransactionType.values()[type], date, description, version);
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        // 长度为 -1 表示 null，不使用 writeUTF 以避免 64KB 的长度限制
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        // 记录 scale 和未缩放值的补码字节，保证精度完全还原
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(value.scale());
+    }
+
+    private static BigDecimal readDecimal(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.readInt());
+    }
+
+    private static void writeDate(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDate(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochSecond = in.readLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+}
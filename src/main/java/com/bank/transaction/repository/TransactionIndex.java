@@ -0,0 +1,178 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.Transaction;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 内存仓库共用的二级索引：按日期排序的全局索引和按账户分组的索引。
+ * 索引本身支持并发读写，但同一交易的 reindex/unindex 必须由调用方串行执行（例如在主存储的 compute 回调中）。
+ */
+final class TransactionIndex {
+
+    // 按日期降序（日期相同按ID升序）排列的二级索引，基于跳表实现，支持并发读写。
+    private final ConcurrentSkipListMap<TransactionSortKey, Transaction> dateIndex = new ConcurrentSkipListMap<>();
+
+    // 账户索引：账户ID -> 该账户下按日期降序排列的交易，排序规则与日期索引一致。
+    // 账户下没有交易时移除对应条目，避免已清空的账户长期占用内存。
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<TransactionSortKey, Transaction>> accountIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 按日期索引分页
+     * @param pageable 分页信息
+     * @param total 总条数，由主存储提供，ConcurrentSkipListMap.size() 需要遍历全部节点
+     * @return 分页结果
+     */
+    Page<Transaction> page(Pageable pageable, long total) {
+        return page(dateIndex.values(), pageable, total);
+    }
+
+    /**
+     * 按账户索引分页，只遍历该账户自己的索引
+     * @param accountId 账户ID
+     * @param pageable 分页信息
+     * @return 分页结果
+     */
+    Page<Transaction> pageByAccountId(String accountId, Pageable pageable) {
+        ConcurrentSkipListMap<TransactionSortKey, Transaction> accountTransactions = accountIndex.get(accountId);
+        if (accountTransactions == null) {
+            return new PageImpl<>(new ArrayList<>(), pageable, 0);
+        }
+        return page(accountTransactions.values(), pageable, accountTransactions.size());
+    }
+
+    /**
+     * 通过跳表的 tailMap 直接定位到游标之后的位置，代价为 O(log n + limit)
+     * @param afterDate 游标日期
+     * @param afterId 游标ID，为 null 时从第一条开始
+     * @param limit 最多返回的条数
+     * @param total 总条数，用于确定结果列表的初始容量
+     * @return 位于游标之后的交易列表
+     */
+    List<Transaction> after(LocalDateTime afterDate, String afterId, int limit, int total) {
+        List<Transaction> result = new ArrayList<>(Math.min(limit, total));
+        Iterator<Transaction> iterator = sortedValues(afterDate, afterId).iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * 按日期索引顺序排列的只读视图，弱一致性
+     * @param afterDate 游标日期
+     * @param afterId   游标ID，为 null 时从第一条开始
+     * @return 排在游标之后的交易
+     */
+    Collection<Transaction> sortedValues(LocalDateTime afterDate, String afterId) {
+        return Collections.unmodifiableCollection(afterId == null
+                ? dateIndex.values()
+                : dateIndex.tailMap(new TransactionSortKey(afterDate, afterId), false).values());
+    }
+
+    /**
+     * 指定账户下按日期索引顺序排列的只读视图，账户不存在时为空
+     * @param accountId 账户ID
+     * @return 该账户的交易
+     */
+    Collection<Transaction> sortedValues(String accountId) {
+        ConcurrentSkipListMap<TransactionSortKey, Transaction> accountTransactions = accountIndex.get(accountId);
+        return accountTransactions == null
+                ? Collections.emptyList()
+                : Collections.unmodifiableCollection(accountTransactions.values());
+    }
+
+    /**
+     * 指定账户下的交易数
+     * @param accountId 账户ID
+     * @return 交易数
+     */
+    int countByAccountId(String accountId) {
+        ConcurrentSkipListMap<TransactionSortKey, Transaction> accountTransactions = accountIndex.get(accountId);
+        return accountTransactions == null ? 0 : accountTransactions.size();
+    }
+
+    /**
+     * 用新的交易对象替换日期索引和账户索引中的旧条目。
+     * 先写入新条目再删除旧条目，避免并发分页时该交易短暂消失。
+     * @param previous 旧的交易对象，可能为 null
+     * @param current  新的交易对象
+     */
+    void reindex(Transaction previous, Transaction current) {
+        TransactionSortKey currentKey = TransactionSortKey.of(current);
+        dateIndex.put(currentKey, current);
+        addToAccountIndex(current.getAccountId(), currentKey, current);
+        if (previous != null) {
+            TransactionSortKey previousKey = TransactionSortKey.of(previous);
+            boolean sameKey = previousKey.equals(currentKey);
+            if (!sameKey) {
+                dateIndex.remove(previousKey);
+            }
+            if (!sameKey || !Objects.equals(previous.getAccountId(), current.getAccountId())) {
+                removeFromAccountIndex(previous.getAccountId(), previousKey);
+            }
+        }
+    }
+
+    /**
+     * 从日期索引和账户索引中移除交易。
+     * @param previous 要移除的交易对象
+     */
+    void unindex(Transaction previous) {
+        TransactionSortKey previousKey = TransactionSortKey.of(previous);
+        dateIndex.remove(previousKey);
+        removeFromAccountIndex(previous.getAccountId(), previousKey);
+    }
+
+    /**
+     * 按顺序遍历已排序的交易，跳过 offset 条后取出一页数据，代价只与 offset + pageSize 相关。
+     * @param ordered  已排序的交易视图
+     * @param pageable 分页信息
+     * @param total    总条数
+     * @return 分页结果
+     */
+    private static Page<Transaction> page(Collection<Transaction> ordered, Pageable pageable, long total) {
+        long offset = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+
+        List<Transaction> pagedTransactions = new ArrayList<>((int) Math.min(pageSize, total));
+        Iterator<Transaction> iterator = ordered.iterator();
+        for (long skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (pagedTransactions.size() < pageSize && iterator.hasNext()) {
+            pagedTransactions.add(iterator.next());
+        }
+        return new PageImpl<>(pagedTransactions, pageable, total);
+    }
+
+    private void addToAccountIndex(String accountId, TransactionSortKey key, Transaction transaction) {
+        if (accountId == null) {
+            return;
+        }
+        accountIndex.compute(accountId, (k, accountTransactions) -> {
+            if (accountTransactions == null) {
+                accountTransactions = new ConcurrentSkipListMap<>();
+            }
+            accountTransactions.put(key, transaction);
+            return accountTransactions;
+        });
+    }
+
+    private void removeFromAccountIndex(String accountId, TransactionSortKey key) {
+        if (accountId == null) {
+            return;
+        }
+        // 在 computeIfPresent 中判断是否为空，与 addToAccountIndex 对同一账户串行执行
+        accountIndex.computeIfPresent(accountId, (k, accountTransactions) -> {
+            accountTransactions.remove(key);
+            return accountTransactions.isEmpty() ? null : accountTransactions;
+        });
+    }
+}
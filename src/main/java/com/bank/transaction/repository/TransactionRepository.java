@@ -4,6 +4,7 @@ import com.bank.transaction.model.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -19,6 +20,13 @@ public interface TransactionRepository {
      */
     Transaction save(Transaction transaction);
 
+    /**
+     * 批量保存交易，一次完成全部交易的存储和索引更新。
+     * @param transactions 要保存的交易列表
+     * @return 保存后的交易列表
+     */
+    List<Transaction> saveAll(List<Transaction> transactions);
+
     /**
      * 根据ID查找交易。
      * @param id 交易ID
@@ -40,12 +48,39 @@ public interface TransactionRepository {
     Page<Transaction> findAll(Pageable pageable);
 
     /**
-     * 更新一笔交易。
+     * 分页查询某个账户下的交易，按日期降序排列。
+     * @param accountId 账户ID
+     * @param pageable 分页信息
+     * @return 该账户交易的分页结果
+     */
+    Page<Transaction> findByAccountId(String accountId, Pageable pageable);
+
+    /**
+     * 游标分页查询交易，按日期降序（日期相同按ID升序）排列。
+     * 直接定位到上一批最后一条交易之后的位置，不计算总数。
+     * @param afterDate 上一批最后一条交易的日期
+     * @param afterId 上一批最后一条交易的ID，为 null 时从第一条开始
+     * @param limit 最多返回的条数
+     * @return 位于游标之后的交易列表
+     */
+    List<Transaction> findAllAfter(LocalDateTime afterDate, String afterId, int limit);
+
+    /**
+     * 更新一笔交易，交易的版本号由仓库设置为当前版本加一。
      * @param transaction 要更新的交易对象
      * @return 更新后的交易对象
      */
     Transaction update(Transaction transaction);
 
+    /**
+     * 仅当交易当前版本等于期望版本时更新（CAS），成功时新交易的版本号为期望版本加一。
+     * 调用方必须传入新的交易对象，不能修改仓库返回的对象后再传入。
+     * @param transaction 要更新的交易对象
+     * @param expectedVersion 期望的当前版本
+     * @return 调用前存储的交易；不存在时返回 null，版本不一致时返回的交易版本不等于期望版本
+     */
+    Transaction updateIfVersion(Transaction transaction, long expectedVersion);
+
     /**
      * 根据ID删除交易。
      * @param id 交易ID
@@ -53,6 +88,14 @@ public interface TransactionRepository {
      */
     boolean deleteById(String id);
 
+    /**
+     * 仅当交易当前版本等于期望版本时删除（CAS）。
+     * @param id 交易ID
+     * @param expectedVersion 期望的当前版本
+     * @return 调用前存储的交易；不存在时返回 null，版本不一致时返回的交易版本不等于期望版本
+     */
+    Transaction deleteByIdIfVersion(String id, long expectedVersion);
+
     /**
      * 检查交易ID是否存在。
      * @param id 交易ID
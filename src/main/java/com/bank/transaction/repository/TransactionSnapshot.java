@@ -0,0 +1,188 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.Transaction;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 交易数据的二进制快照文件（snapshot-{段号}.bin）。
+ * 文件名中的段号表示快照覆盖了该段之前的全部预写日志，恢复时只需回放该段及之后的段。
+ * 文件格式：[int 魔数][int 版本] 若干 [int 长度][交易编码]，[int -1] 结束，最后是 [long 条数][int CRC32]。
+ */
+final class TransactionSnapshot {
+
+    private static final int MAGIC = 0x54584E53; // "TXNS"
+    private static final int VERSION = 1;
+    private static final int END_OF_RECORDS = -1;
+
+    // 读取时每次映射的最大窗口，超过 2GB 的快照分多个窗口映射
+    private static final long MAP_WINDOW = 1L << 30;
+
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{16})\\.bin");
+
+    private TransactionSnapshot() {
+    }
+
+    /**
+     * 写入快照：先写临时文件并 fsync，再原子重命名为正式文件，最后删除更早的快照。
+     * @param directory 快照目录
+     * @param segmentId 快照覆盖到的段号（不含）
+     * @param transactions 要写入的交易，允许在写入过程中被并发修改
+     * @return 写入的交易条数
+     */
+    static long write(Path directory, long segmentId, Iterable<Transaction> transactions) throws IOException {
+        Path target = snapshotPath(directory, segmentId);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            DataOutputStream recordOut = new DataOutputStream(record);
+            for (Transaction transaction : transactions) {
+                record.reset();
+                TransactionCodec.write(recordOut, transaction);
+                byte[] bytes = record.toByteArray();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                crc.update(bytes);
+                count++;
+            }
+            out.writeInt(END_OF_RECORDS);
+            out.writeLong(count);
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(directory);
+        for (long id : listSnapshots(directory)) {
+            if (id < segmentId) {
+                Files.deleteIfExists(snapshotPath(directory, id));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 通过内存映射读取最新的快照，逐条交给 sink。
+     * @param directory 快照目录
+     * @param sink 接收每条交易的回调
+     * @return 最新快照覆盖到的段号；没有快照时返回 1，表示需要回放全部日志
+     */
+    static long loadLatest(Path directory, Consumer<Transaction> sink) throws IOException {
+        Files.createDirectories(directory);
+        // 清理写入过程中崩溃留下的临时文件
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        List<Long> snapshots = listSnapshots(directory);
+        if (snapshots.isEmpty()) {
+            return 1;
+        }
+        long segmentId = snapshots.getLast();
+        Path file = snapshotPath(directory, segmentId);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            read(channel, file, sink);
+        }
+        return segmentId;
+    }
+
+    private static void read(FileChannel channel, Path file, Consumer<Transaction> sink) throws IOException {
+        MappedReader reader = new MappedReader(channel);
+        try {
+            if (reader.require(8).getInt() != MAGIC || reader.require(4).getInt() != VERSION) {
+                throw new IOException("快照文件格式错误: " + file);
+            }
+            CRC32 crc = new CRC32();
+            long count = 0;
+            int length;
+            while ((length = reader.require(4).getInt()) != END_OF_RECORDS) {
+                if (length < 0) {
+                    throw new IOException("快照文件格式错误: " + file);
+                }
+                byte[] bytes = new byte[length];
+                reader.require(length).get(bytes);
+                crc.update(bytes);
+                sink.accept(TransactionCodec.read(new DataInputStream(new ByteArrayInputStream(bytes))));
+                count++;
+            }
+            if (reader.require(8).getLong() != count || reader.require(4).getInt() != (int) crc.getValue()) {
+                throw new IOException("快照文件校验失败: " + file);
+            }
+        } catch (EOFException e) {
+            throw new IOException("快照文件不完整: " + file, e);
+        }
+    }
+
+    /**
+     * 按窗口内存映射快照文件，窗口剩余字节不足时从当前位置重新映射
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private long base;
+        private MappedByteBuffer window;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(MAP_WINDOW, size));
+        }
+
+        ByteBuffer require(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = base + window.position();
+                if (size - position < bytes) {
+                    throw new EOFException();
+                }
+                base = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(MAP_WINDOW, size - base));
+            }
+            return window;
+        }
+    }
+
+    private static Path snapshotPath(Path directory, long segmentId) {
+        return directory.resolve(String.format("snapshot-%016d.bin", segmentId));
+    }
+
+    private static List<Long> listSnapshots(Path directory) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SNAPSHOT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private static void syncDirectory(Path directory) {
+        // 重命名后 fsync 目录，保证新文件名落盘；部分平台不支持打开目录，忽略即可
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ignored) {
+            // 不支持目录 fsync 的平台依赖文件系统自身的保证
+        }
+    }
+}
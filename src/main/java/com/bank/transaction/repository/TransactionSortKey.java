@@ -0,0 +1,35 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * 交易按日期排序时使用的索引键。
+ * 排序规则：日期降序（最新的在前），日期相同时按ID升序，保证顺序稳定且全局唯一。
+ *
+ * @param date 交易日期
+ * @param id   交易ID
+ */
+record TransactionSortKey(LocalDateTime date, String id) implements Comparable<TransactionSortKey> {
+
+    // 日期为 null 的交易排在最后，避免索引比较时抛出异常
+    static final Comparator<TransactionSortKey> ORDER = Comparator
+            .comparing(TransactionSortKey::date, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(TransactionSortKey::id);
+
+    /**
+     * 根据交易对象构建索引键。
+     * @param transaction 交易对象
+     * @return 索引键
+     */
+    static TransactionSortKey of(Transaction transaction) {
+        return new TransactionSortKey(transaction.getDate(), transaction.getId());
+    }
+
+    @Override
+    public int compareTo(TransactionSortKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,10 @@
+package com.bank.transaction.repository;
+
+/**
+ * 预写日志的落盘策略，在写入延迟和持久性之间取舍。
+ */
+public enum WalSyncPolicy {
+    ALWAYS,     // 每次写入都等待 fsync 完成后返回，并发写入共享同一次 fsync（组提交）
+    INTERVAL,   // 写入进入操作系统页缓存后返回，后台每隔固定毫秒数 fsync 一次
+    OS          // 写入进入操作系统页缓存后返回，何时落盘由操作系统决定
+}
@@ -0,0 +1,342 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.Transaction;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于预写日志的持久化 TransactionRepository 实现。
+ * 数据仍保存在内存中并复用 InMemoryTransactionRepository 的索引，
+ * 每次保存、更新、删除都会先追加到预写日志。
+ * 后台定期把全部数据写成快照并删除已被快照覆盖的日志段，
+ * 启动时加载最新快照后只回放之后的日志，重启耗时取决于数据量而不是历史变更次数。
+ * 刷盘失败后内存中可能留有未持久化的变更，此后所有读写都抛出 UncheckedIOException，需要重启后从日志恢复。
+ * 通过 transaction.repository.type=wal 启用。
+ */
+@Repository
+@ConditionalOnProperty(name = "transaction.repository.type", havingValue = "wal")
+public class WalTransactionRepository implements TransactionRepository, Closeable {
+
+    // 日志记录类型
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+
+    private static final Logger log = LoggerFactory.getLogger(WalTransactionRepository.class);
+
+    // 内存中的数据和索引
+    private final InMemoryTransactionRepository state = new InMemoryTransactionRepository();
+
+    private final Path directory;
+    private final WriteAheadLog wal;
+
+    // 保证日志追加顺序与内存变更顺序一致；锁内只做追加缓冲区和内存更新，不等待落盘
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // 保证同一时间只有一个快照在写入
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    // 上次快照时的日志序号，没有新的写入时跳过快照
+    private long snapshotSeq;
+    private final ScheduledExecutorService snapshotter;
+
+    /**
+     * 加载最新快照并回放之后的日志，按需启动后台快照线程。
+     * @param directory 日志和快照所在目录
+     * @param syncPolicy 落盘策略
+     * @param syncIntervalMillis INTERVAL 策略下的 fsync 间隔毫秒数
+     * @param snapshotIntervalSeconds 后台快照间隔秒数，小于等于 0 时不自动快照
+     */
+    @Autowired
+    public WalTransactionRepository(@Value("${transaction.wal.dir:data/wal}") Path directory,
+                                    @Value("${transaction.wal.sync-policy:ALWAYS}") WalSyncPolicy syncPolicy,
+                                    @Value("${transaction.wal.sync-interval-ms:10}") long syncIntervalMillis,
+                                    @Value("${transaction.wal.snapshot-interval-seconds:300}") long snapshotIntervalSeconds) throws IOException {
+        this(directory, syncPolicy, syncIntervalMillis, snapshotIntervalSeconds, FileChannel::open);
+    }
+
+    WalTransactionRepository(Path directory, WalSyncPolicy syncPolicy, long syncIntervalMillis, long snapshotIntervalSeconds,
+                             WriteAheadLog.SegmentOpener opener) throws IOException {
+        this.directory = directory;
+        long fromSegment = TransactionSnapshot.loadLatest(directory, state::save);
+        this.wal = new WriteAheadLog(directory, fromSegment, syncPolicy, syncIntervalMillis, this::replay, opener);
+        if (snapshotIntervalSeconds > 0) {
+            this.snapshotter = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("wal-snapshotter").daemon().factory());
+            snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            this.snapshotter = null;
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        wal.checkHealthy();
+        byte[] record = encodePut(transaction);
+        long seq;
+        writeLock.lock();
+        try {
+            seq = wal.append(record);
+            state.save(transaction);
+        } finally {
+            writeLock.unlock();
+        }
+        // 在锁外等待落盘，等待期间其他写入可以继续进入同一批次
+        wal.awaitDurable(seq);
+        return transaction;
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        wal.checkHealthy();
+        List<byte[]> records = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            records.add(encodePut(transaction));
+        }
+        long seq = 0;
+        writeLock.lock();
+        try {
+            for (int i = 0; i < records.size(); i++) {
+                seq = wal.append(records.get(i));
+                state.save(transactions.get(i));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        // 整批只等待最后一条落盘，前面的记录必然已在同一次或更早的 fsync 中写入
+        if (!records.isEmpty()) {
+            wal.awaitDurable(seq);
+        }
+        return transactions;
+    }
+
+    @Override
+    public Transaction findById(String id) {
+        wal.checkHealthy();
+        return state.findById(id);
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        wal.checkHealthy();
+        return state.findAll();
+    }
+
+    @Override
+    public Page<Transaction> findAll(Pageable pageable) {
+        wal.checkHealthy();
+        return state.findAll(pageable);
+    }
+
+    @Override
+    public Page<Transaction> findByAccountId(String accountId, Pageable pageable) {
+        wal.checkHealthy();
+        return state.findByAccountId(accountId, pageable);
+    }
+
+    @Override
+    public List<Transaction> findAllAfter(LocalDateTime afterDate, String afterId, int limit) {
+        wal.checkHealthy();
+        return state.findAllAfter(afterDate, afterId, limit);
+    }
+
+    @Override
+    public Transaction update(Transaction transaction) {
+        wal.checkHealthy();
+        long seq;
+        writeLock.lock();
+        try {
+            // 不存在时不写日志，与内存实现一样返回 null
+            Transaction previous = state.findById(transaction.getId());
+            if (previous == null) {
+                return null;
+            }
+            // 版本号需要写入日志，因此在锁内设置后再编码
+            transaction.setVersion(previous.getVersion() + 1);
+            seq = wal.append(encodePut(transaction));
+            state.save(transaction);
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(seq);
+        return transaction;
+    }
+
+    @Override
+    public Transaction updateIfVersion(Transaction transaction, long expectedVersion) {
+        wal.checkHealthy();
+        Transaction previous;
+        long seq;
+        writeLock.lock();
+        try {
+            previous = state.findById(transaction.getId());
+            if (previous == null || previous.getVersion() != expectedVersion) {
+                return previous;
+            }
+            transaction.setVersion(expectedVersion + 1);
+            seq = wal.append(encodePut(transaction));
+            state.save(transaction);
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(seq);
+        return previous;
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        wal.checkHealthy();
+        byte[] record = encodeDelete(id);
+        long seq;
+        writeLock.lock();
+        try {
+            if (!state.existsById(id)) {
+                return false;
+            }
+            seq = wal.append(record);
+            state.deleteById(id);
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(seq);
+        return true;
+    }
+
+    @Override
+    public Transaction deleteByIdIfVersion(String id, long expectedVersion) {
+        wal.checkHealthy();
+        byte[] record = encodeDelete(id);
+        Transaction previous;
+        long seq;
+        writeLock.lock();
+        try {
+            previous = state.findById(id);
+            if (previous == null || previous.getVersion() != expectedVersion) {
+                return previous;
+            }
+            seq = wal.append(record);
+            state.deleteById(id);
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(seq);
+        return previous;
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        wal.checkHealthy();
+        return state.existsById(id);
+    }
+
+    /**
+     * 写入一次快照并删除已被快照覆盖的日志段，自上次快照以来没有写入时跳过。
+     * 只在切换日志段时短暂持有写锁，写快照期间不阻塞并发写入：
+     * 快照可能包含切换之后的部分变更，但日志记录都是整条覆盖或删除，
+     * 恢复时按顺序回放之后的日志段即可得到正确结果。
+     */
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long seq;
+            long segmentId;
+            writeLock.lock();
+            try {
+                seq = wal.lastSeq();
+                if (seq == snapshotSeq) {
+                    return;
+                }
+                segmentId = wal.rotate();
+            } finally {
+                writeLock.unlock();
+            }
+            long count = TransactionSnapshot.write(directory, segmentId, state.values());
+            wal.deleteSegmentsBefore(segmentId);
+            snapshotSeq = seq;
+            log.info("快照写入完成，共 {} 条交易，日志从段 {} 开始保留", count, segmentId);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * 关闭时停止后台快照，把尚未落盘的日志写入并 fsync。
+     */
+    @Override
+    @PreDestroy
+    public void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+            try {
+                snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        wal.close();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            // 快照失败不影响写入，日志仍然完整，下次定时任务会重试
+            log.error("写入快照失败", e);
+        }
+    }
+
+    private void replay(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        switch (op) {
+            case OP_PUT -> state.save(TransactionCodec.read(in));
+            case OP_DELETE -> state.deleteById(TransactionCodec.readString(in));
+            default -> throw new IOException("未知的日志记录类型: " + op);
+        }
+    }
+
+    private static byte[] encodePut(Transaction transaction) {
+        // 先取ID，与内存实现一样对 null 交易或 null ID 抛出 NullPointerException
+        if (transaction.getId() == null) {
+            throw new NullPointerException("交易ID不能为空");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(OP_PUT);
+            TransactionCodec.write(out, transaction);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeDelete(String id) {
+        if (id == null) {
+            throw new NullPointerException("交易ID不能为空");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(OP_DELETE);
+            TransactionCodec.writeString(out, id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
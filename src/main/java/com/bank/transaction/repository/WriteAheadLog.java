@@ -0,0 +1,454 @@
+package com.bank.transaction.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 基于 FileChannel 的追加式预写日志，按段文件（wal-{段号}.log）存放在同一目录下。
+ * 写入方只把记录放入内存缓冲区并拿到序号，由单独的刷盘线程批量写入当前段并 fsync，
+ * 同一批次内的所有写入方共享一次 fsync（组提交）。
+ * 通过 {@link #rotate()} 切换到新的段，配合快照删除已被快照覆盖的旧段。
+ * 记录格式：[int 负载长度][int 负载CRC32][负载]。
+ */
+final class WriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    // 记录头长度：负载长度 + CRC32
+    private static final int HEADER_SIZE = 8;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{16})\\.log");
+
+    /**
+     * 启动时回放日志记录的回调
+     */
+    @FunctionalInterface
+    interface RecordHandler {
+        void accept(byte[] payload) throws IOException;
+    }
+
+    /**
+     * 打开段文件的方式，测试中可替换为会失败的 FileChannel
+     */
+    @FunctionalInterface
+    interface SegmentOpener {
+        FileChannel open(Path path, OpenOption... options) throws IOException;
+    }
+
+    private final Path directory;
+    private final WalSyncPolicy syncPolicy;
+    private final long syncIntervalNanos;
+    private final SegmentOpener opener;
+    private final Thread flusher;
+
+    // 当前段，只由刷盘线程写入；切换段时在锁内替换
+    private FileChannel channel;
+
+    // 保护以下字段的锁，写入方和刷盘线程通过条件变量互相唤醒
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingNotEmpty = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    // 双缓冲：写入方追加到 pending，刷盘线程交换后把 flushing 写入文件
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer flushing = ByteBuffer.allocate(64 * 1024);
+    private long appendedSeq;   // 已追加到缓冲区的最大序号
+    private long writtenSeq;    // 已写入文件（操作系统页缓存）的最大序号
+    private long syncedSeq;     // 已 fsync 的最大序号
+    private long segmentId;     // 当前段号
+    private FileChannel rotateTo;   // 等待刷盘线程切换到的新段
+    // 刷盘失败的原因，一旦设置不再清除；volatile 以便 checkHealthy 不加锁读取
+    private volatile IOException failure;
+    private boolean closed;
+
+    /**
+     * 打开日志目录，按段号顺序回放 fromSegment 及之后的段，然后启动刷盘线程。
+     * 早于 fromSegment 的段已被快照覆盖，直接删除。
+     * 最后一段末尾不完整或校验失败的记录视为崩溃时未写完的数据，会被截断。
+     * @param directory 日志目录
+     * @param fromSegment 需要回放的起始段号
+     * @param syncPolicy 落盘策略
+     * @param syncIntervalMillis INTERVAL 策略下的 fsync 间隔毫秒数
+     * @param handler 回放每条记录的回调
+     * @param opener 打开段文件的方式
+     */
+    WriteAheadLog(Path directory, long fromSegment, WalSyncPolicy syncPolicy, long syncIntervalMillis,
+                  RecordHandler handler, SegmentOpener opener) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.syncPolicy = syncPolicy;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        this.opener = opener;
+
+        deleteSegmentsBefore(fromSegment);
+        List<Long> segments = listSegments(directory);
+        // 切换段时崩溃可能留下空的新段，删除末尾的空段，使真正的最后一段可以被截断
+        while (!segments.isEmpty() && Files.size(segmentPath(segments.getLast())) == 0) {
+            Files.delete(segmentPath(segments.removeLast()));
+        }
+        long records = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            long id = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            FileChannel segment = openSegment(id, false);
+            try {
+                records += replay(segment, id, last, handler);
+            } catch (IOException | RuntimeException e) {
+                segment.close();
+                throw e;
+            }
+            if (last) {
+                this.channel = segment;
+                this.segmentId = id;
+            } else {
+                segment.close();
+            }
+        }
+        if (channel == null) {
+            this.segmentId = Math.max(fromSegment, 1);
+            this.channel = openSegment(segmentId, true);
+        }
+        log.info("预写日志回放完成，共 {} 个段 {} 条记录", segments.size(), records);
+        this.flusher = Thread.ofPlatform().name("wal-flusher").daemon().start(this::flushLoop);
+    }
+
+    /**
+     * 追加一条记录到缓冲区，立即返回该记录的序号，不等待落盘。
+     * @param payload 记录负载
+     * @return 记录序号，用于 {@link #awaitDurable(long)}
+     */
+    long append(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        lock.lock();
+        try {
+            ensureWritable();
+            pending = ensureCapacity(pending, HEADER_SIZE + payload.length);
+            pending.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            pendingNotEmpty.signal();
+            return ++appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按落盘策略等待指定序号的记录持久化：
+     * ALWAYS 等待 fsync 完成，其余策略等待写入操作系统页缓存。
+     * @param seq 记录序号
+     */
+    void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            while ((syncPolicy == WalSyncPolicy.ALWAYS ? syncedSeq : writtenSeq) < seq) {
+                if (failure != null) {
+                    throw new UncheckedIOException("写入预写日志失败", failure);
+                }
+                flushed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待预写日志落盘时被中断", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 刷盘失败后抛出异常。失败前追加的记录可能已应用到调用方的内存状态却没有持久化，
+     * 调用方据此拒绝之后的读写，不对外暴露未落盘的数据。
+     */
+    void checkHealthy() {
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException("预写日志不可用", e);
+        }
+    }
+
+    /**
+     * 当前已追加的最大记录序号（本次启动以来）
+     */
+    long lastSeq() {
+        lock.lock();
+        try {
+            return appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把已追加的记录写入并 fsync 当前段后切换到新段。
+     * 调用方需保证切换期间没有新的追加，切换前的记录全部位于旧段中。
+     * @return 新段的段号，此前所有记录都位于更早的段中
+     */
+    long rotate() throws IOException {
+        long nextId;
+        lock.lock();
+        try {
+            ensureWritable();
+            nextId = segmentId + 1;
+        } finally {
+            lock.unlock();
+        }
+        FileChannel next = openSegment(nextId, true);
+        lock.lock();
+        try {
+            if (closed || failure != null) {
+                next.close();
+                ensureWritable();
+            }
+            rotateTo = next;
+            pendingNotEmpty.signal();
+            while (rotateTo != null) {
+                if (failure != null) {
+                    rotateTo = null;
+                    next.close();
+                    throw new IOException("切换预写日志段失败", failure);
+                }
+                flushed.await();
+            }
+            return segmentId;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待预写日志切换段时被中断");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除段号小于 segmentId 的段，这些段已被快照覆盖
+     * @param segmentId 保留的最小段号
+     */
+    void deleteSegmentsBefore(long segmentId) throws IOException {
+        for (long id : listSegments(directory)) {
+            if (id < segmentId) {
+                Files.deleteIfExists(segmentPath(id));
+            }
+        }
+    }
+
+    /**
+     * 停止刷盘线程，把缓冲区剩余记录写入并 fsync 后关闭文件。
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pendingNotEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void flushLoop() {
+        long lastSync = System.nanoTime();
+        boolean unsynced = false;
+        while (true) {
+            long batchSeq;
+            boolean closing;
+            boolean rotating;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed && rotateTo == null) {
+                    if (syncPolicy == WalSyncPolicy.INTERVAL && unsynced) {
+                        // 有未 fsync 的数据时，最多等到下一个 fsync 时间点
+                        long remaining = syncIntervalNanos - (System.nanoTime() - lastSync);
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        pendingNotEmpty.awaitNanos(remaining);
+                    } else {
+                        pendingNotEmpty.await();
+                    }
+                }
+                ByteBuffer batch = pending;
+                pending = flushing;
+                flushing = batch;
+                batchSeq = appendedSeq;
+                closing = closed;
+                rotating = rotateTo != null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(new InterruptedIOException("刷盘线程被中断"));
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                flushing.flip();
+                boolean wrote = flushing.hasRemaining();
+                while (flushing.hasRemaining()) {
+                    channel.write(flushing);
+                }
+                flushing.clear();
+                unsynced |= wrote;
+
+                // 关闭和切换段前总是 fsync，保证旧段在被快照覆盖前是完整的
+                boolean sync = unsynced && (closing || rotating
+                        || syncPolicy == WalSyncPolicy.ALWAYS
+                        || (syncPolicy == WalSyncPolicy.INTERVAL && System.nanoTime() - lastSync >= syncIntervalNanos));
+                if (sync) {
+                    channel.force(false);
+                    lastSync = System.nanoTime();
+                    unsynced = false;
+                }
+                FileChannel retired = null;
+                lock.lock();
+                try {
+                    writtenSeq = batchSeq;
+                    if (!unsynced) {
+                        syncedSeq = batchSeq;
+                    }
+                    if (rotating && pending.position() == 0) {
+                        retired = channel;
+                        channel = rotateTo;
+                        segmentId++;
+                        rotateTo = null;
+                    }
+                    flushed.signalAll();
+                    if (closing && pending.position() == 0 && rotateTo == null) {
+                        if (retired != null) {
+                            retired.close();
+                        }
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (retired != null) {
+                    retired.close();
+                }
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+        }
+    }
+
+    private void fail(IOException e) {
+        log.error("预写日志刷盘失败，后续写入将被拒绝", e);
+        lock.lock();
+        try {
+            failure = e;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("预写日志不可用", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("预写日志已关闭");
+        }
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int required) {
+        if (buffer.remaining() >= required) {
+            return buffer;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + required);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("wal-%016d.log", id));
+    }
+
+    private FileChannel openSegment(long id, boolean create) throws IOException {
+        return create
+                ? opener.open(segmentPath(id), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : opener.open(segmentPath(id), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private static long replay(FileChannel segment, long id, boolean last, RecordHandler handler) throws IOException {
+        long validEnd = 0;
+        long records = 0;
+        long size = segment.size();
+        segment.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(segment), 64 * 1024));
+        while (true) {
+            byte[] payload;
+            try {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || length > size - validEnd - HEADER_SIZE) {
+                    break;
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+            } catch (EOFException e) {
+                break;
+            }
+            handler.accept(payload);
+            validEnd += HEADER_SIZE + payload.length;
+            records++;
+        }
+        if (validEnd < size) {
+            // 只有最后一段可能在崩溃时没写完，更早的段在切换前已经 fsync
+            if (!last) {
+                throw new IOException(String.format("预写日志段 %d 在偏移 %d 处损坏", id, validEnd));
+            }
+            log.warn("预写日志段 {} 末尾存在 {} 字节不完整记录，已截断", id, size - validEnd);
+            segment.truncate(validEnd);
+            segment.force(false);
+        }
+        segment.position(validEnd);
+        return records;
+    }
+}
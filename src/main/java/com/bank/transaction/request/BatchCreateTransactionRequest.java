@@ -0,0 +1,25 @@
+package com.bank.transaction.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchCreateTransactionRequest {
+
+    // 整批共用一个防重 token，只校验和消费一次
+    @NotBlank(message = "防重token不能为空")
+    private String preventDuplicateToken;
+
+    // 要创建的交易，每条单独校验，校验失败的条目在响应中单独报告
+    @NotEmpty(message = "交易列表不能为空")
+    private List<BatchTransactionItem> transactions;
+}
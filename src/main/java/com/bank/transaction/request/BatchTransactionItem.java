@@ -0,0 +1,36 @@
+package com.bank.transaction.request;
+
+import com.bank.transaction.enums.TransactionType;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 批量创建请求中的单条交易，字段校验与 CreateTransactionRequest 一致，不包含防重 token。
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransactionItem {
+
+    // 账号 ID
+    @NotBlank(message = "账号ID不能为空")
+    private String accountId;
+
+    @NotNull(message = "金额不能为空")
+    @DecimalMin(value = "0.01", message = "金额必须大于0")
+    private BigDecimal amount; // 交易金额
+
+    @NotNull(message = "交易类型不能为空")
+    private TransactionType type; // 交易类型 (DEPOSIT/WITHDRAWAL)
+
+    @NotBlank(message = "描述不能为空")
+    private String description; // 交易描述
+}
@@ -0,0 +1,54 @@
+package com.bank.transaction.response;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 缓存统计信息的响应数据传输对象。
+ * 计数均为应用启动以来的累计值。
+ */
+@Data
+@Builder
+public class CacheStatsResponse {
+    private String name;                 // 缓存名称
+    private long estimatedSize;          // 当前条数（估算值）
+    private Long weightedSize;           // 当前权重，即估算占用的字节数；未按权重限制大小时为 null
+    private Long maximumWeight;          // 权重上限；未按权重限制大小时为 null
+    private long hitCount;               // 命中次数
+    private long missCount;              // 未命中次数
+    private double hitRate;              // 命中率
+    private long evictionCount;          // 因容量淘汰的条数
+    private long evictionWeight;         // 因容量淘汰的总权重
+    private long loadSuccessCount;       // 加载成功次数
+    private long loadFailureCount;       // 加载失败次数，包括交易不存在
+    private double averageLoadPenaltyMillis; // 平均加载耗时（毫秒）
+
+    /**
+     * 从 Caffeine 缓存读取统计信息
+     * @param name 缓存名称
+     * @param cache Caffeine 缓存，需要开启 recordStats
+     * @return 缓存统计响应DTO
+     */
+    public static CacheStatsResponse fromCache(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Policy.Eviction<?, ?> eviction = cache.policy().eviction().orElse(null);
+        boolean weighted = eviction != null && eviction.isWeighted();
+        return CacheStatsResponse.builder()
+                .name(name)
+                .estimatedSize(cache.estimatedSize())
+                .weightedSize(weighted ? eviction.weightedSize().orElse(0) : null)
+                .maximumWeight(weighted ? eviction.getMaximum() : null)
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .evictionWeight(stats.evictionWeight())
+                .loadSuccessCount(stats.loadSuccessCount())
+                .loadFailureCount(stats.loadFailureCount())
+                .averageLoadPenaltyMillis(stats.averageLoadPenalty() / 1_000_000.0)
+                .build();
+    }
+}
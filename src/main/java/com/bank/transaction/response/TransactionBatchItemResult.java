@@ -0,0 +1,16 @@
+package com.bank.transaction.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 批量创建中单条交易的处理结果。
+ */
+@Data
+@Builder
+public class TransactionBatchItemResult {
+    private int index;                       // 在请求列表中的下标
+    private boolean success;                 // 是否创建成功
+    private TransactionResponse transaction; // 创建成功的交易，失败时为 null
+    private String message;                  // 失败原因，成功时为 null
+}
@@ -0,0 +1,17 @@
+package com.bank.transaction.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量创建交易的响应数据传输对象，按请求顺序返回每条交易的处理结果。
+ */
+@Data
+@Builder
+public class TransactionBatchResponse {
+    private int created;                                // 创建成功的条数
+    private int failed;                                 // 校验失败的条数
+    private List<TransactionBatchItemResult> results;   // 每条交易的处理结果，顺序与请求一致
+}
@@ -0,0 +1,22 @@
+package com.bank.transaction.response;
+
+import com.bank.transaction.enums.TransactionChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 交易变更事件，通过 GET /api/transactions/changes 以 Server-Sent Events 推送。
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionChangeEvent {
+    private String eventId;                 // 事件ID，同时作为 SSE 的 id，断线重连时通过 Last-Event-ID 传回
+    private TransactionChangeType type;     // 变更类型
+    private String transactionId;           // 交易ID
+    private long version;                   // 变更后的版本号，删除时为被删除交易的版本号
+    private TransactionResponse transaction; // 变更后的交易，删除时为 null
+}
@@ -2,18 +2,22 @@ package com.bank.transaction.response;
 
 import com.bank.transaction.enums.TransactionType;
 import com.bank.transaction.model.Transaction;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
  * 用于返回交易信息的响应数据传输对象。
- * 使用@Builder注解方便构建对象。
+ * 使用@Builder注解方便构建对象，无参构造函数供调用方反序列化 JSON 响应。
  */
 @Data
 @Builder
+@AllArgsConstructor
+@NoArgsConstructor
 public class TransactionResponse {
     private String id;                // 交易唯一标识符
     private String accountId;       // 相关的账户 ID，简化为单一账户系统
@@ -21,6 +25,7 @@ public class TransactionResponse {
     private TransactionType type;     // 交易类型
     private LocalDateTime date;       // 交易发生日期和时间
     private String description;       // 交易描述
+    private long version;             // 版本号，同时作为 ETag 返回
 
     /**
      * 将Transaction模型转换为TransactionResponse DTO。
@@ -35,6 +40,7 @@ public class TransactionResponse {
                 .type(transaction.getType())
                 .date(transaction.getDate())
                 .description(transaction.getDescription())
+                .version(transaction.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,17 @@
+package com.bank.transaction.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页的响应数据传输对象。
+ * 不计算总数，只返回当前批次的数据和获取下一批数据的游标。
+ */
+@Data
+@Builder
+public class TransactionScrollResponse {
+    private List<TransactionResponse> content;  // 当前批次的交易
+    private String nextCursor;                  // 下一批的游标，没有更多数据时为 null
+}
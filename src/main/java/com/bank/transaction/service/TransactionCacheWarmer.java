@@ -0,0 +1,88 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.response.TransactionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动时预热交易缓存。
+ * 仓库恢复数据后，把最近的 transaction.cache.warm-up-size 笔交易分批并行写入 "transactions" 缓存。
+ * 作为 ApplicationRunner 在启动流程中同步执行，Spring Boot 在所有 ApplicationRunner 完成后才把就绪状态
+ * 切换为 ACCEPTING_TRAFFIC，预热完成前 /health/readiness 返回 503，Kubernetes 不会把流量转发到缓存为空的 Pod。
+ */
+@Component
+public class TransactionCacheWarmer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionCacheWarmer.class);
+
+    // 每个虚拟线程写入的条数
+    private static final int BATCH_SIZE = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final CacheManager cacheManager;
+    private final int warmUpSize;
+    private final Duration timeout;
+
+    public TransactionCacheWarmer(TransactionRepository transactionRepository,
+                                  CacheManager cacheManager,
+                                  @Value("${transaction.cache.warm-up-size:0}") int warmUpSize,
+                                  @Value("${transaction.cache.warm-up-timeout:30s}") Duration timeout) {
+        this.transactionRepository = transactionRepository;
+        this.cacheManager = cacheManager;
+        this.warmUpSize = warmUpSize;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        Cache cache = cacheManager.getCache("transactions");
+        if (warmUpSize <= 0 || cache == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        // 日期索引按日期降序排列，从头取即为最近的交易
+        List<Transaction> recent = transactionRepository.findAllAfter(null, null, warmUpSize);
+        boolean completed;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int from = 0; from < recent.size(); from += BATCH_SIZE) {
+                List<Transaction> batch = recent.subList(from, Math.min(from + BATCH_SIZE, recent.size()));
+                executor.submit(() -> {
+                    for (Transaction transaction : batch) {
+                        // 超时后被中断时停止写入
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        // 预热期间已有请求写入的条目更新，不覆盖
+                        cache.putIfAbsent(transaction.getId(), TransactionResponse.fromEntity(transaction));
+                    }
+                });
+            }
+            executor.shutdown();
+            completed = executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (!completed) {
+                // 超时后不再等待，避免 Pod 一直不能就绪
+                executor.shutdownNow();
+            }
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        if (completed) {
+            log.info("交易缓存预热完成，共 {} 笔，耗时 {} ms", recent.size(), elapsed);
+        } else {
+            log.warn("交易缓存预热超时，已等待 {} ms", elapsed);
+        }
+    }
+}
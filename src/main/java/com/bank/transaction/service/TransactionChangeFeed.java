@@ -0,0 +1,187 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.enums.TransactionChangeType;
+import com.bank.transaction.response.TransactionChangeEvent;
+import com.bank.transaction.response.TransactionResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 交易变更事件流。
+ * TransactionServiceImpl 在每次成功创建、更新、删除交易后发布事件，最近的 transaction.changes.buffer-size 个事件保存在环形缓冲区中，
+ * 断线重连的订阅者从 Last-Event-ID 之后继续接收，不需要重新读取全部交易。
+ * 每个订阅者有一个长度为 transaction.changes.subscriber-queue-size 的队列，发布时只向队列放入事件、不等待订阅者，
+ * 队列满时直接丢弃该订阅者，消费过慢的客户端不会让服务端无限制地缓存事件，也不会拖慢写入。
+ * 服务在同一交易的分段锁内发布事件，同一交易的事件按版本号顺序发布；删除事件不包含交易，但带有被删除交易的版本号。
+ */
+@Component
+public class TransactionChangeFeed {
+
+    // 订阅者被丢弃的标记，放入订阅者的队列
+    private static final TransactionChangeEvent DROPPED = new TransactionChangeEvent();
+
+    // 事件ID的前缀，每次启动随机生成：序号重启后从 1 开始，其他实例或重启前的事件ID不能用于续传
+    private final String instanceTag = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+    private final TransactionChangeEvent[] buffer;
+    private final int subscriberQueueSize;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    // 发布和订阅互斥：订阅时补发的事件与之后放入队列的事件不重复、不遗漏
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 最后一个事件的序号，从 1 开始
+    private long lastSequence;
+
+    public TransactionChangeFeed(@Value("${transaction.changes.buffer-size:10000}") int bufferSize,
+                                 @Value("${transaction.changes.subscriber-queue-size:1000}") int subscriberQueueSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("transaction.changes.buffer-size 必须大于 0: " + bufferSize);
+        }
+        if (subscriberQueueSize <= 0) {
+            throw new IllegalArgumentException("transaction.changes.subscriber-queue-size 必须大于 0: " + subscriberQueueSize);
+        }
+        this.buffer = new TransactionChangeEvent[bufferSize];
+        this.subscriberQueueSize = subscriberQueueSize;
+    }
+
+    /**
+     * 发布一个交易变更事件
+     * @param type 变更类型
+     * @param transactionId 交易ID
+     * @param transaction 变更后的交易，删除时为 null
+     */
+    public void publish(TransactionChangeType type, String transactionId, TransactionResponse transaction) {
+        publish(type, transactionId, transaction == null ? 0 : transaction.getVersion(), transaction);
+    }
+
+    /**
+     * 发布一个交易变更事件
+     * @param type 变更类型
+     * @param transactionId 交易ID
+     * @param version 变更后的版本号，删除时为被删除交易的版本号
+     * @param transaction 变更后的交易，删除时为 null
+     */
+    public void publish(TransactionChangeType type, String transactionId, long version, TransactionResponse transaction) {
+        lock.lock();
+        try {
+            long sequence = ++lastSequence;
+            TransactionChangeEvent event = new TransactionChangeEvent(instanceTag + "-" + sequence, type, transactionId, version, transaction);
+            buffer[(int) (sequence % buffer.length)] = event;
+            for (Subscription subscription : subscriptions) {
+                if (!subscription.queue.offer(event)) {
+                    subscription.drop();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 订阅变更事件
+     * @param lastEventId 客户端收到的最后一个事件ID，为 null 时只接收之后的事件
+     * @return 订阅，使用完毕后必须关闭
+     */
+    public Subscription subscribe(String lastEventId) {
+        lock.lock();
+        try {
+            long oldest = Math.max(1, lastSequence - buffer.length + 1);
+            long resumeFrom = resumeFrom(lastEventId);
+            // 事件ID不属于当前实例或对应的事件已被覆盖，无法续传，从当前位置开始并提示客户端重新同步
+            boolean reset = lastEventId != null && (resumeFrom < oldest || resumeFrom > lastSequence + 1);
+            List<TransactionChangeEvent> replay = new ArrayList<>();
+            if (!reset && lastEventId != null) {
+                for (long sequence = resumeFrom; sequence <= lastSequence; sequence++) {
+                    replay.add(buffer[(int) (sequence % buffer.length)]);
+                }
+            }
+            Subscription subscription = new Subscription(reset, replay, new ArrayBlockingQueue<>(subscriberQueueSize));
+            subscriptions.add(subscription);
+            return subscription;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 当前的订阅者数量
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * 解析事件ID中的序号
+     * @return 续传的第一个序号；不属于当前实例或格式错误时返回 -1
+     */
+    private long resumeFrom(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(instanceTag + "-")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(instanceTag.length() + 1)) + 1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 一个订阅者的事件队列，只能由一个线程读取。
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final boolean reset;
+        private final List<TransactionChangeEvent> replay;
+        private final BlockingQueue<TransactionChangeEvent> queue;
+        private int replayIndex;
+
+        private Subscription(boolean reset, List<TransactionChangeEvent> replay, BlockingQueue<TransactionChangeEvent> queue) {
+            this.reset = reset;
+            this.replay = replay;
+            this.queue = queue;
+        }
+
+        /**
+         * @return Last-Event-ID 无法续传时为 true，客户端需要重新读取全部交易
+         */
+        public boolean isReset() {
+            return reset;
+        }
+
+        /**
+         * 获取下一个事件，先返回续传的事件，再等待新的事件
+         * @return 下一个事件；消费过慢被丢弃时返回 null
+         */
+        public TransactionChangeEvent next() throws InterruptedException {
+            if (replayIndex < replay.size()) {
+                return replay.get(replayIndex++);
+            }
+            TransactionChangeEvent event = queue.take();
+            return event == DROPPED ? null : event;
+        }
+
+        /**
+         * 队列已满，丢弃积压的事件并通知读取线程结束，在发布锁内调用
+         */
+        private void drop() {
+            subscriptions.remove(this);
+            queue.clear();
+            queue.offer(DROPPED);
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.bank.transaction.service;
 
+import com.bank.transaction.request.BatchCreateTransactionRequest;
 import com.bank.transaction.request.CreateTransactionRequest;
 import com.bank.transaction.request.UpdateTransactionRequest;
+import com.bank.transaction.response.TransactionBatchResponse;
 import com.bank.transaction.response.TransactionResponse;
+import com.bank.transaction.response.TransactionScrollResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 交易业务逻辑层接口。
@@ -23,6 +27,14 @@ public interface TransactionService {
      */
     TransactionResponse createTransaction(CreateTransactionRequest request);
 
+    /**
+     * 批量创建交易，整批共用一个防重 token。
+     * 每条交易单独校验，校验通过的交易一次性生成ID并批量保存，校验失败的交易在结果中报告原因。
+     * @param request 批量创建请求
+     * @return 每条交易的处理结果
+     */
+    TransactionBatchResponse createTransactions(BatchCreateTransactionRequest request);
+
     /**
      * 根据交易ID获取交易详情。
      * @param id 交易ID
@@ -36,6 +48,13 @@ public interface TransactionService {
      */
     List<TransactionResponse> getAllTransactions();
 
+    /**
+     * 按日期降序逐条处理全部交易，用于流式输出。
+     * 按游标分批读取仓库，内存占用只与批大小有关，与交易总数无关；遍历期间的并发修改可能可见也可能不可见。
+     * @param action 对每笔交易执行的操作
+     */
+    void forEachTransaction(Consumer<TransactionResponse> action);
+
     /**
      * 分页获取所有交易。
      * @param pageable 分页信息
@@ -43,6 +62,29 @@ public interface TransactionService {
      */
      Page<TransactionResponse> getAllTransactions(Pageable pageable);
 
+    /**
+     * 分页获取某个账户下的交易。
+     * @param accountId 账户ID
+     * @param pageable 分页信息
+     * @return 该账户交易的分页结果
+     */
+    Page<TransactionResponse> getTransactionsByAccountId(String accountId, Pageable pageable);
+
+    /**
+     * 游标分页获取交易，适合对全量数据的深度遍历。
+     * @param after 上一批返回的游标，为 null 时从第一条开始
+     * @param limit 每批最多返回的条数
+     * @return 当前批次的交易和下一批的游标
+     */
+    TransactionScrollResponse scrollTransactions(String after, int limit);
+
+    /**
+     * 获取交易数据的修改计数，每次成功创建、批量创建、更新、删除交易后加一。
+     * 计数在修改写入仓库之后才增加，先读取计数再读取数据时，读到的数据不会比计数旧。进程重启后从 0 开始。
+     * @return 当前的修改计数
+     */
+    long getModificationCount();
+
     /**
      * 更新一笔现有交易。
      * @param id 要更新的交易ID
@@ -51,9 +93,27 @@ public interface TransactionService {
      */
     TransactionResponse updateTransaction(String id, UpdateTransactionRequest request);
 
+    /**
+     * 仅当交易当前版本等于期望版本时更新（乐观并发控制），不加锁。
+     * 版本不一致时抛出 VersionConflictException。
+     * @param id 要更新的交易ID
+     * @param request 包含更新数据的请求DTO
+     * @param expectedVersion 客户端读取到的版本号
+     * @return 更新成功的交易响应DTO
+     */
+    TransactionResponse updateTransaction(String id, UpdateTransactionRequest request, long expectedVersion);
+
     /**
      * 根据交易ID删除交易。
      * @param id 交易ID
      */
     void deleteTransaction(String id);
+
+    /**
+     * 仅当交易当前版本等于期望版本时删除（乐观并发控制），不加锁。
+     * 版本不一致时抛出 VersionConflictException。
+     * @param id 交易ID
+     * @param expectedVersion 客户端读取到的版本号
+     */
+    void deleteTransaction(String id, long expectedVersion);
 }
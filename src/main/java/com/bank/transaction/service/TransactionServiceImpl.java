@@ -1,25 +1,44 @@
 package com.bank.transaction.service;
 
+import com.bank.transaction.common.InvalidRequestException;
 import com.bank.transaction.common.TransactionNotFoundException;
+import com.bank.transaction.common.VersionConflictException;
+import com.bank.transaction.enums.TransactionChangeType;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.LongKeyTransactionRepository;
 import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.request.BatchCreateTransactionRequest;
+import com.bank.transaction.request.BatchTransactionItem;
 import com.bank.transaction.request.CreateTransactionRequest;
 import com.bank.transaction.request.UpdateTransactionRequest;
+import com.bank.transaction.response.TransactionBatchItemResult;
+import com.bank.transaction.response.TransactionBatchResponse;
 import com.bank.transaction.response.TransactionResponse;
+import com.bank.transaction.response.TransactionScrollResponse;
+import com.bank.transaction.util.ScrollCursorUtil;
 import com.bank.transaction.util.TokenUtil;
 import com.bank.transaction.util.TransactionIdGenerateUtil;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -30,16 +49,66 @@ import java.util.stream.Collectors;
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
+    // 游标分页单批允许返回的最大条数
+    private static final int MAX_SCROLL_LIMIT = 1000;
+
+    // 批量创建单次允许的最大条数
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    // 流式遍历时每批从仓库读取的条数
+    private static final int STREAM_BATCH_SIZE = 1000;
+
+    // 批量创建时逐条校验交易，校验器线程安全，可以共享
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    // 分段锁数量，取 2 的幂便于用位运算定位
+    private static final int LOCK_STRIPES = 1024;
+
+    // 不存在的交易ID的缓存时间和最大条数
+    private static final Duration MISSING_ID_TTL = Duration.ofSeconds(5);
+    private static final int MISSING_ID_MAX_SIZE = 100_000;
+
     private final TransactionRepository transactionRepository;
 
+    // 交易变更事件流，每次成功写入后发布
+    private final TransactionChangeFeed changeFeed;
+
+    // 以 long 为主键的仓库：交易ID在服务层解码一次后直接按 long 查找和删除；使用其他仓库时为 null
+    private final LongKeyTransactionRepository longKeyRepository;
+
+    // 交易缓存。查询直接调用缓存而不使用 @Cacheable，以便在查询缓存前先检查负缓存；
+    // 写入和删除在同一ID的分段锁内更新缓存，缓存的变更顺序与仓库中的提交顺序一致，删除后不会被之前的更新写回
+    private final org.springframework.cache.Cache transactionCache;
+
     // 通过构造函数注入TransactionRepository，这是推荐的依赖注入方式。
-    public TransactionServiceImpl(TransactionRepository transactionRepository) {
+    public TransactionServiceImpl(TransactionRepository transactionRepository, TransactionChangeFeed changeFeed,
+                                  CacheManager cacheManager) {
         this.transactionRepository = transactionRepository;
+        this.changeFeed = changeFeed;
+        this.transactionCache = Objects.requireNonNull(cacheManager.getCache("transactions"));
+        this.longKeyRepository = transactionRepository instanceof LongKeyTransactionRepository repository ? repository : null;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
     }
 
-    // 创建一个并发安全的HashMap，用于存储锁对象，键为交易ID，值为锁对象。 主要用于控制更新和删除的并发操作
-    private final ConcurrentHashMap<String, ReentrantLock> lockMap = new ConcurrentHashMap<>();
+    // 最近查询过但不存在的交易ID（负缓存）。只在交易缓存未命中时检查，命中时直接返回 404 而不访问仓库；
+    // 创建交易时移除对应的ID。过期时间很短，只用于挡住对不存在或刚删除的ID的反复查询。
+    private final Cache<String, Boolean> missingIds = Caffeine.newBuilder()
+            .expireAfterWrite(MISSING_ID_TTL)
+            .maximumSize(MISSING_ID_MAX_SIZE)
+            .build();
+
+    // 固定数量的分段锁，按交易ID的哈希选择，用于控制同一交易的更新和删除的并发操作。
+    // 锁的数量与交易数无关，内存占用恒定；不同ID只有哈希落在同一段时才会互相等待。
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    // 交易数据的修改计数，列表和分页查询以此生成 ETag
+    private final AtomicLong modificationCount = new AtomicLong();
 
+    /**
+     * 创建的交易直接写入缓存，创建后的第一次查询不需要访问仓库
+     */
     @Override
     public TransactionResponse createTransaction(CreateTransactionRequest request) {
         // 验证防重令牌
@@ -57,22 +126,97 @@ public class TransactionServiceImpl implements TransactionService {
                 request.getDescription()
         );
 
-        // 保存交易
-        Transaction savedTransaction = transactionRepository.save(transaction);
-        // 转换为响应DTO并返回
-        return TransactionResponse.fromEntity(savedTransaction);
+        ReentrantLock lock = lockFor(newTransactionId);
+        lock.lock();
+        try {
+            // 保存交易
+            Transaction savedTransaction = transactionRepository.save(transaction);
+            missingIds.invalidate(newTransactionId);
+            modificationCount.incrementAndGet();
+            // 转换为响应DTO并返回
+            TransactionResponse response = TransactionResponse.fromEntity(savedTransaction);
+            transactionCache.put(newTransactionId, response);
+            changeFeed.publish(TransactionChangeType.CREATED, newTransactionId, response);
+            return response;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public TransactionBatchResponse createTransactions(BatchCreateTransactionRequest request) {
+        List<BatchTransactionItem> items = request.getTransactions();
+        if (items == null || items.isEmpty() || items.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException(String.format("批量创建的交易数必须在 1 到 %d 之间", MAX_BATCH_SIZE));
+        }
+        // 整批只验证一次防重令牌
+        TokenUtil.validateAndConsumeToken(request.getPreventDuplicateToken());
+
+        // 先校验整批，记录每条的失败原因
+        String[] errors = new String[items.size()];
+        int validCount = 0;
+        for (int i = 0; i < items.size(); i++) {
+            errors[i] = validate(items.get(i));
+            if (errors[i] == null) {
+                validCount++;
+            }
+        }
+
+        // 为校验通过的交易一次性生成ID，使用同一个交易时间，一次批量保存
+        String[] ids = TransactionIdGenerateUtil.generateTransactionIds(validCount);
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> transactions = new ArrayList<>(validCount);
+        for (int i = 0; i < items.size(); i++) {
+            if (errors[i] == null) {
+                BatchTransactionItem item = items.get(i);
+                transactions.add(new Transaction(ids[transactions.size()], item.getAccountId(), item.getAmount(),
+                        item.getType(), now, item.getDescription()));
+            }
+        }
+        if (!transactions.isEmpty()) {
+            transactionRepository.saveAll(transactions);
+            missingIds.invalidateAll(Arrays.asList(ids));
+            modificationCount.incrementAndGet();
+        }
+
+        // 按请求顺序组装每条交易的结果
+        List<TransactionBatchItemResult> results = new ArrayList<>(items.size());
+        int saved = 0;
+        for (int i = 0; i < items.size(); i++) {
+            TransactionBatchItemResult.TransactionBatchItemResultBuilder result = TransactionBatchItemResult.builder().index(i);
+            if (errors[i] == null) {
+                TransactionResponse response = TransactionResponse.fromEntity(transactions.get(saved++));
+                changeFeed.publish(TransactionChangeType.CREATED, response.getId(), response);
+                result.success(true).transaction(response);
+            } else {
+                result.success(false).message(errors[i]);
+            }
+            results.add(result.build());
+        }
+        return TransactionBatchResponse.builder()
+                .created(validCount)
+                .failed(items.size() - validCount)
+                .results(results)
+                .build();
     }
 
+    /**
+     * 先检查负缓存，最近确认过不存在的ID不进入交易缓存，直接返回不存在。
+     * 缓存未命中时合并同一ID的并发加载：缓存中只放入一个加载中的 future，并发查询等待同一次加载，仓库只查询一次。
+     * 交易不存在时加载结果为 null，不写入缓存，也不以异常结束加载。
+     * 加载期间同一ID的写入等待加载完成后按版本号替换，删除直接移除这个 future，加载到的旧数据不会覆盖之后写入的新数据，也不会在删除后重新写回缓存
+     */
     @Override
-    @Cacheable(value = "transactions", key = "#id")
     public TransactionResponse getTransactionById(String id) {
-        // 根据ID查找交易，如果找不到则抛出TransactionNotFoundException
-        Transaction transaction = transactionRepository.findById(id);
-        if(transaction == null){
+        // 最近确认过不存在的ID，不再访问缓存和仓库
+        if (missingIds.getIfPresent(id) != null) {
             throw new TransactionNotFoundException(String.format("交易未找到，ID: %s", id));
         }
-        // 转换为响应DTO并返回
-        return TransactionResponse.fromEntity(transaction);
+        TransactionResponse response = transactionCache.get(id, () -> loadTransaction(id));
+        if (response == null) {
+            throw new TransactionNotFoundException(String.format("交易未找到，ID: %s", id));
+        }
+        return response;
     }
 
     @Override
@@ -88,6 +232,25 @@ public class TransactionServiceImpl implements TransactionService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void forEachTransaction(Consumer<TransactionResponse> action) {
+        // 以上一批最后一条作为游标读取下一批，每批读取后即可丢弃
+        LocalDateTime afterDate = null;
+        String afterId = null;
+        List<Transaction> batch;
+        do {
+            batch = transactionRepository.findAllAfter(afterDate, afterId, STREAM_BATCH_SIZE);
+            for (Transaction transaction : batch) {
+                action.accept(TransactionResponse.fromEntity(transaction));
+            }
+            if (!batch.isEmpty()) {
+                Transaction last = batch.getLast();
+                afterDate = last.getDate();
+                afterId = last.getId();
+            }
+        } while (batch.size() == STREAM_BATCH_SIZE);
+    }
+
     public Page<TransactionResponse> getAllTransactions(Pageable pageable) {
         // 分页获取对应的交易列表
         Page<Transaction> transactionPage = transactionRepository.findAll(pageable);
@@ -105,45 +268,234 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    @CacheEvict(value = "transactions", key = "#id")
+    public Page<TransactionResponse> getTransactionsByAccountId(String accountId, Pageable pageable) {
+        // 通过账户索引分页获取该账户的交易，并转换为响应DTO
+        return transactionRepository.findByAccountId(accountId, pageable)
+                .map(TransactionResponse::fromEntity);
+    }
+
+    @Override
+    public TransactionScrollResponse scrollTransactions(String after, int limit) {
+        if (limit <= 0 || limit > MAX_SCROLL_LIMIT) {
+            throw new InvalidRequestException(String.format("limit 必须在 1 到 %d 之间", MAX_SCROLL_LIMIT));
+        }
+        // 解析游标，为空时从第一条开始
+        ScrollCursorUtil.Cursor cursor = after == null || after.isEmpty() ? null : ScrollCursorUtil.decode(after);
+        // 多取一条用于判断是否还有下一批，避免客户端多发一次空请求
+        List<Transaction> transactions = cursor == null
+                ? transactionRepository.findAllAfter(null, null, limit + 1)
+                : transactionRepository.findAllAfter(cursor.date(), cursor.id(), limit + 1);
+
+        String nextCursor = null;
+        if (transactions.size() > limit) {
+            transactions = transactions.subList(0, limit);
+            Transaction last = transactions.getLast();
+            nextCursor = ScrollCursorUtil.encode(last.getDate(), last.getId());
+        }
+        return TransactionScrollResponse.builder()
+                .content(transactions.stream().map(TransactionResponse::fromEntity).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * 更新后的交易在锁内直接写入缓存，而不是删除缓存后由下一次查询重新加载
+     */
+    @Override
     public TransactionResponse updateTransaction(String id, UpdateTransactionRequest request) {
-        ReentrantLock lock = lockMap.computeIfAbsent(id, k -> new ReentrantLock());
+        ReentrantLock lock = lockFor(id);
         lock.lock();
         try {
             // 检查交易是否存在
-            Transaction existingTransaction = transactionRepository.findById(id);
+            Transaction existingTransaction = findById(id);
             if(existingTransaction == null){
                 throw new TransactionNotFoundException(String.format("无法更新，交易未找到，ID: %s", id));
             }
 
-            // 更新交易信息
-            existingTransaction.setAmount(request.getAmount());
-            existingTransaction.setType(request.getType());
-            existingTransaction.setDescription(request.getDescription());
+            // 构建新的交易对象，不修改仓库中的对象，版本号由仓库在替换时递增
+            Transaction updatedTransaction = transactionRepository.update(Transaction.builder()
+                    .id(id)
+                    .accountId(existingTransaction.getAccountId())
+                    .amount(request.getAmount())
+                    .type(request.getType())
+                    .date(existingTransaction.getDate())
+                    .description(request.getDescription())
+                    .build());
+            if (updatedTransaction == null) {
+                throw new TransactionNotFoundException(String.format("无法更新，交易未找到，ID: %s", id));
+            }
+            modificationCount.incrementAndGet();
+            // 转换为响应DTO并返回，在锁内写入缓存和发布，同一交易的缓存和事件顺序与更新顺序一致
+            TransactionResponse response = TransactionResponse.fromEntity(updatedTransaction);
+            transactionCache.put(id, response);
+            changeFeed.publish(TransactionChangeType.UPDATED, id, response);
+            return response;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            // 保存更新后的交易
-            Transaction updatedTransaction = transactionRepository.update(existingTransaction);
-            // 转换为响应DTO并返回
-            return TransactionResponse.fromEntity(updatedTransaction);
+    /**
+     * 版本比较由仓库原子完成，仍在同一ID的分段锁内写入缓存，与并发的删除按提交顺序更新缓存
+     */
+    @Override
+    public TransactionResponse updateTransaction(String id, UpdateTransactionRequest request, long expectedVersion) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Transaction existingTransaction = findById(id);
+            if (existingTransaction == null) {
+                throw new TransactionNotFoundException(String.format("无法更新，交易未找到，ID: %s", id));
+            }
+            checkVersion(id, existingTransaction, expectedVersion);
+
+            // 构建新的交易对象，不修改仓库中的对象，由仓库按版本号原子替换
+            Transaction updatedTransaction = Transaction.builder()
+                    .id(id)
+                    .accountId(existingTransaction.getAccountId())
+                    .amount(request.getAmount())
+                    .type(request.getType())
+                    .date(existingTransaction.getDate())
+                    .description(request.getDescription())
+                    .build();
+            Transaction previous = transactionRepository.updateIfVersion(updatedTransaction, expectedVersion);
+            if (previous == null) {
+                throw new TransactionNotFoundException(String.format("无法更新，交易未找到，ID: %s", id));
+            }
+            checkVersion(id, previous, expectedVersion);
+            modificationCount.incrementAndGet();
+            TransactionResponse response = TransactionResponse.fromEntity(updatedTransaction);
+            transactionCache.put(id, response);
+            changeFeed.publish(TransactionChangeType.UPDATED, id, response);
+            return response;
         } finally {
             lock.unlock();
         }
     }
 
     @Override
-    @CacheEvict(value = "transactions", key = "#id")
     public void deleteTransaction(String id) {
-        ReentrantLock lock = lockMap.computeIfAbsent(id, k -> new ReentrantLock());
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            // 读取被删除的交易，删除事件带有它的版本号；持有同一ID的锁，读取和删除之间不会有其他写入
+            Transaction previous;
+            if (longKeyRepository != null) {
+                // 解码一次，直接按 long 读取和删除
+                long key = LongKeyTransactionRepository.key(id);
+                previous = longKeyRepository.findById(key);
+                if (previous == null) {
+                    throw new TransactionNotFoundException((String.format("无法删除，交易未找到，ID: %s", id)));
+                }
+                longKeyRepository.deleteById(key);
+            } else {
+                // 检查交易是否存在，如果不存在则抛出异常
+                previous = transactionRepository.findById(id);
+                if (previous == null) {
+                    throw new TransactionNotFoundException((String.format("无法删除，交易未找到，ID: %s", id)));
+                }
+                transactionRepository.deleteById(id);
+            }
+            // 删除后的查询直接由负缓存返回 404
+            missingIds.put(id, Boolean.TRUE);
+            transactionCache.evict(id);
+            modificationCount.incrementAndGet();
+            changeFeed.publish(TransactionChangeType.DELETED, id, previous.getVersion(), null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteTransaction(String id, long expectedVersion) {
+        ReentrantLock lock = lockFor(id);
         lock.lock();
         try {
-            // 检查交易是否存在，如果不存在则抛出异常
-            if (!transactionRepository.existsById(id)) {
+            Transaction previous = transactionRepository.deleteByIdIfVersion(id, expectedVersion);
+            if (previous == null) {
                 throw new TransactionNotFoundException((String.format("无法删除，交易未找到，ID: %s", id)));
             }
-            // 删除交易
-            transactionRepository.deleteById(id);
+            checkVersion(id, previous, expectedVersion);
+            missingIds.put(id, Boolean.TRUE);
+            transactionCache.evict(id);
+            modificationCount.incrementAndGet();
+            changeFeed.publish(TransactionChangeType.DELETED, id, previous.getVersion(), null);
         } finally {
             lock.unlock();
         }
     }
+
+    @Override
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    /**
+     * 根据ID查找交易，使用以 long 为主键的仓库时只解码一次ID
+     * @param id 交易ID
+     * @return 交易，不存在时返回 null
+     */
+    private Transaction findById(String id) {
+        return longKeyRepository != null
+                ? longKeyRepository.findById(LongKeyTransactionRepository.key(id))
+                : transactionRepository.findById(id);
+    }
+
+    /**
+     * 交易缓存未命中时从仓库加载交易，找不到时记入负缓存
+     * @param id 交易ID
+     * @return 交易，不存在时返回 null
+     */
+    private TransactionResponse loadTransaction(String id) {
+        Transaction transaction = findById(id);
+        if (transaction == null) {
+            missingIds.put(id, Boolean.TRUE);
+            return null;
+        }
+        return TransactionResponse.fromEntity(transaction);
+    }
+
+    /**
+     * 检查交易的当前版本是否等于期望版本，不一致时抛出 VersionConflictException
+     * @param id 交易ID
+     * @param transaction 当前的交易
+     * @param expectedVersion 期望的版本号
+     */
+    private void checkVersion(String id, Transaction transaction, long expectedVersion) {
+        if (transaction.getVersion() != expectedVersion) {
+            throw new VersionConflictException(String.format("交易版本已变化，ID: %s，当前版本: %d", id, transaction.getVersion()));
+        }
+    }
+
+    /**
+     * 校验批量创建中的单条交易
+     * @param item 单条交易
+     * @return 校验失败的原因，校验通过时返回 null
+     */
+    private static String validate(BatchTransactionItem item) {
+        if (item == null) {
+            return "交易不能为空";
+        }
+        Set<ConstraintViolation<BatchTransactionItem>> violations = VALIDATOR.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        // 与全局异常处理中请求参数校验失败的格式一致
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * 根据交易ID选择分段锁
+     * @param id 交易ID
+     * @return 该ID对应的锁
+     */
+    ReentrantLock lockFor(String id) {
+        int hash = id.hashCode();
+        // 混合高位，避免只在低位不同的ID集中到少数分段
+        hash ^= hash >>> 16;
+        return locks[hash & (LOCK_STRIPES - 1)];
+    }
 }
@@ -0,0 +1,53 @@
+package com.bank.transaction.util;
+
+import com.bank.transaction.common.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 游标分页（keyset 分页）中游标的编码和解码。
+ * 游标记录上一页最后一条交易的 (日期, ID)，对客户端来说是不透明的字符串。
+ */
+public class ScrollCursorUtil {
+
+    // 日期与ID之间的分隔符，ISO 日期格式中不会出现该字符
+    private static final char SEPARATOR = '|';
+
+    // 解码后的游标位置
+    public record Cursor(LocalDateTime date, String id) {
+    }
+
+    /**
+     * 将交易的 (日期, ID) 编码为游标
+     * @param date 交易日期，可以为 null
+     * @param id 交易ID
+     * @return URL 安全的 Base64 游标字符串
+     */
+    public static String encode(LocalDateTime date, String id) {
+        String raw = (date == null ? "" : date.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     * @param cursor 游标字符串
+     * @return 游标位置
+     */
+    public static Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.indexOf(SEPARATOR);
+            if (separatorIndex < 0 || separatorIndex == raw.length() - 1) {
+                throw new InvalidRequestException("无效的游标！");
+            }
+            String datePart = raw.substring(0, separatorIndex);
+            LocalDateTime date = datePart.isEmpty() ? null : LocalDateTime.parse(datePart);
+            return new Cursor(date, raw.substring(separatorIndex + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidRequestException("无效的游标！");
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.bank.transaction.util;
+
+import com.bank.transaction.common.DuplicateRequestException;
+import com.bank.transaction.common.InvalidRequestException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 无状态的签名防重token。
+ * token 由签发时间（秒）、随机数和 HMAC-SHA256 签名组成，校验签名和过期时间只需要计算，
+ * 不需要查询服务端存储，持有相同密钥的多个副本都能校验彼此签发的token。
+ * 服务端只记录有效期内已被消费的随机数，按签发时间所在的时间窗口分代保存，
+ * 窗口内的token全部过期后整代丢弃，内存只与有效期内的消费量有关。
+ */
+public class SignedTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    // 签发时间(4) + 随机数(8)
+    private static final int PAYLOAD_LENGTH = 12;
+    // 截断后的签名长度
+    private static final int MAC_LENGTH = 16;
+    // 允许的副本间时钟偏差（秒）
+    private static final long MAX_CLOCK_SKEW = 5;
+    private static final int STRIPES = 16;
+    // 时间窗口的代数：当前窗口、上一个窗口，以及时钟偏差导致提前出现的下一个窗口
+    private static final int GENERATIONS = 3;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Mac prototype;
+    private final long expireSeconds;
+    private final NonceSet[] stripes = new NonceSet[STRIPES];
+
+    /**
+     * @param secret HMAC 密钥，所有副本必须一致
+     * @param expireSeconds token 有效期（秒）
+     */
+    public SignedTokens(byte[] secret, long expireSeconds) {
+        if (secret == null || secret.length == 0) {
+            throw new IllegalArgumentException("签名密钥不能为空");
+        }
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("无法初始化 " + ALGORITHM, e);
+        }
+        this.expireSeconds = expireSeconds;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new NonceSet();
+        }
+    }
+
+    /**
+     * 签发token
+     * @param nowSecond 当前 epoch 秒
+     * @return token
+     */
+    public String issue(long nowSecond) {
+        ByteBuffer buffer = ByteBuffer.allocate(PAYLOAD_LENGTH + MAC_LENGTH);
+        buffer.putInt((int) nowSecond);
+        buffer.putLong(ThreadLocalRandom.current().nextLong());
+        buffer.put(sign(buffer.array()), 0, MAC_LENGTH);
+        return ENCODER.encodeToString(buffer.array());
+    }
+
+    /**
+     * 校验token并标记为已使用，同一个token只有第一次调用会成功
+     * @param token token
+     * @param nowSecond 当前 epoch 秒
+     */
+    public void validateAndConsume(String token, long nowSecond) {
+        byte[] bytes = decode(token);
+        if (bytes == null || !MessageDigest.isEqual(Arrays.copyOf(sign(bytes), MAC_LENGTH),
+                Arrays.copyOfRange(bytes, PAYLOAD_LENGTH, PAYLOAD_LENGTH + MAC_LENGTH))) {
+            throw new InvalidRequestException("无效的 token！");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long issuedAt = Integer.toUnsignedLong(buffer.getInt());
+        long nonce = buffer.getLong();
+        if (issuedAt > nowSecond + MAX_CLOCK_SKEW) {
+            throw new InvalidRequestException("无效的 token！");
+        }
+        if (nowSecond > issuedAt + expireSeconds) {
+            throw new InvalidRequestException("token 已过期！");
+        }
+        NonceSet stripe = stripes[(int) (mix(nonce) >>> 60)];
+        if (!stripe.add(issuedAt / expireSeconds, nonce)) {
+            throw new DuplicateRequestException("重复请求！");
+        }
+    }
+
+    /**
+     * 当前记录的已消费随机数数量
+     */
+    public int consumedCount() {
+        int count = 0;
+        for (NonceSet stripe : stripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    private static byte[] decode(String token) {
+        if (token.length() != 38) {
+            return null;
+        }
+        try {
+            return DECODER.decode(token);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] bytes) {
+        try {
+            // Mac 不是线程安全的，每次从已初始化的原型复制一份
+            Mac mac = (Mac) prototype.clone();
+            mac.update(bytes, 0, PAYLOAD_LENGTH);
+            return mac.doFinal();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long mix(long key) {
+        // MurmurHash3 的 64 位混合函数
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb3fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * 已消费随机数的集合，按签发时间窗口分代，每代是一个开放寻址的 long 哈希集合
+     */
+    private static final class NonceSet {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] windows = new long[GENERATIONS];
+        private final long[][] tables = new long[GENERATIONS][];
+        private final int[] counts = new int[GENERATIONS];
+
+        NonceSet() {
+            Arrays.fill(windows, Long.MIN_VALUE);
+        }
+
+        /**
+         * @return 随机数之前未出现过时返回 true
+         */
+        boolean add(long window, long nonce) {
+            lock.lock();
+            try {
+                int generation = (int) Math.floorMod(window, GENERATIONS);
+                if (windows[generation] > window) {
+                    // 更新的窗口已经复用了这一代，说明token早已过期，不可能走到这里
+                    throw new InvalidRequestException("token 已过期！");
+                }
+                if (windows[generation] < window) {
+                    // 这一代记录的token已经全部过期，整代丢弃
+                    windows[generation] = window;
+                    tables[generation] = new long[INITIAL_CAPACITY];
+                    counts[generation] = 0;
+                }
+                if (counts[generation] * 2 >= tables[generation].length) {
+                    tables[generation] = rehash(tables[generation]);
+                }
+                // 0 表示空槽，随机数为 0 时换成 1 保存
+                if (!insert(tables[generation], nonce == 0 ? 1 : nonce)) {
+                    return false;
+                }
+                counts[generation]++;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                int size = 0;
+                for (int count : counts) {
+                    size += count;
+                }
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private static boolean insert(long[] table, long value) {
+            int mask = table.length - 1;
+            for (int slot = (int) mix(value) & mask; ; slot = (slot + 1) & mask) {
+                if (table[slot] == value) {
+                    return false;
+                }
+                if (table[slot] == 0) {
+                    table[slot] = value;
+                    return true;
+                }
+            }
+        }
+
+        private static long[] rehash(long[] table) {
+            long[] resized = new long[table.length * 2];
+            for (long value : table) {
+                if (value != 0) {
+                    insert(resized, value);
+                }
+            }
+            return resized;
+        }
+    }
+}
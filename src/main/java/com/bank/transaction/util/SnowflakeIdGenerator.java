@@ -0,0 +1,155 @@
+package com.bank.transaction.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 64 位趋势递增的交易ID生成器（Snowflake 风格）。
+ * 结构：1 位符号位(0) | 41 位毫秒时间戳（自 2025-01-01 起） | 10 位节点ID | 12 位序号。
+ * 时间戳和序号合并保存在一个 AtomicLong 中，通过 CAS 分配，不加锁也不创建对象。
+ * 时钟回拨时沿用上一次的时间戳继续递增序号，序号用完后进位到时间戳，保证同一节点生成的ID严格递增、不重复。
+ */
+public class SnowflakeIdGenerator {
+
+    // 2025-01-01T00:00:00Z
+    public static final long EPOCH_MILLIS = 1_735_689_600_000L;
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+    // Crockford Base32 字符串形式的长度
+    public static final int STRING_LENGTH = 13;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    // 标准形式字符到数值的查找表，非法字符为 -1
+    private static final byte[] DIGITS = new byte[128];
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            DIGITS[ALPHABET.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // 最近一次分配的 时间戳 << 12 | 序号
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * @param nodeId 节点ID，0 到 1023，多个副本必须不同
+     */
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点ID必须在 0 到 " + MAX_NODE_ID + " 之间: " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * 生成下一个ID
+     * @return 64 位ID
+     */
+    public long nextId() {
+        long now = clock.getAsLong() - EPOCH_MILLIS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            // 时钟回拨或同一毫秒内序号用完时，在上一次的基础上加一，溢出的序号进位到时间戳
+            next = Math.max(previous + 1, now << SEQUENCE_BITS);
+        } while (!last.compareAndSet(previous, next));
+        return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeId << SEQUENCE_BITS | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * 生成下一个ID的字符串形式
+     * @return 13 位 Crockford Base32 字符串
+     */
+    public String nextIdString() {
+        return toString(nextId());
+    }
+
+    /**
+     * 把ID编码为定长 13 位的 Crockford Base32 字符串，字符串的字典序与数值大小一致
+     * @param id ID
+     * @return 字符串形式
+     */
+    public static String toString(long id) {
+        char[] chars = new char[STRING_LENGTH];
+        for (int i = STRING_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (id & 31));
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 解析 Crockford Base32 字符串形式的ID，不区分大小写，I/L 视为 1，O 视为 0
+     * @param value 字符串形式
+     * @return ID
+     */
+    public static long parse(String value) {
+        if (value.length() != STRING_LENGTH) {
+            throw new IllegalArgumentException("ID 长度必须为 " + STRING_LENGTH + ": " + value);
+        }
+        long id = 0;
+        for (int i = 0; i < STRING_LENGTH; i++) {
+            int digit = digit(value.charAt(i));
+            // 第一位只能使用低 4 位
+            if (digit < 0 || (i == 0 && digit > 15)) {
+                throw new IllegalArgumentException("非法的 ID: " + value);
+            }
+            id = id << 5 | digit;
+        }
+        return id;
+    }
+
+    /**
+     * 严格解析 {@link #toString(long)} 生成的字符串：只接受大写且不含别名的标准形式，
+     * 保证每个ID只有一种字符串形式，用于按 long 存储时与字符串一一对应。
+     * 输入来自请求路径，非法时返回 -1 而不抛出异常。
+     * @param value 字符串形式
+     * @return ID，不是标准形式时返回 -1
+     */
+    public static long decode(String value) {
+        if (value == null || value.length() != STRING_LENGTH) {
+            return -1;
+        }
+        // 第一位只能使用低 4 位；非法字符的 -1 会让 invalid 变为负数，循环结束后统一判断以减少分支
+        int first = DIGITS[value.charAt(0) & 0x7f] | -(value.charAt(0) >>> 7);
+        int invalid = first | (15 - first);
+        long id = first;
+        for (int i = 1; i < STRING_LENGTH; i++) {
+            char c = value.charAt(i);
+            int digit = DIGITS[c & 0x7f] | -(c >>> 7);
+            invalid |= digit;
+            id = id << 5 | digit;
+        }
+        return invalid < 0 ? -1 : id;
+    }
+
+    /**
+     * 从ID中取出生成时间
+     * @param id ID
+     * @return epoch 毫秒
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    private static int digit(char c) {
+        char upper = Character.toUpperCase(c);
+        return switch (upper) {
+            case 'O' -> 0;
+            case 'I', 'L' -> 1;
+            default -> ALPHABET.indexOf(upper);
+        };
+    }
+}
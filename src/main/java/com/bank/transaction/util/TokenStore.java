@@ -0,0 +1,485 @@
+package com.bank.transaction.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 防重token的紧凑存储。
+ * 每个token只占两个 long（UUID 的高低 64 位）、一个 int（创建时间，精确到秒）和一个状态字节，
+ * 不再为每个token保存 String 和 LocalDateTime 对象。
+ * 数据按 token 哈希分到多个分片，每个分片一把锁，内部是开放寻址哈希表。
+ * 过期由后台线程通过时间轮清理：token 按创建秒放入对应的槽，每秒只处理刚好到期的那个槽，
+ * 每个token在过期时只被处理一次，均摊 O(1)。
+ */
+public class TokenStore {
+
+    private static final int SHARDS = 64;
+
+    private static final byte EMPTY = 0;
+    private static final byte ISSUED = 1;
+    private static final byte USED = 2;
+
+    /**
+     * 消费token的结果
+     */
+    public enum ConsumeResult {
+        // 消费成功
+        CONSUMED,
+        // token不存在
+        NOT_FOUND,
+        // token已过期，已被删除
+        EXPIRED,
+        // token已被使用
+        ALREADY_USED
+    }
+
+    // 测试中会 mock LocalDateTime 的静态方法，这里只通过实例方法换算时间
+    private static final LocalDateTime EPOCH = LocalDateTime.MIN.withYear(1970);
+
+    private final long expireSeconds;
+    private final Shard[] shards = new Shard[SHARDS];
+    private final ScheduledExecutorService sweeper;
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    // 上一次清理到的秒，第一次清理时处理整圈时间轮
+    private long sweptSecond = Long.MIN_VALUE;
+
+    /**
+     * @param expireSeconds token 有效期（秒）
+     * @param background 是否启动后台清理线程，关闭时由调用方通过 {@link #expire(long)} 驱动
+     */
+    public TokenStore(long expireSeconds, boolean background) {
+        this.expireSeconds = expireSeconds;
+        // 槽数至少覆盖一个完整有效期，保证同一个槽里的token要么已过期，要么是被重新放入的旧数据
+        int slots = Integer.highestOneBit((int) expireSeconds + 1) << 1;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(slots);
+        }
+        if (background) {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "token-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleAtFixedRate(() -> expire(currentSecond()), 1, 1, TimeUnit.SECONDS);
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    /**
+     * 生成并保存一个新的未使用token
+     * @param createdAt 创建时间
+     * @return token
+     */
+    public String issue(LocalDateTime createdAt) {
+        UUID uuid = UUID.randomUUID();
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        shard(msb, lsb).put(msb, lsb, toSecond(createdAt), ISSUED);
+        return uuid.toString();
+    }
+
+    /**
+     * 保存token信息，已存在时覆盖
+     * @param token token
+     * @param tokenInfo token信息
+     */
+    public void put(String token, TokenUtil.TokenInfo tokenInfo) {
+        long[] key = key(token);
+        shard(key[0], key[1]).put(key[0], key[1], toSecond(tokenInfo.createdAt()), tokenInfo.used() ? USED : ISSUED);
+    }
+
+    /**
+     * 查询token信息
+     * @param token token
+     * @return token信息，不存在时返回null
+     */
+    public TokenUtil.TokenInfo get(String token) {
+        long[] key = key(token);
+        return shard(key[0], key[1]).get(key[0], key[1]);
+    }
+
+    /**
+     * 校验并消费token。查找、过期判断和状态从未使用变为已使用在分片锁内一次完成，
+     * 同一个token并发消费时只有一个调用返回 CONSUMED，且不创建任何对象。
+     * @param token token
+     * @param now 当前时间
+     * @return 消费结果
+     */
+    public ConsumeResult consume(String token, LocalDateTime now) {
+        long[] key = key(token);
+        return shard(key[0], key[1]).consume(key[0], key[1], toSecond(now), expireSeconds);
+    }
+
+    public boolean containsKey(String token) {
+        return get(token) != null;
+    }
+
+    /**
+     * 删除token
+     * @param token token
+     * @return 被删除的token信息，不存在时返回null
+     */
+    public TokenUtil.TokenInfo remove(String token) {
+        long[] key = key(token);
+        return shard(key[0], key[1]).remove(key[0], key[1]);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * 各分片哈希表的槽数之和
+     */
+    int capacity() {
+        int capacity = 0;
+        for (Shard shard : shards) {
+            capacity += shard.capacity();
+        }
+        return capacity;
+    }
+
+    /**
+     * 清理到指定时间为止已过期的token。后台线程每秒调用一次。
+     * @param nowSecond 当前时间（秒）
+     */
+    public void expire(long nowSecond) {
+        sweepLock.lock();
+        try {
+            // 创建时间不晚于 dueSecond 的token都已过期
+            long dueSecond = nowSecond - expireSeconds - 1;
+            // 停顿超过一整圈时，每个槽也只需要处理一次
+            long from = Math.max(sweptSecond + 1, dueSecond - shards[0].slotCount() + 1);
+            for (long second = from; second <= dueSecond; second++) {
+                for (Shard shard : shards) {
+                    shard.sweep(second, dueSecond);
+                }
+            }
+            sweptSecond = Math.max(sweptSecond, dueSecond);
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * 停止后台清理线程
+     */
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * 当前时间（秒），与 {@link TokenUtil} 一样以 LocalDateTime.now() 为准
+     */
+    static long currentSecond() {
+        return toSecond(LocalDateTime.now());
+    }
+
+    private static long toSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private Shard shard(long msb, long lsb) {
+        return shards[hash(msb, lsb) >>> 26];
+    }
+
+    /**
+     * 把token转换为 128 位的键。
+     * 小写的标准 UUID 格式（即 {@link #issue} 返回的格式）按原值解析，
+     * 其他字符串按 MD5 摘要生成第 3 版 UUID，与随机生成的第 4 版 UUID 不会冲突。
+     */
+    private static long[] key(String token) {
+        if (token.length() == 36) {
+            long msb = 0;
+            long lsb = 0;
+            boolean canonical = true;
+            int digits = 0;
+            for (int i = 0; i < 36 && canonical; i++) {
+                char c = token.charAt(i);
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    canonical = c == '-';
+                    continue;
+                }
+                int digit = c >= '0' && c <= '9' ? c - '0' : c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+                canonical = digit >= 0;
+                if (digits++ < 16) {
+                    msb = msb << 4 | digit;
+                } else {
+                    lsb = lsb << 4 | digit;
+                }
+            }
+            if (canonical) {
+                return new long[]{msb, lsb};
+            }
+        }
+        UUID uuid = UUID.nameUUIDFromBytes(token.getBytes(StandardCharsets.UTF_8));
+        return new long[]{uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()};
+    }
+
+    private static int hash(long msb, long lsb) {
+        // MurmurHash3 的 64 位混合函数
+        long h = msb * 31 + lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb3fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * 一个分片：开放寻址哈希表加上按创建秒划分的时间轮
+     */
+    private static final class Shard {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] msbs = new long[INITIAL_CAPACITY];
+        private long[] lsbs = new long[INITIAL_CAPACITY];
+        // 创建时间，按无符号 epoch 秒保存
+        private int[] seconds = new int[INITIAL_CAPACITY];
+        private byte[] states = new byte[INITIAL_CAPACITY];
+        private int count;
+        // 时间轮：每个槽是按 (msb, lsb) 成对保存的token键
+        private final long[][] wheel;
+        private final int[] wheelSizes;
+
+        Shard(int slots) {
+            this.wheel = new long[slots][];
+            this.wheelSizes = new int[slots];
+        }
+
+        int slotCount() {
+            return wheel.length;
+        }
+
+        int capacity() {
+            lock.lock();
+            try {
+                return states.length;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(long msb, long lsb, long second, byte state) {
+            lock.lock();
+            try {
+                // 负载因子超过 0.75 时扩容
+                if (count * 4 >= states.length * 3) {
+                    rehash(states.length * 2);
+                }
+                int slot = find(msb, lsb);
+                if (states[slot] == EMPTY) {
+                    count++;
+                    msbs[slot] = msb;
+                    lsbs[slot] = lsb;
+                }
+                seconds[slot] = (int) second;
+                states[slot] = state;
+                schedule(msb, lsb, second);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        TokenUtil.TokenInfo get(long msb, long lsb) {
+            lock.lock();
+            try {
+                int slot = find(msb, lsb);
+                return states[slot] == EMPTY ? null : info(slot);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        ConsumeResult consume(long msb, long lsb, long nowSecond, long expireSeconds) {
+            lock.lock();
+            try {
+                int slot = find(msb, lsb);
+                if (states[slot] == EMPTY) {
+                    return ConsumeResult.NOT_FOUND;
+                }
+                if (nowSecond > Integer.toUnsignedLong(seconds[slot]) + expireSeconds) {
+                    delete(slot);
+                    return ConsumeResult.EXPIRED;
+                }
+                if (states[slot] == USED) {
+                    return ConsumeResult.ALREADY_USED;
+                }
+                states[slot] = USED;
+                return ConsumeResult.CONSUMED;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        TokenUtil.TokenInfo remove(long msb, long lsb) {
+            lock.lock();
+            try {
+                int slot = find(msb, lsb);
+                if (states[slot] == EMPTY) {
+                    return null;
+                }
+                TokenUtil.TokenInfo previous = info(slot);
+                delete(slot);
+                return previous;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return count;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                msbs = new long[INITIAL_CAPACITY];
+                lsbs = new long[INITIAL_CAPACITY];
+                seconds = new int[INITIAL_CAPACITY];
+                states = new byte[INITIAL_CAPACITY];
+                count = 0;
+                Arrays.fill(wheel, null);
+                Arrays.fill(wheelSizes, 0);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 处理 second 对应的槽：删除创建时间不晚于 dueSecond 的token，其余的留在槽里
+         */
+        void sweep(long second, long dueSecond) {
+            lock.lock();
+            try {
+                int index = (int) (second & (wheel.length - 1));
+                long[] keys = wheel[index];
+                int size = wheelSizes[index];
+                if (size == 0) {
+                    return;
+                }
+                int kept = 0;
+                for (int i = 0; i < size; i += 2) {
+                    int slot = find(keys[i], keys[i + 1]);
+                    if (states[slot] == EMPTY) {
+                        continue;
+                    }
+                    long created = Integer.toUnsignedLong(seconds[slot]);
+                    if (created <= dueSecond) {
+                        delete(slot);
+                    } else if ((created & (wheel.length - 1)) == index) {
+                        // 创建时间晚于当前时间的token，留到下一圈再处理
+                        keys[kept++] = keys[i];
+                        keys[kept++] = keys[i + 1];
+                    }
+                }
+                wheelSizes[index] = kept;
+                // 突发流量过后释放多余的空间
+                if (kept == 0 && keys.length > 64) {
+                    wheel[index] = null;
+                }
+                if (states.length > INITIAL_CAPACITY && count * 8 < states.length) {
+                    rehash(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, count)) << 2));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void schedule(long msb, long lsb, long second) {
+            int index = (int) (second & (wheel.length - 1));
+            long[] keys = wheel[index];
+            int size = wheelSizes[index];
+            if (keys == null) {
+                keys = wheel[index] = new long[16];
+            } else if (size == keys.length) {
+                keys = wheel[index] = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size] = msb;
+            keys[size + 1] = lsb;
+            wheelSizes[index] = size + 2;
+        }
+
+        private TokenUtil.TokenInfo info(int slot) {
+            LocalDateTime createdAt = EPOCH.plusSeconds(Integer.toUnsignedLong(seconds[slot]));
+            return new TokenUtil.TokenInfo(createdAt, states[slot] == USED);
+        }
+
+        /**
+         * 查找键所在的槽，不存在时返回探测链末尾的空槽
+         */
+        private int find(long msb, long lsb) {
+            int mask = states.length - 1;
+            int slot = hash(msb, lsb) & mask;
+            while (states[slot] != EMPTY && (msbs[slot] != msb || lsbs[slot] != lsb)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void delete(int slot) {
+            count--;
+            int mask = states.length - 1;
+            // 把后续同一探测链上的元素前移，保证查找不会提前遇到空槽
+            int hole = slot;
+            for (int next = (hole + 1) & mask; states[next] != EMPTY; next = (next + 1) & mask) {
+                int home = hash(msbs[next], lsbs[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    msbs[hole] = msbs[next];
+                    lsbs[hole] = lsbs[next];
+                    seconds[hole] = seconds[next];
+                    states[hole] = states[next];
+                    hole = next;
+                }
+            }
+            states[hole] = EMPTY;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldMsbs = msbs;
+            long[] oldLsbs = lsbs;
+            int[] oldSeconds = seconds;
+            byte[] oldStates = states;
+            msbs = new long[capacity];
+            lsbs = new long[capacity];
+            seconds = new int[capacity];
+            states = new byte[capacity];
+            for (int i = 0; i < oldStates.length; i++) {
+                if (oldStates[i] != EMPTY) {
+                    int slot = find(oldMsbs[i], oldLsbs[i]);
+                    msbs[slot] = oldMsbs[i];
+                    lsbs[slot] = oldLsbs[i];
+                    seconds[slot] = oldSeconds[i];
+                    states[slot] = oldStates[i];
+                }
+            }
+        }
+    }
+}
@@ -4,8 +4,6 @@ import com.bank.transaction.common.DuplicateRequestException;
 import com.bank.transaction.common.InvalidRequestException;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 防重和防非法请求token的生成和校验
@@ -15,12 +13,30 @@ public class TokenUtil {
     // 用于记录token相关信息
     public record TokenInfo(LocalDateTime createdAt,Boolean used) {
     }
-    // 用于存储token信息
-    public static final ConcurrentHashMap<String, TokenInfo> tokenStore = new ConcurrentHashMap<>();
-
     // 过期时间，这里设置为 50 秒
     private static final long EXPIRE_TIME = 50;
 
+    // 用于存储token信息，过期的token由后台线程按时间轮清理
+    public static final TokenStore tokenStore = new TokenStore(EXPIRE_TIME, true);
+
+    // 不为 null 时使用无状态的签名token，不再读写 tokenStore
+    private static volatile SignedTokens signedTokens;
+
+    /**
+     * 切换token模式
+     * @param tokens 签名token的签发和校验器，为 null 时使用 tokenStore
+     */
+    public static void useSignedTokens(SignedTokens tokens) {
+        signedTokens = tokens;
+    }
+
+    /**
+     * 签名token的有效期（秒）
+     */
+    public static long expireSeconds() {
+        return EXPIRE_TIME;
+    }
+
     /**
      * 校验防重token是否有效，有效则标记为已使用
      * @param token 防重token
@@ -31,23 +47,23 @@ public class TokenUtil {
         if(token == null){
             throw new InvalidRequestException("非法请求！");
         }
-        TokenInfo tokenInfo = tokenStore.get(token);
-        // 非法请求
-        if(tokenInfo == null){
-            throw new InvalidRequestException("无效的 token！");
-        }
-        // 判断token是否超时过期
-        LocalDateTime expireTime = tokenInfo.createdAt().plusSeconds(EXPIRE_TIME);
-        LocalDateTime now = LocalDateTime.now();
-        if(now.isAfter(expireTime)){
-            tokenStore.remove(token);
-            throw new InvalidRequestException("token 已过期！");
+        SignedTokens tokens = signedTokens;
+        if (tokens != null) {
+            // 签名token跨副本校验，使用与时区无关的 epoch 秒
+            tokens.validateAndConsume(token, System.currentTimeMillis() / 1000);
+            return;
         }
-        // 判断是否已使用
-        if(tokenInfo.used()){
-            throw new DuplicateRequestException("重复请求！");
+        // 查找、过期判断和标记为已使用是一次原子操作，并发提交同一个token时只有一个请求成功
+        switch (tokenStore.consume(token, LocalDateTime.now())) {
+            // 非法请求
+            case NOT_FOUND -> throw new InvalidRequestException("无效的 token！");
+            // token超时过期，已从 tokenStore 中移除
+            case EXPIRED -> throw new InvalidRequestException("token 已过期！");
+            // 已使用
+            case ALREADY_USED -> throw new DuplicateRequestException("重复请求！");
+            case CONSUMED -> {
+            }
         }
-        tokenStore.put(token, new TokenInfo(tokenInfo.createdAt(), true));
     }
 
     /**
@@ -55,9 +71,10 @@ public class TokenUtil {
      * @return 防重token
      */
     public static String generateToken() {
-        String token = UUID.randomUUID().toString();
-        TokenInfo tokenInfo = new TokenInfo(LocalDateTime.now(), false);
-        tokenStore.put(token, tokenInfo);
-        return token;
+        SignedTokens tokens = signedTokens;
+        if (tokens != null) {
+            return tokens.issue(System.currentTimeMillis() / 1000);
+        }
+        return tokenStore.issue(LocalDateTime.now());
     }
 }
@@ -1,8 +1,10 @@
 package com.bank.transaction.util;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TransactionIdGenerateUtil {
 
@@ -12,15 +14,93 @@ public class TransactionIdGenerateUtil {
     // 原子计数器用于避免同一毫秒内重复
     private static final AtomicInteger counter = new AtomicInteger(0);
 
+    // 批量生成一次以及每秒最多的数量，受批量流水号中 5 位序号的限制
+    private static final int MAX_BATCH_COUNT = 100_000;
+
+    // 批量流水号状态中序号所占的位数，高位为流水号使用的秒
+    private static final int BATCH_SEQUENCE_BITS = 17;
+
+    // 批量生成的状态：高位为最近一次批量使用的秒（本地时间），低 17 位为该秒已分配的序号数，通过 CAS 一起更新。
+    // 与单个生成的序号分开，不会因批量预留大段序号而溢出
+    private static final AtomicLong batchState = new AtomicLong(0);
+
+    // 不为 null 时生成 Snowflake 风格的ID
+    private static volatile SnowflakeIdGenerator snowflake;
+
+    /**
+     * 切换ID格式
+     * @param generator Snowflake ID 生成器，为 null 时使用带日期的流水号
+     */
+    public static void useSnowflake(SnowflakeIdGenerator generator) {
+        snowflake = generator;
+    }
+
     /**
      * 生成带日期的交易流水号
-     * 格式：{日期时间}{6位随机数}{3位递增序号}
+     * 格式：{日期时间}{6位随机数}{3位递增序号}；使用 Snowflake 时为 13 位 Crockford Base32 字符串
      */
     public static String generateTransactionId() {
+        SnowflakeIdGenerator generator = snowflake;
+        if (generator != null) {
+            return generator.nextIdString();
+        }
         String timestamp = LocalDateTime.now().format(formatter);
         int randomPart = (int) (Math.random() * 900) + 100; // 生成三位随机整数
-        int sequence = counter.getAndIncrement() % 1000; // 循环使用三位序号
+        int sequence = Math.floorMod(counter.getAndIncrement(), 1000); // 循环使用三位序号，计数器溢出后仍为非负数
 
         return timestamp + randomPart + String.format("%03d", sequence);
     }
+
+    /**
+     * 批量生成交易流水号，只格式化一次时间并一次性预留一段序号。
+     * 格式：{日期时间}0{5位连续序号}，总长度与单个生成的流水号一致。
+     * 单个生成的流水号第 15 位是 100~999 的随机数的首位，不会是 0，因此批量生成的流水号不会与单个生成的重复。
+     * 序号每秒从 0 开始分配，同一秒内最多 100000 个，超过时拒绝整批而不是循环使用序号，
+     * 同一进程内批量生成的流水号不会重复；时钟回拨时沿用上一次批量的时间继续分配。
+     * @param count 生成的数量
+     * @return 交易流水号数组
+     * @throws IllegalStateException 当前秒内剩余的序号不足 count 个
+     */
+    public static String[] generateTransactionIds(int count) {
+        if (count < 0 || count > MAX_BATCH_COUNT) {
+            throw new IllegalArgumentException("批量生成的数量必须在 0 到 " + MAX_BATCH_COUNT + " 之间: " + count);
+        }
+        SnowflakeIdGenerator generator = snowflake;
+        if (generator != null) {
+            String[] ids = new String[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = generator.nextIdString();
+            }
+            return ids;
+        }
+        long nowSecond = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+        long second;
+        long start;
+        while (true) {
+            long state = batchState.get();
+            long stateSecond = state >>> BATCH_SEQUENCE_BITS;
+            second = Math.max(nowSecond, stateSecond);
+            start = second == stateSecond ? state & ((1L << BATCH_SEQUENCE_BITS) - 1) : 0;
+            if (start + count > MAX_BATCH_COUNT) {
+                throw new IllegalStateException(String.format("每秒最多批量生成 %d 个交易流水号，当前秒剩余 %d 个，请稍后重试",
+                        MAX_BATCH_COUNT, MAX_BATCH_COUNT - start));
+            }
+            if (batchState.compareAndSet(state, second << BATCH_SEQUENCE_BITS | (start + count))) {
+                break;
+            }
+        }
+        String timestamp = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC).format(formatter);
+        String[] ids = new String[count];
+        StringBuilder builder = new StringBuilder(timestamp.length() + 6);
+        for (int i = 0; i < count; i++) {
+            builder.setLength(0);
+            String sequence = Long.toString(start + i);
+            builder.append(timestamp).append('0');
+            for (int pad = sequence.length(); pad < 5; pad++) {
+                builder.append('0');
+            }
+            ids[i] = builder.append(sequence).toString();
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,29 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.util.SnowflakeIdGenerator;
+import com.bank.transaction.util.TransactionIdGenerateUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorConfigTest {
+
+    @AfterEach
+    void tearDown() {
+        TransactionIdGenerateUtil.useSnowflake(null);
+    }
+
+    /**
+     * TC01: 测试 longkey 仓库与非 Snowflake 的ID格式同时配置时启动失败
+     */
+    @Test
+    void testLongKeyRepository_WithTimestampGenerator_ShouldFail() {
+        assertThrows(IllegalStateException.class, () -> new IdGeneratorConfig("timestamp", -1, "longkey"));
+
+        new IdGeneratorConfig("snowflake", 3, "longkey");
+        assertEquals(SnowflakeIdGenerator.STRING_LENGTH, TransactionIdGenerateUtil.generateTransactionId().length());
+        new IdGeneratorConfig("timestamp", -1, "memory");
+        assertEquals(20, TransactionIdGenerateUtil.generateTransactionId().length());
+    }
+}
@@ -0,0 +1,27 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.util.TokenUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenConfigTest {
+
+    @AfterEach
+    void tearDown() {
+        TokenUtil.useSignedTokens(null);
+    }
+
+    /**
+     * TC01: 测试 signed 模式下未配置密钥时启动失败，只有显式允许时才使用随机密钥
+     */
+    @Test
+    void testSignedMode_WithoutSecret_ShouldFailUnlessAllowed() {
+        assertThrows(IllegalStateException.class, () -> new TokenConfig("signed", " ", false));
+
+        new TokenConfig("signed", "", true);
+        assertDoesNotThrow(() -> TokenUtil.validateAndConsumeToken(TokenUtil.generateToken()));
+        new TokenConfig("store", "", false);
+    }
+}
@@ -0,0 +1,185 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.request.BatchCreateTransactionRequest;
+import com.bank.transaction.request.BatchTransactionItem;
+import com.bank.transaction.request.CreateTransactionRequest;
+import com.bank.transaction.response.TransactionBatchItemResult;
+import com.bank.transaction.response.TransactionBatchResponse;
+import com.bank.transaction.response.TransactionResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionBinaryHttpMessageConverterTest {
+
+    private final TransactionBinaryHttpMessageConverter converter = new TransactionBinaryHttpMessageConverter();
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static TransactionResponse response(int i) {
+        return TransactionResponse.builder()
+                .id("1JH5Q8ZP0A" + i)
+                .accountId("ACC" + (i % 100))
+                .amount(new BigDecimal("1234.56").add(BigDecimal.valueOf(i)))
+                .type(i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL)
+                .date(LocalDateTime.of(2025, 1, 2, 3, 4, 5, 123_456_789).plusSeconds(i))
+                .description("工资入账 " + i)
+                .version(i % 3)
+                .build();
+    }
+
+    /**
+     * TC01: 测试交易响应、分页和批量报文编码后解码得到相同的内容，包括 null、超出 long 的金额和非 ASCII 字符
+     */
+    @Test
+    void testRoundTrip() {
+        TransactionResponse big = TransactionResponse.builder()
+                .id("TX1")
+                .amount(new BigDecimal("123456789012345678901234567890.12"))
+                .date(LocalDateTime.of(1960, 1, 1, 0, 0))
+                .build();
+        assertEquals(big, converter.decode(converter.encode(big), TransactionResponse.class));
+        assertEquals(response(7), converter.decode(converter.encode(response(7)), TransactionResponse.class));
+        assertEquals(new BigDecimal("-1E+3"), ((TransactionResponse) converter.decode(converter.encode(
+                TransactionResponse.builder().amount(new BigDecimal("-1E+3")).build()), TransactionResponse.class)).getAmount());
+
+        Page<TransactionResponse> page = new PageImpl<>(List.of(response(1), response(2)), PageRequest.of(3, 2), 100);
+        Page<?> decodedPage = (Page<?>) converter.decode(converter.encode(page), Page.class);
+        assertEquals(page.getContent(), decodedPage.getContent());
+        assertEquals(3, decodedPage.getNumber());
+        assertEquals(2, decodedPage.getSize());
+        assertEquals(100, decodedPage.getTotalElements());
+
+        TransactionBatchResponse batchResponse = TransactionBatchResponse.builder().created(1).failed(1).results(List.of(
+                TransactionBatchItemResult.builder().index(0).success(true).transaction(response(1)).build(),
+                TransactionBatchItemResult.builder().index(1).success(false).message("金额不能为空").build())).build();
+        assertEquals(batchResponse, converter.decode(converter.encode(batchResponse), TransactionBatchResponse.class));
+
+        CreateTransactionRequest createRequest = new CreateTransactionRequest("TOKEN", "ACC1", new BigDecimal("0.01"), TransactionType.DEPOSIT, "存款");
+        assertEquals(createRequest, converter.decode(converter.encode(createRequest), CreateTransactionRequest.class));
+        BatchCreateTransactionRequest batchRequest = new BatchCreateTransactionRequest("TOKEN", Arrays.asList(
+                new BatchTransactionItem("ACC1", new BigDecimal("1.00"), TransactionType.DEPOSIT, "存款"), null));
+        assertEquals(batchRequest, converter.decode(converter.encode(batchRequest), BatchCreateTransactionRequest.class));
+    }
+
+    /**
+     * TC02: 测试只在二进制媒体类型下写出支持的类型，分页只支持元素为 TransactionResponse 的 Page
+     */
+    @Test
+    void testCanWrite_SupportedTypesOnly() {
+        Type transactionPage = new ParameterizedTypeReference<Page<TransactionResponse>>() { }.getType();
+        Type stringPage = new ParameterizedTypeReference<Page<String>>() { }.getType();
+
+        assertTrue(converter.canWrite(transactionPage, PageImpl.class, TransactionBinaryHttpMessageConverter.TRANSACTION_BINARY));
+        assertFalse(converter.canWrite(stringPage, PageImpl.class, TransactionBinaryHttpMessageConverter.TRANSACTION_BINARY));
+        assertTrue(converter.canWrite(null, TransactionResponse.class, TransactionBinaryHttpMessageConverter.TRANSACTION_BINARY));
+        assertFalse(converter.canWrite(null, TransactionResponse.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(null, String.class, TransactionBinaryHttpMessageConverter.TRANSACTION_BINARY));
+    }
+
+    /**
+     * TC03: 测试截断、多余字节和未知格式版本的报文返回 HttpMessageNotReadableException
+     */
+    @Test
+    void testRead_MalformedMessage() {
+        byte[] data = converter.encode(response(1));
+        byte[] truncated = Arrays.copyOf(data, data.length - 1);
+        byte[] trailing = Arrays.copyOf(data, data.length + 1);
+        byte[] unknownVersion = data.clone();
+        unknownVersion[0] = 9;
+
+        for (byte[] malformed : List.of(truncated, trailing, unknownVersion)) {
+            assertThrows(HttpMessageNotReadableException.class,
+                    () -> converter.read(TransactionResponse.class, null, new MockHttpInputMessage(malformed)));
+        }
+    }
+
+    /**
+     * 基准测试：对比单笔 TransactionResponse 的 JSON 与二进制报文的大小和编码、解码耗时。
+     */
+    @Test
+    void testSizeAndCost_ComparedWithJson() throws Exception {
+        int count = 1_000;
+        int rounds = 100;
+        TransactionResponse[] responses = new TransactionResponse[count];
+        byte[][] json = new byte[count][];
+        byte[][] binary = new byte[count][];
+        long jsonSize = 0;
+        long binarySize = 0;
+        for (int i = 0; i < count; i++) {
+            responses[i] = response(i);
+            json[i] = objectMapper.writeValueAsBytes(responses[i]);
+            binary[i] = converter.encode(responses[i]);
+            jsonSize += json[i].length;
+            binarySize += binary[i].length;
+            assertEquals(responses[i], objectMapper.readValue(json[i], TransactionResponse.class));
+            assertEquals(responses[i], converter.decode(binary[i], TransactionResponse.class));
+        }
+
+        long sink = 0;
+        long jsonEncode = Long.MAX_VALUE;
+        long jsonDecode = Long.MAX_VALUE;
+        long binaryEncode = Long.MAX_VALUE;
+        long binaryDecode = Long.MAX_VALUE;
+        // 多轮取最小值，减少 JIT 预热和 GC 的影响
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (TransactionResponse response : responses) {
+                    sink += objectMapper.writeValueAsBytes(response).length;
+                }
+            }
+            jsonEncode = Math.min(jsonEncode, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (byte[] bytes : json) {
+                    sink += objectMapper.readValue(bytes, TransactionResponse.class).getVersion();
+                }
+            }
+            jsonDecode = Math.min(jsonDecode, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (TransactionResponse response : responses) {
+                    sink += converter.encode(response).length;
+                }
+            }
+            binaryEncode = Math.min(binaryEncode, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (byte[] bytes : binary) {
+                    sink += ((TransactionResponse) converter.decode(bytes, TransactionResponse.class)).getVersion();
+                }
+            }
+            binaryDecode = Math.min(binaryDecode, System.nanoTime() - start);
+        }
+
+        double operations = (double) count * rounds;
+        System.out.printf("JSON：每笔 %.1f 字节，编码 %.0f ns，解码 %.0f ns；二进制：每笔 %.1f 字节，编码 %.0f ns，解码 %.0f ns\n",
+                jsonSize / (double) count, jsonEncode / operations, jsonDecode / operations,
+                binarySize / (double) count, binaryEncode / operations, binaryDecode / operations);
+        assertTrue(sink > 0);
+        assertTrue(binarySize < jsonSize / 2);
+    }
+}
@@ -0,0 +1,101 @@
+package com.bank.transaction.controller;
+
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.response.TransactionResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseBytesCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static TransactionResponse response(String id, String description) {
+        Transaction transaction = new Transaction(id, "ACC1", new BigDecimal("1234.56"), TransactionType.DEPOSIT,
+                LocalDateTime.of(2025, 1, 2, 3, 4, 5), description);
+        return TransactionResponse.fromEntity(transaction);
+    }
+
+    /**
+     * TC01: 测试缓存的字节与直接序列化的结果相同，同一个对象只序列化一次，新的对象得到新的内容
+     */
+    @Test
+    void testGet_ShouldReturnSerializedJson() throws Exception {
+        ResponseBytesCache cache = new ResponseBytesCache(objectMapper, DataSize.ofMegabytes(1));
+        TransactionResponse response = response("TX1", "缓存");
+
+        byte[] json = cache.get(response);
+
+        assertTrue(cache.isEnabled());
+        assertArrayEquals(objectMapper.writeValueAsBytes(response), json);
+        assertSame(json, cache.get(response));
+        // 更新后交易缓存中是新的对象，内容相同的旧对象不会被复用
+        TransactionResponse updated = response("TX1", "更新");
+        assertArrayEquals(objectMapper.writeValueAsBytes(updated), cache.get(updated));
+    }
+
+    /**
+     * TC02: 测试大小为 0 时不启用
+     */
+    @Test
+    void testDisabled() {
+        assertFalse(new ResponseBytesCache(objectMapper, DataSize.ofBytes(0)).isEnabled());
+    }
+
+    /**
+     * 基准测试：对比每次请求序列化与读取缓存字节的吞吐量和每次请求分配的内存。
+     */
+    @Test
+    void testThroughputAndAllocation_ComparedWithSerialization() throws Exception {
+        int count = 1_000;
+        int requests = 200_000;
+        TransactionResponse[] responses = new TransactionResponse[count];
+        for (int i = 0; i < count; i++) {
+            responses[i] = response("TX" + i, "热点交易 " + i);
+        }
+        ResponseBytesCache cache = new ResponseBytesCache(objectMapper, DataSize.ofMegabytes(16));
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        long length = 0;
+        long serializeNanos = Long.MAX_VALUE;
+        long cachedNanos = Long.MAX_VALUE;
+        long serializeBytes = 0;
+        long cachedBytes = 0;
+        // 多轮取最小值，减少 JIT 预热和 GC 的影响
+        for (int round = 0; round < 5; round++) {
+            long allocated = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                length += objectMapper.writeValueAsBytes(responses[i % count]).length;
+            }
+            serializeNanos = Math.min(serializeNanos, System.nanoTime() - start);
+            serializeBytes = threads.getThreadAllocatedBytes(threadId) - allocated;
+
+            allocated = threads.getThreadAllocatedBytes(threadId);
+            start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                length -= cache.get(responses[i % count]).length;
+            }
+            cachedNanos = Math.min(cachedNanos, System.nanoTime() - start);
+            cachedBytes = threads.getThreadAllocatedBytes(threadId) - allocated;
+        }
+
+        System.out.printf("每次请求序列化：%.0f 次/秒，每次分配 %.0f 字节；读取缓存字节：%.0f 次/秒，每次分配 %.0f 字节\n",
+                requests * 1e9 / serializeNanos, serializeBytes / (double) requests,
+                requests * 1e9 / cachedNanos, cachedBytes / (double) requests);
+        assertEquals(0, length);
+        assertTrue(cachedBytes < serializeBytes);
+    }
+}
@@ -11,6 +11,8 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -248,4 +250,42 @@ public class StressTest {
         long end = System.currentTimeMillis();
         System.out.printf("GetAllTransactionsPage压力测试完成，总耗时：%d ms，每秒QPS：%.2f\n", (end - start), (threadCount * requestPerThread * 1000.0 / (end - start)));
     }
+
+    @Test
+    void stressTestBatchCreateTransaction() throws Exception {
+        int total = 2000;
+        // 逐条创建：每条交易需要获取一次token并发送一次POST
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            String token = mockMvc.perform(get("/api/transactions/token")).andReturn().getResponse().getContentAsString();
+            String json = String.format(
+                    "{\"preventDuplicateToken\":\"%s\",\"accountId\":\"acc-%d\",\"amount\":100.00,\"type\":\"DEPOSIT\",\"description\":\"desc\"}",
+                    token, i
+            );
+            mockMvc.perform(post("/api/transactions")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(json))
+                    .andReturn();
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        // 批量创建：整批只获取一次token、发送一次POST
+        start = System.nanoTime();
+        String token = mockMvc.perform(get("/api/transactions/token")).andReturn().getResponse().getContentAsString();
+        StringBuilder json = new StringBuilder("{\"preventDuplicateToken\":\"").append(token).append("\",\"transactions\":[");
+        for (int i = 0; i < total; i++) {
+            json.append(i == 0 ? "" : ",").append(String.format(
+                    "{\"accountId\":\"acc-%d\",\"amount\":100.00,\"type\":\"DEPOSIT\",\"description\":\"desc\"}", i));
+        }
+        json.append("]}");
+        String response = mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json.toString()))
+                .andReturn().getResponse().getContentAsString();
+        long batchNanos = System.nanoTime() - start;
+
+        assertEquals(total, com.fasterxml.jackson.databind.json.JsonMapper.builder().build().readTree(response).get("created").asInt());
+        System.out.printf("批量创建压力测试完成，逐条创建每笔耗时：%.2f us，批量创建每笔耗时：%.2f us，开销降低：%.1f 倍\n",
+                singleNanos / 1000.0 / total, batchNanos / 1000.0 / total, (double) singleNanos / batchNanos);
+    }
 }
@@ -1,19 +1,34 @@
 package com.bank.transaction.controller;
 
+import com.bank.transaction.config.TransactionBinaryHttpMessageConverter;
 import com.bank.transaction.enums.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.bank.transaction.request.BatchCreateTransactionRequest;
+import com.bank.transaction.request.BatchTransactionItem;
 import com.bank.transaction.request.CreateTransactionRequest;
 import com.bank.transaction.request.UpdateTransactionRequest;
+import com.bank.transaction.response.TransactionBatchResponse;
+import com.bank.transaction.response.TransactionResponse;
 import com.bank.transaction.util.TokenUtil;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.IOException;
+import java.util.List;
+
 import static org.hamcrest.Matchers.emptyOrNullString;
 import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -89,12 +104,156 @@ public class TransactionControllerTest {
                 .andExpect(jsonPath("$.description").value("查询单条交易"));
     }
 
+    @Test
+    void testGetTransactionById_CachedJsonReflectsUpdate() throws Exception {
+        CreateTransactionRequest createRequest = new CreateTransactionRequest();
+        createRequest.setPreventDuplicateToken(TokenUtil.generateToken());
+        createRequest.setAccountId("test-account-001");
+        createRequest.setAmount(new java.math.BigDecimal("100.00"));
+        createRequest.setType(TransactionType.DEPOSIT);
+        createRequest.setDescription("缓存字节更新前");
+        String created = mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createRequest)))
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(created).get("id").asText();
+        // 两次查询的内容与创建时返回的交易相同
+        for (int i = 0; i < 2; i++) {
+            String body = mockMvc.perform(get("/api/transactions/" + id))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andReturn().getResponse().getContentAsString();
+            assertEquals(objectMapper.readTree(created), objectMapper.readTree(body));
+        }
+        UpdateTransactionRequest updateRequest = new UpdateTransactionRequest();
+        updateRequest.setAmount(new java.math.BigDecimal("200.00"));
+        updateRequest.setType(TransactionType.WITHDRAWAL);
+        updateRequest.setDescription("缓存字节更新后");
+        mockMvc.perform(put("/api/transactions/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateRequest)))
+                .andExpect(status().isOk());
+        // 更新后不再返回旧的字节
+        mockMvc.perform(get("/api/transactions/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("缓存字节更新后"))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    void testGetTransactionById_IfNoneMatch() throws Exception {
+        CreateTransactionRequest createRequest = new CreateTransactionRequest();
+        createRequest.setPreventDuplicateToken(TokenUtil.generateToken());
+        createRequest.setAccountId("test-account-001");
+        createRequest.setAmount(new java.math.BigDecimal("100.00"));
+        createRequest.setType(TransactionType.DEPOSIT);
+        createRequest.setDescription("条件查询");
+        String id = objectMapper.readTree(mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createRequest)))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        // 版本未变化时返回 304，不返回响应体
+        mockMvc.perform(get("/api/transactions/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(content().string(""));
+        // 二进制报文的 ETag 与 JSON 不同，两种表示都带有 Vary: Accept
+        MediaType binary = TransactionBinaryHttpMessageConverter.TRANSACTION_BINARY;
+        mockMvc.perform(get("/api/transactions/" + id).accept(binary).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"0-bin\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        mockMvc.perform(get("/api/transactions/" + id).accept(binary).header(HttpHeaders.IF_NONE_MATCH, "\"0-bin\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        mockMvc.perform(get("/api/transactions/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"0-bin\""))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        UpdateTransactionRequest updateRequest = new UpdateTransactionRequest();
+        updateRequest.setAmount(new java.math.BigDecimal("200.00"));
+        updateRequest.setType(TransactionType.DEPOSIT);
+        updateRequest.setDescription("条件查询更新");
+        mockMvc.perform(put("/api/transactions/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateRequest)))
+                .andExpect(status().isOk());
+        // 更新后旧的 ETag 不再匹配
+        mockMvc.perform(get("/api/transactions/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.description").value("条件查询更新"));
+    }
+
+    @Test
+    void testGetAllTransactionsPage_IfNoneMatch() throws Exception {
+        String eTag = mockMvc.perform(get("/api/transactions/page"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // 交易没有变化时返回 304
+        mockMvc.perform(get("/api/transactions/page").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        CreateTransactionRequest createRequest = new CreateTransactionRequest();
+        createRequest.setPreventDuplicateToken(TokenUtil.generateToken());
+        createRequest.setAccountId("test-account-001");
+        createRequest.setAmount(new java.math.BigDecimal("100.00"));
+        createRequest.setType(TransactionType.DEPOSIT);
+        createRequest.setDescription("列表条件查询");
+        mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createRequest)))
+                .andExpect(status().isCreated());
+        // 任意交易修改后列表的 ETag 变化
+        mockMvc.perform(get("/api/transactions/page").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.content").isArray());
+    }
+
     @Test
     void testGetTransactionById_NotFound() throws Exception {
         mockMvc.perform(get("/api/transactions/not-exist-id"))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testGetCacheStats() throws Exception {
+        // 创建后查询一次，命中创建时写入的缓存
+        CreateTransactionRequest createRequest = new CreateTransactionRequest();
+        createRequest.setPreventDuplicateToken(TokenUtil.generateToken());
+        createRequest.setAccountId("test-account-001");
+        createRequest.setAmount(new java.math.BigDecimal("100.00"));
+        createRequest.setType(TransactionType.DEPOSIT);
+        createRequest.setDescription("缓存统计");
+        String id = objectMapper.readTree(mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createRequest)))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        mockMvc.perform(get("/api/transactions/" + id)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("transactions"))
+                .andExpect(jsonPath("$[0].hitCount").value(org.hamcrest.Matchers.greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$[0].weightedSize").value(org.hamcrest.Matchers.greaterThan(0)))
+                .andExpect(jsonPath("$[0].maximumWeight").value(64L * 1024 * 1024))
+                .andExpect(jsonPath("$[0].hitRate").exists())
+                .andExpect(jsonPath("$[0].evictionCount").exists())
+                .andExpect(jsonPath("$[0].averageLoadPenaltyMillis").exists());
+    }
+
+    @Test
+    void testHealth_ReadyAfterStartup() throws Exception {
+        mockMvc.perform(get("/health/liveness"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("CORRECT"));
+        // 启动流程（包括缓存预热）完成后才就绪
+        mockMvc.perform(get("/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("ACCEPTING_TRAFFIC"));
+    }
+
     @Test
     void testGetAllTransactions_Success() throws Exception {
         mockMvc.perform(get("/api/transactions"))
@@ -102,6 +261,96 @@ public class TransactionControllerTest {
                 .andExpect(jsonPath("$").isArray());
     }
 
+    @Test
+    void testStreamAllTransactions_Ndjson() throws Exception {
+        BatchTransactionItem item = new BatchTransactionItem();
+        item.setAccountId("stream-account");
+        item.setAmount(new java.math.BigDecimal("1.00"));
+        item.setType(TransactionType.DEPOSIT);
+        item.setDescription("流式输出");
+        BatchCreateTransactionRequest batchRequest = new BatchCreateTransactionRequest();
+        batchRequest.setPreventDuplicateToken(TokenUtil.generateToken());
+        batchRequest.setTransactions(java.util.Collections.nCopies(2500, item));
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isOk());
+        int total = objectMapper.readTree(mockMvc.perform(get("/api/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString()).size();
+
+        var result = mockMvc.perform(get("/api/transactions").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        // 每行一笔交易，跨越多个读取批次，ID 不重复
+        String[] lines = body.split("\n");
+        assertEquals(total, lines.length);
+        java.util.Set<String> ids = new java.util.HashSet<>();
+        for (String line : lines) {
+            ids.add(objectMapper.readTree(line).get("id").asText());
+        }
+        assertEquals(total, ids.size());
+        assertTrue(body.endsWith("\n"));
+    }
+
+    @Test
+    void testStreamChanges_ShouldPushAndResume() throws Exception {
+        var live = mockMvc.perform(get("/api/transactions/changes").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String first = createTransaction("变更推送1");
+        String body = awaitContent(live, first);
+        assertTrue(body.contains("event:CREATED"));
+        // 取第一笔交易的事件ID，携带 Last-Event-ID 重连后从它之后继续
+        String block = body.substring(0, body.indexOf(first));
+        String lastEventId = block.substring(block.lastIndexOf("id:") + 3, block.indexOf('\n', block.lastIndexOf("id:")));
+        String second = createTransaction("变更推送2");
+        mockMvc.perform(delete("/api/transactions/" + second)).andExpect(status().isNoContent());
+
+        var resumed = mockMvc.perform(get("/api/transactions/changes").accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Last-Event-ID", lastEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String replayed = awaitContent(resumed, "event:DELETED");
+        assertTrue(replayed.contains(second));
+        assertFalse(replayed.contains(first));
+
+        var reset = mockMvc.perform(get("/api/transactions/changes").accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Last-Event-ID", "unknown-1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(reset, "event:reset");
+    }
+
+    private String createTransaction(String description) throws Exception {
+        CreateTransactionRequest createRequest = new CreateTransactionRequest(TokenUtil.generateToken(), "test-account-changes",
+                new java.math.BigDecimal("100.00"), TransactionType.DEPOSIT, description);
+        return objectMapper.readTree(mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createRequest)))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+    }
+
+    /**
+     * 等待 SSE 响应中出现指定内容，事件由虚拟线程异步写出
+     */
+    private static String awaitContent(org.springframework.test.web.servlet.MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String body = result.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains(expected), body);
+        return body;
+    }
+
     @Test
     void testUpdateTransaction_Success() throws Exception {
         // 先创建一条合法的交易，获取id
@@ -207,4 +456,185 @@ public class TransactionControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray());
     }
+
+    @Test
+    void testScrollTransactions_Default() throws Exception {
+        mockMvc.perform(get("/api/transactions/scroll"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isArray());
+    }
+
+    @Test
+    void testScrollTransactions_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/transactions/scroll?after=not-a-cursor&limit=5"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetTransactionsByAccountId_Success() throws Exception {
+        // 先创建一条合法的交易，账户ID唯一
+        CreateTransactionRequest createRequest = new CreateTransactionRequest();
+        createRequest.setPreventDuplicateToken(TokenUtil.generateToken());
+        createRequest.setAccountId("test-account-statement");
+        createRequest.setAmount(new java.math.BigDecimal("100.00"));
+        createRequest.setType(TransactionType.DEPOSIT);
+        createRequest.setDescription("账户流水");
+        String json = objectMapper.writeValueAsString(createRequest);
+        mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isCreated());
+        // 按账户查询
+        mockMvc.perform(get("/api/transactions?accountId=test-account-statement&page=0&size=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].accountId").value("test-account-statement"));
+    }
+
+    @Test
+    void testUpdateTransaction_WithIfMatch() throws Exception {
+        // 先创建一条合法的交易，获取id和ETag
+        CreateTransactionRequest createRequest = new CreateTransactionRequest();
+        createRequest.setPreventDuplicateToken(TokenUtil.generateToken());
+        createRequest.setAccountId("test-account-001");
+        createRequest.setAmount(new java.math.BigDecimal("100.00"));
+        createRequest.setType(TransactionType.DEPOSIT);
+        createRequest.setDescription("测试乐观锁");
+        String json = objectMapper.writeValueAsString(createRequest);
+        String id = objectMapper.readTree(mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        mockMvc.perform(get("/api/transactions/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(jsonPath("$.version").value(0));
+        UpdateTransactionRequest updateRequest = new UpdateTransactionRequest();
+        updateRequest.setAmount(new java.math.BigDecimal("200.00"));
+        updateRequest.setType(TransactionType.WITHDRAWAL);
+        updateRequest.setDescription("测试乐观锁更新后");
+        String updateJson = objectMapper.writeValueAsString(updateRequest);
+        // 版本一致时更新成功，返回新的ETag
+        mockMvc.perform(put("/api/transactions/" + id)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(updateJson))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.amount").value(200.00));
+        // 使用过期的ETag更新和删除返回412
+        mockMvc.perform(put("/api/transactions/" + id)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(updateJson))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/transactions/" + id).header("If-Match", "W/\"1\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/transactions/" + id).header("If-Match", "\"0\""))
+                .andExpect(status().isPreconditionFailed());
+        // 缓存已被清除，查询返回新版本
+        mockMvc.perform(get("/api/transactions/" + id))
+                .andExpect(header().string("ETag", "\"1\""));
+        // 二进制报文的 ETag 同样可以用于 If-Match
+        mockMvc.perform(delete("/api/transactions/" + id).header("If-Match", "\"1-bin\""))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/transactions/" + id).header("If-Match", "\"1\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCreateTransactions_Batch() throws Exception {
+        BatchCreateTransactionRequest batchRequest = new BatchCreateTransactionRequest(TokenUtil.generateToken(), List.of(
+                new BatchTransactionItem("test-account-batch", new java.math.BigDecimal("100.00"), TransactionType.DEPOSIT, "批量1"),
+                new BatchTransactionItem("test-account-batch", new java.math.BigDecimal("0"), TransactionType.DEPOSIT, "批量2"),
+                new BatchTransactionItem("test-account-batch", new java.math.BigDecimal("300.00"), TransactionType.WITHDRAWAL, "批量3")));
+        String json = objectMapper.writeValueAsString(batchRequest);
+        mockMvc.perform(post("/api/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].transaction.id").exists())
+                .andExpect(jsonPath("$.results[1].success").value(false))
+                .andExpect(jsonPath("$.results[1].message").value("amount: 金额必须大于0"))
+                .andExpect(jsonPath("$.results[2].transaction.description").value("批量3"));
+        mockMvc.perform(get("/api/transactions?accountId=test-account-batch"))
+                .andExpect(jsonPath("$.totalElements").value(2));
+        // 同一个token不能重复提交，整批都不会再次写入
+        mockMvc.perform(post("/api/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json));
+        mockMvc.perform(get("/api/transactions?accountId=test-account-batch"))
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    void testBinaryWireFormat_CreateGetPageAndBatch() throws Exception {
+        MediaType binary = TransactionBinaryHttpMessageConverter.TRANSACTION_BINARY;
+        CreateTransactionRequest createRequest = new CreateTransactionRequest(TokenUtil.generateToken(), "test-account-binary",
+                new java.math.BigDecimal("100.00"), TransactionType.DEPOSIT, "二进制报文");
+        byte[] created = mockMvc.perform(post("/api/transactions")
+                .contentType(binary)
+                .accept(binary)
+                .content(writeBinary(createRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(binary))
+                .andReturn().getResponse().getContentAsByteArray();
+        TransactionResponse response = readBinary(created, TransactionResponse.class);
+        assertEquals(new java.math.BigDecimal("100.00"), response.getAmount());
+        assertEquals("二进制报文", response.getDescription());
+
+        // 二进制与 JSON 查询返回相同的交易
+        byte[] fetched = mockMvc.perform(get("/api/transactions/" + response.getId()).accept(binary))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(binary))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0-bin\""))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(response, readBinary(fetched, TransactionResponse.class));
+        String json = mockMvc.perform(get("/api/transactions/" + response.getId()))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(response, objectMapper.readValue(json, TransactionResponse.class));
+        assertTrue(fetched.length * 2 < json.getBytes(java.nio.charset.StandardCharsets.UTF_8).length);
+
+        BatchCreateTransactionRequest batchRequest = new BatchCreateTransactionRequest(TokenUtil.generateToken(), List.of(
+                new BatchTransactionItem("test-account-binary", new java.math.BigDecimal("200.00"), TransactionType.WITHDRAWAL, "二进制批量"),
+                new BatchTransactionItem("test-account-binary", null, TransactionType.DEPOSIT, "缺少金额")));
+        byte[] batch = mockMvc.perform(post("/api/transactions/batch")
+                .contentType(binary)
+                .accept(binary)
+                .content(writeBinary(batchRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        TransactionBatchResponse batchResponse = readBinary(batch, TransactionBatchResponse.class);
+        assertEquals(1, batchResponse.getCreated());
+        assertEquals(1, batchResponse.getFailed());
+
+        byte[] page = mockMvc.perform(get("/api/transactions?accountId=test-account-binary").accept(binary))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(binary))
+                .andReturn().getResponse().getContentAsByteArray();
+        Page<?> transactions = readBinary(page, Page.class);
+        assertEquals(2, transactions.getTotalElements());
+        mockMvc.perform(get("/api/transactions/page").accept(binary))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(binary));
+        // 未指定 Accept 时仍然返回 JSON
+        mockMvc.perform(get("/api/transactions/page"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    private static byte[] writeBinary(Object value) throws IOException {
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        new TransactionBinaryHttpMessageConverter().write(value, value.getClass(), TransactionBinaryHttpMessageConverter.TRANSACTION_BINARY, outputMessage);
+        return outputMessage.getBodyAsBytes();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T readBinary(byte[] data, Class<T> clazz) throws IOException {
+        return (T) new TransactionBinaryHttpMessageConverter().read(clazz, null, new MockHttpInputMessage(data));
+    }
 }
@@ -14,6 +14,9 @@ import org.springframework.data.domain.Pageable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -372,6 +375,138 @@ class InMemoryTransactionRepositoryTest {
         assertTrue(result.getContent().isEmpty());
     }
 
+    /**
+     * TC08: 测试更新交易日期后，分页结果按新的日期重新排序且不会出现重复记录
+     */
+    @Test
+    void testFindAll_AfterUpdateChangesDate_ShouldReorderWithoutDuplicates() {
+        // 初始化存储
+        repository.save(transaction1);
+        repository.save(transaction3);
+        repository.save(transaction4);
+        // Arrange：把最旧的交易改为最新
+        Transaction moved = new Transaction(transaction4.getId(), transaction4.getAccountId(), transaction4.getAmount(),
+                transaction4.getType(), transaction1.getDate().plusDays(1), transaction4.getDescription());
+        repository.update(moved);
+
+        // Act
+        Page<Transaction> result = repository.findAll(PageRequest.of(0, 10));
+
+        // Assert
+        List<String> actualIds = result.getContent().stream()
+                .map(Transaction::getId)
+                .toList();
+        assertEquals(List.of(transaction4.getId(), transaction1.getId(), transaction3.getId()), actualIds);
+        assertEquals(3, result.getTotalElements());
+    }
+
+    /**
+     * TC09: 测试删除交易后，分页结果中不再包含该交易
+     */
+    @Test
+    void testFindAll_AfterDelete_ShouldNotContainDeletedTransaction() {
+        // 初始化存储
+        repository.save(transaction1);
+        repository.save(transaction2);
+        repository.save(transaction3);
+
+        // Act
+        repository.deleteById(transaction2.getId());
+        Page<Transaction> result = repository.findAll(PageRequest.of(0, 10));
+
+        // Assert
+        List<String> actualIds = result.getContent().stream()
+                .map(Transaction::getId)
+                .toList();
+        assertEquals(List.of(transaction1.getId(), transaction3.getId()), actualIds);
+        assertEquals(2, result.getTotalElements());
+    }
+
+    /**
+     * TC12: 测试按账户分页只返回该账户的交易，并按日期降序排列
+     */
+    @Test
+    void testFindByAccountId_ShouldReturnOnlyAccountTransactions() {
+        // 初始化存储
+        Transaction other = new Transaction("TX000", "ACC123", new BigDecimal("50.00"), TransactionType.DEPOSIT,
+                transaction3.getDate(), "Deposit 3");
+        repository.save(transaction1);
+        repository.save(transaction2);
+        repository.save(other);
+
+        // Act
+        Page<Transaction> result = repository.findByAccountId("ACC123", PageRequest.of(0, 10));
+        Page<Transaction> missing = repository.findByAccountId("ACC000", PageRequest.of(0, 10));
+
+        // Assert
+        assertEquals(List.of(transaction1, other), result.getContent());
+        assertEquals(2, result.getTotalElements());
+        assertTrue(missing.getContent().isEmpty());
+        assertEquals(0, missing.getTotalElements());
+    }
+
+    /**
+     * TC13: 测试更新账户ID和删除交易后，账户索引同步更新
+     */
+    @Test
+    void testFindByAccountId_AfterUpdateAndDelete_ShouldReflectChanges() {
+        // 初始化存储
+        repository.save(transaction1);
+        repository.save(transaction2);
+        Transaction moved = new Transaction(transaction2.getId(), "ACC123", transaction2.getAmount(),
+                transaction2.getType(), transaction2.getDate(), transaction2.getDescription());
+
+        // Act
+        repository.update(moved);
+        repository.deleteById(transaction1.getId());
+
+        // Assert
+        assertEquals(List.of(moved), repository.findByAccountId("ACC123", PageRequest.of(0, 10)).getContent());
+        assertTrue(repository.findByAccountId("ACC456", PageRequest.of(0, 10)).getContent().isEmpty());
+    }
+
+    /**
+     * TC10: 测试游标分页，从游标之后按日期降序逐批返回且不重复
+     */
+    @Test
+    void testFindAllAfter_ShouldSeekPastCursor() {
+        // 初始化存储
+        repository.save(transaction1);
+        repository.save(transaction2);
+        repository.save(transaction3);
+        repository.save(transaction4);
+
+        // Act
+        List<Transaction> first = repository.findAllAfter(null, null, 2);
+        Transaction last = first.getLast();
+        List<Transaction> second = repository.findAllAfter(last.getDate(), last.getId(), 2);
+        Transaction end = second.getLast();
+        List<Transaction> third = repository.findAllAfter(end.getDate(), end.getId(), 2);
+
+        // Assert
+        assertEquals(List.of(transaction1, transaction2), first);
+        assertEquals(List.of(transaction3, transaction4), second);
+        assertTrue(third.isEmpty());
+    }
+
+    /**
+     * TC11: 测试游标对应的交易已被删除时，仍能从该位置之后继续返回
+     */
+    @Test
+    void testFindAllAfter_WhenCursorTransactionDeleted_ShouldContinueFromPosition() {
+        // 初始化存储
+        repository.save(transaction1);
+        repository.save(transaction2);
+        repository.save(transaction3);
+
+        // Act
+        repository.deleteById(transaction2.getId());
+        List<Transaction> result = repository.findAllAfter(transaction2.getDate(), transaction2.getId(), 10);
+
+        // Assert
+        assertEquals(List.of(transaction3), result);
+    }
+
     /**
      * * TC01: 测试当 transaction ID 存在时，update 应成功更新并返回该 transaction
      */
@@ -510,4 +645,99 @@ class InMemoryTransactionRepositoryTest {
         // Act & Assert
         assertThrows(NullPointerException.class, () -> repository.existsById(null));
     }
-}
\ No newline at end of file
+
+    /**
+     * TC01: 测试 update 每次把版本号加一
+     */
+    @Test
+    void testUpdate_ShouldIncrementVersion() {
+        // Arrange
+        repository.save(transaction1);
+        Transaction updated = new Transaction(transaction1.getId(), transaction1.getAccountId(), new BigDecimal("150.00"),
+                transaction1.getType(), transaction1.getDate(), transaction1.getDescription());
+
+        // Act
+        repository.update(updated);
+        repository.update(updated);
+
+        // Assert
+        assertEquals(2, repository.findById(transaction1.getId()).getVersion());
+    }
+
+    /**
+     * TC02: 测试 updateIfVersion 版本一致时替换并加一，不一致时保持原值并返回当前交易
+     */
+    @Test
+    void testUpdateIfVersion_ShouldCompareAndSet() {
+        // Arrange
+        repository.save(transaction1);
+        Transaction first = new Transaction(transaction1.getId(), transaction1.getAccountId(), new BigDecimal("150.00"),
+                transaction1.getType(), transaction1.getDate(), "first");
+        Transaction stale = new Transaction(transaction1.getId(), transaction1.getAccountId(), new BigDecimal("999.00"),
+                transaction1.getType(), transaction1.getDate(), "stale");
+
+        // Act
+        Transaction witness = repository.updateIfVersion(first, 0);
+        Transaction conflict = repository.updateIfVersion(stale, 0);
+
+        // Assert
+        assertEquals(0, witness.getVersion());
+        assertEquals(1, conflict.getVersion());
+        assertEquals(first, repository.findById(transaction1.getId()));
+        assertEquals(1, repository.findById(transaction1.getId()).getVersion());
+        assertNull(repository.updateIfVersion(transaction2, 0));
+        assertFalse(repository.existsById(transaction2.getId()));
+    }
+
+    /**
+     * TC03: 测试 deleteByIdIfVersion 只在版本一致时删除
+     */
+    @Test
+    void testDeleteByIdIfVersion_ShouldCompareAndDelete() {
+        // Arrange
+        repository.save(transaction1);
+        repository.update(transaction1);
+
+        // Act & Assert
+        assertEquals(1, repository.deleteByIdIfVersion(transaction1.getId(), 0).getVersion());
+        assertTrue(repository.existsById(transaction1.getId()));
+        assertEquals(1, repository.deleteByIdIfVersion(transaction1.getId(), 1).getVersion());
+        assertFalse(repository.existsById(transaction1.getId()));
+        assertTrue(repository.findAll(PageRequest.of(0, 10)).getContent().isEmpty());
+        assertNull(repository.deleteByIdIfVersion(transaction1.getId(), 1));
+    }
+
+    /**
+     * TC04: 测试大量虚拟线程对同一热点交易做 CAS 更新，版本号与成功次数一致，没有丢失更新
+     */
+    @Test
+    void testUpdateIfVersion_ConcurrentOnHotId_ShouldNotLoseUpdates() throws InterruptedException {
+        // Arrange
+        repository.save(transaction1);
+        int threadCount = 1000;
+        AtomicInteger conflicts = new AtomicInteger();
+
+        // Act：每个线程读取当前版本后加 1 元，版本冲突时重试
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threadCount; i++) {
+                executor.submit(() -> {
+                    while (true) {
+                        Transaction current = repository.findById(transaction1.getId());
+                        Transaction next = new Transaction(current.getId(), current.getAccountId(), current.getAmount().add(BigDecimal.ONE),
+                                current.getType(), current.getDate(), current.getDescription());
+                        if (repository.updateIfVersion(next, current.getVersion()).getVersion() == current.getVersion()) {
+                            return;
+                        }
+                        conflicts.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        // Assert
+        Transaction result = repository.findById(transaction1.getId());
+        assertEquals(threadCount, result.getVersion());
+        assertEquals(new BigDecimal("1100.00"), result.getAmount());
+        System.out.printf("热点交易 CAS 更新完成，成功：%d，冲突重试：%d\n", threadCount, conflicts.get());
+    }
+}
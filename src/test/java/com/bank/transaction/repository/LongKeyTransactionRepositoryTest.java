@@ -0,0 +1,211 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongKeyTransactionRepositoryTest {
+
+    private final LongKeyTransactionRepository repository = new LongKeyTransactionRepository();
+
+    /**
+     * TC01: 测试与内存实现在随机保存、更新、删除后的查询结果一致
+     */
+    @Test
+    void testQueries_ShouldMatchInMemoryRepository() {
+        // Arrange
+        InMemoryTransactionRepository expected = new InMemoryTransactionRepository();
+        Random random = new Random(3);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < 5000; i++) {
+            String id = SnowflakeIdGenerator.toString(random.nextInt(3000));
+            Transaction transaction = new Transaction(id, "ACC" + random.nextInt(20), new BigDecimal("100.00"),
+                    TransactionType.DEPOSIT, base.plusMinutes(random.nextInt(50)), "desc");
+            switch (random.nextInt(5)) {
+                case 0 -> assertEquals(expected.deleteById(id), repository.deleteById(id));
+                case 1 -> assertEquals(expected.update(transaction), repository.update(transaction));
+                case 2 -> assertEquals(expected.deleteByIdIfVersion(id, 1), repository.deleteByIdIfVersion(id, 1));
+                default -> {
+                    expected.save(transaction);
+                    repository.save(transaction);
+                }
+            }
+        }
+
+        // Act & Assert
+        assertEquals(expected.findAll().size(), repository.findAll().size());
+        for (int page = 0; page < 5; page++) {
+            assertEquals(expected.findAll(PageRequest.of(page, 97)), repository.findAll(PageRequest.of(page, 97)));
+            assertEquals(expected.findByAccountId("ACC3", PageRequest.of(page, 13)), repository.findByAccountId("ACC3", PageRequest.of(page, 13)));
+        }
+        for (int i = 0; i < 3000; i++) {
+            String id = SnowflakeIdGenerator.toString(i);
+            assertEquals(expected.findById(id), repository.findById(id));
+            assertEquals(expected.existsById(id), repository.existsById(id));
+        }
+        Transaction cursor = expected.findAll(PageRequest.of(3, 100)).getContent().getFirst();
+        assertEquals(expected.findAllAfter(cursor.getDate(), cursor.getId(), 50), repository.findAllAfter(cursor.getDate(), cursor.getId(), 50));
+    }
+
+    /**
+     * TC02: 测试非标准形式的ID查不到且不能保存，null ID 抛出 NullPointerException
+     */
+    @Test
+    void testNonCanonicalIds_ShouldNotBeStored() {
+        String id = SnowflakeIdGenerator.toString(123456789L);
+        repository.save(new Transaction(id, "ACC1", new BigDecimal("1.00"), TransactionType.DEPOSIT, LocalDateTime.now(), null));
+
+        assertNotNull(repository.findById(id));
+        assertNull(repository.findById(id.toLowerCase()));
+        assertNull(repository.findById("TX123"));
+        assertFalse(repository.deleteById("TX123"));
+        assertThrows(IllegalArgumentException.class, () -> repository.save(new Transaction("TX123", "ACC1", null, null, null, null)));
+        assertThrows(NullPointerException.class, () -> repository.findById((String) null));
+    }
+
+    /**
+     * TC03: 测试并发 compute 与并发读取同时进行时结果正确
+     */
+    @Test
+    void testConcurrentLongMap_ConcurrentComputeAndGet() throws InterruptedException {
+        ConcurrentLongMap<Integer> map = new ConcurrentLongMap<>();
+        int threadCount = 16;
+        int keys = 10_000;
+        AtomicInteger misses = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threadCount * 2);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threadCount; t++) {
+                executor.submit(() -> {
+                    try {
+                        for (long key = 0; key < keys; key++) {
+                            map.compute(key, previous -> previous == null ? 1 : previous + 1);
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+                executor.submit(() -> {
+                    try {
+                        // 只读取已确定存在的键：键 0 由每个写线程最先写入
+                        for (int i = 0; i < keys; i++) {
+                            Integer value = map.get(0);
+                            if (value != null && (value < 1 || value > threadCount)) {
+                                misses.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            latch.await();
+        }
+
+        assertEquals(0, misses.get());
+        assertEquals(keys, map.size());
+        for (long key = 0; key < keys; key++) {
+            assertEquals(threadCount, map.get(key));
+        }
+        for (long key = 0; key < keys; key += 2) {
+            map.compute(key, previous -> null);
+        }
+        assertEquals(keys / 2, map.size());
+        for (long key = 0; key < keys; key++) {
+            assertEquals(key % 2 == 0 ? null : threadCount, map.get(key));
+        }
+    }
+
+    /**
+     * 基准测试：对比以字符串为键的 ConcurrentHashMap 与以 long 为键的哈希表的单次查找耗时和每条数据的内存占用。
+     * 查找使用新创建的字符串，与从请求路径中解析出的ID一样没有缓存的哈希值。
+     */
+    @Test
+    void testLookupCostAndMemory_ComparedWithConcurrentHashMap() {
+        int count = 500_000;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        LocalDateTime now = LocalDateTime.now();
+        Transaction[] transactions = new Transaction[count];
+        for (int i = 0; i < count; i++) {
+            transactions[i] = new Transaction(generator.nextIdString(), "ACC1", new BigDecimal("1.00"), TransactionType.DEPOSIT, now, null);
+        }
+        Runtime runtime = Runtime.getRuntime();
+
+        long before = usedHeap(runtime);
+        ConcurrentHashMap<String, Transaction> stringMap = new ConcurrentHashMap<>();
+        for (Transaction transaction : transactions) {
+            stringMap.put(transaction.getId(), transaction);
+        }
+        long stringMapBytes = usedHeap(runtime) - before;
+
+        before = usedHeap(runtime);
+        ConcurrentLongMap<Transaction> longMap = new ConcurrentLongMap<>();
+        for (Transaction transaction : transactions) {
+            longMap.compute(LongKeyTransactionRepository.key(transaction.getId()), previous -> transaction);
+        }
+        long longMapBytes = usedHeap(runtime) - before;
+
+        // 按随机顺序查找：按插入顺序查找时 ConcurrentHashMap 的节点和键在内存中连续，会得到偏低的结果
+        Collections.shuffle(Arrays.asList(transactions), new Random(1));
+        char[][] ids = new char[count][];
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = transactions[i].getId().toCharArray();
+            keys[i] = LongKeyTransactionRepository.key(transactions[i].getId());
+        }
+        long found = 0;
+        long stringNanos = Long.MAX_VALUE;
+        long longNanos = Long.MAX_VALUE;
+        long decodedNanos = Long.MAX_VALUE;
+        // 多轮取最小值，减少 JIT 预热和 GC 的影响
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (char[] id : ids) {
+                found += stringMap.get(new String(id)) != null ? 1 : 0;
+            }
+            stringNanos = Math.min(stringNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (char[] id : ids) {
+                found += longMap.get(LongKeyTransactionRepository.key(new String(id))) != null ? 1 : 0;
+            }
+            longNanos = Math.min(longNanos, System.nanoTime() - start);
+
+            // 已解码的主键，对应服务层解码一次后多次使用
+            start = System.nanoTime();
+            for (long key : keys) {
+                found += longMap.get(key) != null ? 1 : 0;
+            }
+            decodedNanos = Math.min(decodedNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("字符串键：每次查找 %.1f ns，每条 %.1f 字节；long 键：含解码每次查找 %.1f ns，已解码 %.1f ns，每条 %.1f 字节（哈希表数组 %.1f 字节）\n",
+                stringNanos / (double) count, stringMapBytes / (double) count,
+                longNanos / (double) count, decodedNanos / (double) count,
+                longMapBytes / (double) count, longMap.sizeInBytes() / (double) count);
+        assertEquals(15L * count, found);
+        assertTrue(longMapBytes < stringMapBytes);
+        assertTrue(longNanos < stringNanos);
+    }
+
+    private static long usedHeap(Runtime runtime) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,189 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.SnowflakeIdGenerator;
+import com.bank.transaction.util.TransactionIdGenerateUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTransactionRepositoryTest {
+
+    private final OffHeapTransactionRepository repository = new OffHeapTransactionRepository();
+
+    /**
+     * TC01: 测试保存后读取的交易与原交易完全一致，包括数字ID、非数字ID和空字段
+     */
+    @Test
+    void testSaveAndFindById_ShouldRoundTripAllFields() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.of(2025, 4, 5, 13, 30, 45, 123456789);
+        Transaction numeric = new Transaction("1234567890123", "ACC1", new BigDecimal("100.05"), TransactionType.DEPOSIT, now, "工资");
+        Transaction text = new Transaction("TX123", "ACC1", new BigDecimal("7"), TransactionType.WITHDRAWAL, now.minusDays(1), null);
+        Transaction leadingZero = new Transaction("0123", null, null, null, null, "desc");
+
+        // Act
+        repository.save(numeric);
+        repository.save(text);
+        repository.save(leadingZero);
+
+        // Assert
+        assertEquals(numeric, repository.findById("1234567890123"));
+        assertEquals(text, repository.findById("TX123"));
+        assertEquals(leadingZero, repository.findById("0123"));
+        assertNull(repository.findById("123"));
+        assertNull(repository.findById("TX999"));
+        assertThrows(NullPointerException.class, () -> repository.findById(null));
+    }
+
+    /**
+     * TC02: 测试与内存实现在随机保存、更新、删除后的分页、游标和账户查询结果一致
+     */
+    @Test
+    void testQueries_ShouldMatchInMemoryRepository() {
+        // Arrange
+        InMemoryTransactionRepository expected = new InMemoryTransactionRepository();
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < 5000; i++) {
+            String id = random.nextBoolean() ? String.valueOf(random.nextInt(3000) + 1) : "TX" + random.nextInt(3000);
+            // 日期只有少量取值，制造大量同一时间的交易
+            Transaction transaction = new Transaction(id, "ACC" + random.nextInt(20), new BigDecimal(random.nextInt(100000)).movePointLeft(2),
+                    TransactionType.DEPOSIT, base.plusMinutes(random.nextInt(50)), "desc-" + random.nextInt(10));
+            switch (random.nextInt(4)) {
+                case 0 -> assertEquals(expected.deleteById(id), repository.deleteById(id));
+                case 1 -> assertEquals(expected.update(transaction), repository.update(transaction));
+                default -> {
+                    expected.save(transaction);
+                    repository.save(transaction);
+                }
+            }
+        }
+
+        // Act & Assert
+        assertEquals(expected.findAll(PageRequest.of(0, 10000)).getContent(), repository.findAll());
+        for (int page = 0; page < 5; page++) {
+            assertEquals(expected.findAll(PageRequest.of(page, 97)), repository.findAll(PageRequest.of(page, 97)));
+            assertEquals(expected.findByAccountId("ACC3", PageRequest.of(page, 13)), repository.findByAccountId("ACC3", PageRequest.of(page, 13)));
+        }
+        assertEquals(0, repository.findByAccountId("ACC-NONE", PageRequest.of(0, 10)).getTotalElements());
+        Transaction cursor = expected.findAll(PageRequest.of(3, 100)).getContent().getFirst();
+        assertEquals(expected.findAllAfter(cursor.getDate(), cursor.getId(), 50), repository.findAllAfter(cursor.getDate(), cursor.getId(), 50));
+        // 游标指向的交易已被删除时，从它原来的位置继续
+        repository.deleteById(cursor.getId());
+        expected.deleteById(cursor.getId());
+        assertEquals(expected.findAllAfter(cursor.getDate(), cursor.getId(), 50), repository.findAllAfter(cursor.getDate(), cursor.getId(), 50));
+        assertEquals(expected.findAllAfter(null, null, 20), repository.findAllAfter(null, null, 20));
+    }
+
+    /**
+     * TC03: 测试金额超出 long 未缩放值范围时拒绝保存
+     */
+    @Test
+    void testSave_WithAmountOutOfRange_ShouldThrowException() {
+        Transaction transaction = new Transaction("1", "ACC1", new BigDecimal("123456789012345678901234.5"), TransactionType.DEPOSIT, LocalDateTime.now(), null);
+
+        assertThrows(IllegalArgumentException.class, () -> repository.save(transaction));
+        assertFalse(repository.existsById("1"));
+    }
+
+    /**
+     * 内存占用报告：分别向堆外实现和内存实现写入相同数据，打印每行占用的字节数
+     */
+    @Test
+    void testMemoryReport_ShouldPrintBytesPerRow() {
+        int rows = 200_000;
+        LocalDateTime now = LocalDateTime.now();
+        Runtime runtime = Runtime.getRuntime();
+
+        OffHeapTransactionRepository offHeap = new OffHeapTransactionRepository();
+        for (int i = 0; i < rows; i++) {
+            offHeap.save(transaction(i, now));
+        }
+        OffHeapTransactionRepository.MemoryReport report = offHeap.memoryReport();
+
+        long before = usedHeap(runtime);
+        InMemoryTransactionRepository inMemory = new InMemoryTransactionRepository();
+        for (int i = 0; i < rows; i++) {
+            inMemory.save(transaction(i, now));
+        }
+        long after = usedHeap(runtime);
+
+        System.out.printf("堆外存储：%d 行，堆外 %d 字节，索引 %d 字节，字典 %d 条/%d 字节，每行 %.1f 字节\n",
+                report.rows(), report.slabBytes(), report.indexBytes(), report.dictionaryEntries(), report.dictionaryBytes(), report.bytesPerRow());
+        System.out.printf("内存存储：%d 行，每行约 %.1f 字节（堆）\n", inMemory.findAll(PageRequest.of(0, 1)).getTotalElements(), (after - before) / (double) rows);
+        assertEquals(rows, report.rows());
+        assertTrue(report.bytesPerRow() < 100);
+    }
+
+    /**
+     * TC04: 测试生成器生成的 Snowflake ID 和时间戳流水号不进入字典，删除和更新后释放不再引用的字典条目
+     */
+    @Test
+    void testGeneratedIds_ShouldNotGrowDictionary() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        TransactionIdGenerateUtil.useSnowflake(null);
+        // 单个生成的时间戳流水号在同一秒内可能重复，去重后使用
+        Set<String> generated = new LinkedHashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            generated.add(generator.nextIdString());
+        }
+        generated.addAll(Arrays.asList(TransactionIdGenerateUtil.generateTransactionIds(5_000)));
+        for (int i = 0; i < 5_000; i++) {
+            generated.add(TransactionIdGenerateUtil.generateTransactionId());
+        }
+        List<String> ids = new ArrayList<>(generated);
+        int rows = ids.size();
+
+        // Act
+        for (int i = 0; i < rows; i++) {
+            repository.save(transaction(ids.get(i), i, now));
+        }
+        OffHeapTransactionRepository.MemoryReport saved = repository.memoryReport();
+        // 把每笔交易的描述改为唯一值，再改回共享的描述
+        for (int i = 0; i < rows; i++) {
+            Transaction transaction = transaction(ids.get(i), i, now);
+            transaction.setDescription("临时-" + i);
+            repository.update(transaction);
+            repository.update(transaction(ids.get(i), i, now));
+        }
+        OffHeapTransactionRepository.MemoryReport updated = repository.memoryReport();
+
+        // Assert
+        // 字典只包含 1000 个账户和 50 个描述
+        assertEquals(1050, saved.dictionaryEntries());
+        assertEquals(1050, updated.dictionaryEntries());
+        for (int i = 0; i < rows; i += 997) {
+            assertEquals(ids.get(i), repository.findById(ids.get(i)).getId());
+        }
+        for (String id : ids) {
+            assertTrue(repository.deleteById(id));
+        }
+        assertEquals(0, repository.memoryReport().dictionaryEntries());
+        assertEquals(0, repository.findByAccountId("ACC1", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    private static Transaction transaction(int i, LocalDateTime now) {
+        return transaction(String.valueOf(1_000_000_000L + i), i, now);
+    }
+
+    private static Transaction transaction(String id, int i, LocalDateTime now) {
+        return new Transaction(id, "ACC" + (i % 1000), new BigDecimal(i % 100000).movePointLeft(2),
+                i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL, now.minusSeconds(i), "转账-" + (i % 50));
+    }
+
+    private static long usedHeap(Runtime runtime) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,93 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTransactionRepositoryTest {
+
+    /**
+     * TC01: 测试多路归并后的分页、游标和账户查询结果与单个内存仓库一致
+     */
+    @Test
+    void testQueries_ShouldMatchInMemoryRepository() {
+        // Arrange
+        ShardedTransactionRepository repository = new ShardedTransactionRepository(4);
+        InMemoryTransactionRepository expected = new InMemoryTransactionRepository();
+        Random random = new Random(7);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < 3000; i++) {
+            String id = "TX" + random.nextInt(2000);
+            Transaction transaction = new Transaction(id, "ACC" + random.nextInt(10), new BigDecimal("100.00"),
+                    TransactionType.DEPOSIT, base.plusMinutes(random.nextInt(100)), "desc");
+            switch (random.nextInt(4)) {
+                case 0 -> assertEquals(expected.deleteById(id), repository.deleteById(id));
+                case 1 -> assertEquals(expected.update(transaction), repository.update(transaction));
+                default -> {
+                    expected.save(transaction);
+                    repository.save(transaction);
+                }
+            }
+        }
+
+        // Act & Assert
+        assertEquals(expected.findAll().size(), repository.findAll().size());
+        for (int page = 0; page < 5; page++) {
+            assertEquals(expected.findAll(PageRequest.of(page, 50)), repository.findAll(PageRequest.of(page, 50)));
+            assertEquals(expected.findByAccountId("ACC1", PageRequest.of(page, 20)), repository.findByAccountId("ACC1", PageRequest.of(page, 20)));
+        }
+        assertEquals(0, repository.findByAccountId("ACC-NONE", PageRequest.of(0, 10)).getTotalElements());
+        Transaction cursor = expected.findAll(PageRequest.of(2, 100)).getContent().getFirst();
+        assertEquals(expected.findAllAfter(cursor.getDate(), cursor.getId(), 80), repository.findAllAfter(cursor.getDate(), cursor.getId(), 80));
+        assertEquals(expected.findAllAfter(null, null, 10), repository.findAllAfter(null, null, 10));
+    }
+
+    /**
+     * 测试不同分片数下虚拟线程并发写入的吞吐量
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4, 8, 16})
+    void testConcurrentSave_ThroughputPerShardCount(int shardCount) throws InterruptedException {
+        ShardedTransactionRepository repository = new ShardedTransactionRepository(shardCount);
+        int threadCount = 200;
+        int requestPerThread = 1000;
+        LocalDateTime now = LocalDateTime.now();
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        long start = System.currentTimeMillis();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threadCount; i++) {
+                final int threadIndex = i;
+                executor.submit(() -> {
+                    try {
+                        for (int j = 0; j < requestPerThread; j++) {
+                            repository.save(new Transaction("TX-" + threadIndex + "-" + j, "ACC" + threadIndex,
+                                    new BigDecimal("100.00"), TransactionType.DEPOSIT, now.plusNanos(j), "desc"));
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            latch.await();
+        }
+        long end = System.currentTimeMillis();
+        System.out.printf("分片数 %d 并发写入完成，CPU 核数：%d，总耗时：%d ms，每秒写入：%.2f\n", shardCount,
+                Runtime.getRuntime().availableProcessors(), (end - start),
+                (threadCount * requestPerThread * 1000.0 / Math.max(1, end - start)));
+
+        assertEquals(shardCount, repository.shardCount());
+        assertEquals(threadCount * requestPerThread, repository.findAll(PageRequest.of(0, 1)).getTotalElements());
+    }
+}
@@ -0,0 +1,347 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalTransactionRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Transaction transaction(String id, String accountId, String amount, LocalDateTime date) {
+        return new Transaction(id, accountId, new BigDecimal(amount), TransactionType.DEPOSIT, date, "desc-" + id);
+    }
+
+    /**
+     * 测试保存、更新、删除后重启，数据和索引能从日志中完整恢复
+     */
+    @Test
+    void testRestart_ShouldRecoverSaveUpdateAndDelete() throws IOException {
+        Path walDir = tempDir.resolve("wal");
+        LocalDateTime now = LocalDateTime.of(2025, 4, 5, 13, 30, 45, 123000000);
+        try (WalTransactionRepository repository = new WalTransactionRepository(walDir, WalSyncPolicy.ALWAYS, 10, 0)) {
+            repository.save(transaction("TX1", "ACC1", "100.00", now));
+            repository.save(transaction("TX2", "ACC1", "200.00", now.minusDays(1)));
+            repository.save(transaction("TX3", "ACC2", "300.00", now.minusDays(2)));
+            repository.update(transaction("TX2", "ACC1", "250.50", now.minusDays(1)));
+            assertTrue(repository.deleteById("TX3"));
+            assertNull(repository.update(transaction("TX9", "ACC9", "1.00", now)));
+            // 版本不一致的 CAS 更新和删除不写日志
+            assertEquals(1, repository.updateIfVersion(transaction("TX2", "ACC1", "999.00", now.minusDays(1)), 0).getVersion());
+            assertEquals(1, repository.deleteByIdIfVersion("TX2", 0).getVersion());
+            assertEquals(0, repository.updateIfVersion(transaction("TX1", "ACC1", "100.00", now), 0).getVersion());
+        }
+
+        try (WalTransactionRepository recovered = new WalTransactionRepository(walDir, WalSyncPolicy.ALWAYS, 10, 0)) {
+            assertEquals(2, recovered.findAll().size());
+            assertEquals(new Transaction("TX1", "ACC1", new BigDecimal("100.00"), TransactionType.DEPOSIT, now, "desc-TX1", 1), recovered.findById("TX1"));
+            assertEquals(new BigDecimal("250.50"), recovered.findById("TX2").getAmount());
+            assertEquals(1, recovered.findById("TX2").getVersion());
+            assertFalse(recovered.existsById("TX3"));
+            assertFalse(recovered.existsById("TX9"));
+            assertEquals(List.of("TX1", "TX2"), recovered.findByAccountId("ACC1", PageRequest.of(0, 10))
+                    .getContent().stream().map(Transaction::getId).toList());
+        }
+    }
+
+    /**
+     * 测试日志末尾存在崩溃时写了一半的记录，重启时截断并保留之前的完整记录
+     */
+    @Test
+    void testRestart_WithTornTail_ShouldTruncateAndKeepCompleteRecords() throws IOException {
+        Path walDir = tempDir.resolve("wal");
+        try (WalTransactionRepository repository = new WalTransactionRepository(walDir, WalSyncPolicy.ALWAYS, 10, 0)) {
+            repository.save(transaction("TX1", "ACC1", "100.00", LocalDateTime.now()));
+        }
+        Path segment = walDir.resolve("wal-0000000000000001.log");
+        long validSize = Files.size(segment);
+        // 模拟崩溃：追加一条只写了一半的记录
+        Files.write(segment, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (WalTransactionRepository recovered = new WalTransactionRepository(walDir, WalSyncPolicy.ALWAYS, 10, 0)) {
+            assertTrue(recovered.existsById("TX1"));
+            assertEquals(validSize, Files.size(segment));
+            // 截断后可以继续正常写入
+            recovered.save(transaction("TX2", "ACC1", "200.00", LocalDateTime.now()));
+        }
+        try (WalTransactionRepository recovered = new WalTransactionRepository(walDir, WalSyncPolicy.ALWAYS, 10, 0)) {
+            assertEquals(2, recovered.findAll().size());
+        }
+    }
+
+    /**
+     * 测试 fsync 失败后写入抛出异常，之后的读写都被拒绝，不暴露未落盘的变更；重启后从日志恢复已落盘的数据
+     */
+    @Test
+    void testSyncFailure_ShouldRejectReadsAndWrites() throws IOException {
+        Path walDir = tempDir.resolve("wal");
+        LocalDateTime now = LocalDateTime.now();
+        AtomicBoolean failing = new AtomicBoolean();
+        try (WalTransactionRepository repository = new WalTransactionRepository(walDir, WalSyncPolicy.ALWAYS, 10, 0,
+                (path, options) -> new FailingFileChannel(FileChannel.open(path, options), failing))) {
+            repository.save(transaction("TX1", "ACC1", "100.00", now));
+
+            failing.set(true);
+            assertThrows(UncheckedIOException.class, () -> repository.save(transaction("TX2", "ACC1", "200.00", now)));
+
+            assertThrows(UncheckedIOException.class, () -> repository.findById("TX2"));
+            assertThrows(UncheckedIOException.class, () -> repository.findById("TX1"));
+            assertThrows(UncheckedIOException.class, () -> repository.findByAccountId("ACC1", PageRequest.of(0, 10)));
+            assertThrows(UncheckedIOException.class, () -> repository.existsById("TX1"));
+            assertThrows(UncheckedIOException.class, () -> repository.deleteById("TX1"));
+            assertThrows(UncheckedIOException.class, () -> repository.save(transaction("TX3", "ACC1", "300.00", now)));
+        }
+
+        try (WalTransactionRepository recovered = new WalTransactionRepository(walDir, WalSyncPolicy.ALWAYS, 10, 0)) {
+            assertTrue(recovered.existsById("TX1"));
+            assertFalse(recovered.existsById("TX3"));
+        }
+    }
+
+    /**
+     * 测试快照后删除被覆盖的日志段，重启时加载快照并只回放之后的日志
+     */
+    @Test
+    void testSnapshot_ShouldCompactLogAndRecoverFromSnapshotPlusTail() throws IOException {
+        Path walDir = tempDir.resolve("wal");
+        LocalDateTime now = LocalDateTime.of(2025, 4, 5, 13, 30, 45);
+        try (WalTransactionRepository repository = new WalTransactionRepository(walDir, WalSyncPolicy.ALWAYS, 10, 0)) {
+            for (int i = 0; i < 100; i++) {
+                repository.save(transaction("TX" + i, "ACC" + (i % 3), "100.00", now.minusMinutes(i)));
+                repository.update(transaction("TX" + i, "ACC" + (i % 3), "200.00", now.minusMinutes(i)));
+            }
+            repository.snapshot();
+            // 快照之后的变更只存在于新的日志段中
+            repository.deleteById("TX0");
+            repository.save(transaction("TX100", "ACC0", "300.00", now.plusMinutes(1)));
+        }
+        try (Stream<Path> files = Files.list(walDir)) {
+            assertEquals(List.of("snapshot-0000000000000002.bin", "wal-0000000000000002.log"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+
+        try (WalTransactionRepository recovered = new WalTransactionRepository(walDir, WalSyncPolicy.ALWAYS, 10, 0)) {
+            assertEquals(100, recovered.findAll().size());
+            assertFalse(recovered.existsById("TX0"));
+            assertEquals(new BigDecimal("200.00"), recovered.findById("TX50").getAmount());
+            assertEquals("TX100", recovered.findAll(PageRequest.of(0, 1)).getContent().getFirst().getId());
+            // 没有新的写入时不会重复快照
+            recovered.snapshot();
+        }
+        try (Stream<Path> files = Files.list(walDir)) {
+            assertEquals(List.of("snapshot-0000000000000002.bin", "wal-0000000000000002.log"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    /**
+     * 测试快照写入期间并发写入不被阻塞，且重启后数据与关闭前一致
+     */
+    @Test
+    void testSnapshot_WhileWriting_ShouldRecoverConsistentState() throws Exception {
+        Path walDir = tempDir.resolve("wal");
+        int threadCount = 50;
+        int requestPerThread = 100;
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> expected;
+        try (WalTransactionRepository repository = new WalTransactionRepository(walDir, WalSyncPolicy.OS, 10, 0);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CountDownLatch latch = new CountDownLatch(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                final int threadIndex = i;
+                executor.submit(() -> {
+                    try {
+                        for (int j = 0; j < requestPerThread; j++) {
+                            String id = "TX-" + threadIndex + "-" + j;
+                            repository.save(transaction(id, "ACC" + threadIndex, "100.00", now));
+                            if (j % 3 == 0) {
+                                repository.deleteById(id);
+                            }
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            while (latch.getCount() > 0) {
+                repository.snapshot();
+            }
+            latch.await();
+            expected = repository.findAll(PageRequest.of(0, threadCount * requestPerThread)).getContent();
+        }
+
+        try (WalTransactionRepository recovered = new WalTransactionRepository(walDir, WalSyncPolicy.OS, 10, 0)) {
+            assertEquals(expected, recovered.findAll(PageRequest.of(0, threadCount * requestPerThread)).getContent());
+        }
+    }
+
+    /**
+     * 测试各落盘策略下虚拟线程并发写入的吞吐量，并验证重启后数据完整
+     */
+    @ParameterizedTest
+    @EnumSource(WalSyncPolicy.class)
+    void testConcurrentSave_ThroughputPerSyncPolicy(WalSyncPolicy syncPolicy) throws Exception {
+        Path walDir = tempDir.resolve("wal-" + syncPolicy);
+        int threadCount = 200;
+        int requestPerThread = 20;
+        LocalDateTime now = LocalDateTime.now();
+        long start;
+        long end;
+        try (WalTransactionRepository repository = new WalTransactionRepository(walDir, syncPolicy, 10, 0);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CountDownLatch latch = new CountDownLatch(threadCount);
+            start = System.currentTimeMillis();
+            for (int i = 0; i < threadCount; i++) {
+                final int threadIndex = i;
+                executor.submit(() -> {
+                    try {
+                        for (int j = 0; j < requestPerThread; j++) {
+                            repository.save(transaction("TX-" + threadIndex + "-" + j, "ACC" + threadIndex, "100.00", now));
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            latch.await();
+            end = System.currentTimeMillis();
+        }
+        System.out.printf("WAL[%s] 并发写入完成，总耗时：%d ms，每秒写入：%.2f\n", syncPolicy, (end - start),
+                (threadCount * requestPerThread * 1000.0 / Math.max(1, end - start)));
+
+        try (WalTransactionRepository recovered = new WalTransactionRepository(walDir, syncPolicy, 10, 0)) {
+            assertEquals(threadCount * requestPerThread, recovered.findAll().size());
+        }
+    }
+
+    /**
+     * 委托给真实 FileChannel 的通道，failing 为 true 时 force 抛出 IOException，模拟 fsync 失败
+     */
+    private static final class FailingFileChannel extends FileChannel {
+
+        private final FileChannel delegate;
+        private final AtomicBoolean failing;
+
+        FailingFileChannel(FileChannel delegate, AtomicBoolean failing) {
+            this.delegate = delegate;
+            this.failing = failing;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failing.get()) {
+                throw new IOException("模拟 fsync 失败");
+            }
+            delegate.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.request.UpdateTransactionRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发更新大量不同交易ID时的锁数量测试。
+ * 更新和删除使用固定数量的分段锁，锁的数量不随更新过的ID数量增长，因此堆内存也不会增长。
+ * 直接检查锁对象而不是测量堆内存，结果不依赖 GC 的时机。
+ */
+public class ConcurrentUpdateHeapTest {
+
+    /**
+     * 测试 10 万个不同ID的并发更新和删除只使用固定的 1024 把分段锁，结束后没有锁被持有
+     */
+    @Test
+    public void testConcurrentUpdate_WithDistinctIds_ShouldUseFixedStripeLocks() throws InterruptedException {
+        TransactionServiceImpl service = new TransactionServiceImpl(new StatelessRepository(), new TransactionChangeFeed(100, 100), new NoOpCacheManager());
+        UpdateTransactionRequest request = new UpdateTransactionRequest(new BigDecimal("100.00"), TransactionType.DEPOSIT, "Updated");
+        int threadCount = 100;
+        int idCount = 100_000;
+
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threadCount; i++) {
+                final int threadIndex = i;
+                executor.submit(() -> {
+                    try {
+                        // 每个线程负责一段互不重复的ID，先更新再删除
+                        for (int id = threadIndex; id < idCount; id += threadCount) {
+                            String transactionId = "TX" + id;
+                            service.updateTransaction(transactionId, request);
+                            service.deleteTransaction(transactionId);
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            latch.await();
+        }
+
+        // 所有ID映射到同一组锁对象，总数等于分段数，不为每个ID创建新锁
+        Set<ReentrantLock> locks = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int id = 0; id < idCount; id++) {
+            ReentrantLock lock = service.lockFor("TX" + id);
+            assertSame(lock, service.lockFor(new String("TX" + id)));
+            locks.add(lock);
+        }
+        assertEquals(1024, locks.size());
+        assertTrue(locks.stream().noneMatch(ReentrantLock::isLocked));
+    }
+
+    /**
+     * 不保存任何数据的仓库：每个ID都存在，查询时返回新对象，避免仓库本身的内存干扰测量
+     */
+    private static class StatelessRepository implements TransactionRepository {
+
+        private static final LocalDateTime DATE = LocalDateTime.of(2025, 4, 5, 13, 30);
+
+        @Override
+        public Transaction save(Transaction transaction) {
+            return transaction;
+        }
+
+        @Override
+        public List<Transaction> saveAll(List<Transaction> transactions) {
+            return transactions;
+        }
+
+        @Override
+        public Transaction findById(String id) {
+            return new Transaction(id, "ACC1", new BigDecimal("1.00"), TransactionType.DEPOSIT, DATE, "Initial");
+        }
+
+        @Override
+        public List<Transaction> findAll() {
+            return List.of();
+        }
+
+        @Override
+        public Page<Transaction> findAll(Pageable pageable) {
+            return Page.empty(pageable);
+        }
+
+        @Override
+        public Page<Transaction> findByAccountId(String accountId, Pageable pageable) {
+            return Page.empty(pageable);
+        }
+
+        @Override
+        public List<Transaction> findAllAfter(LocalDateTime afterDate, String afterId, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public Transaction update(Transaction transaction) {
+            return transaction;
+        }
+
+        @Override
+        public Transaction updateIfVersion(Transaction transaction, long expectedVersion) {
+            return findById(transaction.getId());
+        }
+
+        @Override
+        public boolean deleteById(String id) {
+            return true;
+        }
+
+        @Override
+        public Transaction deleteByIdIfVersion(String id, long expectedVersion) {
+            return findById(id);
+        }
+
+        @Override
+        public boolean existsById(String id) {
+            return true;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -52,7 +53,7 @@ public void testConcurrentUpdateTransaction() throws InterruptedException {
     });
 
     // 创建TransactionServiceImpl实例，用于执行更新操作
-    TransactionServiceImpl service = new TransactionServiceImpl(transactionRepository);
+    TransactionServiceImpl service = new TransactionServiceImpl(transactionRepository, new TransactionChangeFeed(100, 100), new NoOpCacheManager());
     // 定义线程数量
     int threadCount = 10;
     // 创建线程池，每个任务使用一个新的虚拟线程执行
@@ -110,8 +111,10 @@ public void testConcurrentUpdateTransaction() throws InterruptedException {
         String transactionId = "test-id";
         AtomicBoolean exists = new AtomicBoolean(true);
 
-        // 配置交易仓库的模拟行为，当检查交易是否存在时，根据exists变量的值决定
-        when(transactionRepository.existsById(transactionId)).thenAnswer(invocation -> exists.get());
+        // 配置交易仓库的模拟行为，当查询交易时，根据exists变量的值决定是否返回交易
+        Transaction transaction = new Transaction(transactionId, "ACC123", new BigDecimal("100.00"),
+                TransactionType.DEPOSIT, LocalDateTime.now(), "存款", 1);
+        when(transactionRepository.findById(transactionId)).thenAnswer(invocation -> exists.get() ? transaction : null);
 
         // 配置删除操作的模拟行为，如果交易存在则成功删除，否则抛出未找到异常
         doAnswer(invocation -> {
@@ -123,7 +126,7 @@ public void testConcurrentUpdateTransaction() throws InterruptedException {
         }).when(transactionRepository).deleteById(transactionId);
 
         // 创建交易服务实例
-        TransactionServiceImpl service = new TransactionServiceImpl(transactionRepository);
+        TransactionServiceImpl service = new TransactionServiceImpl(transactionRepository, new TransactionChangeFeed(100, 100), new NoOpCacheManager());
 
         // 定义线程数量
         int threadCount = 10;
@@ -165,7 +168,7 @@ public void testConcurrentUpdateTransaction() throws InterruptedException {
         assertEquals(threadCount - 1, exceptionCount.get());
 
         // 验证存在性和删除操作被正确调用了次数
-        verify(transactionRepository, times(threadCount)).existsById(transactionId);
+        verify(transactionRepository, times(threadCount)).findById(transactionId);
         verify(transactionRepository, times(1)).deleteById(transactionId);
     }
 }
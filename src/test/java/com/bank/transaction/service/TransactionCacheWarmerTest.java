@@ -0,0 +1,70 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.response.TransactionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TransactionCacheWarmerTest {
+
+    private TransactionRepository transactionRepository;
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        cacheManager = new CacheConfig().cacheManager(DataSize.ofMegabytes(64), Duration.ofMinutes(10), Duration.ZERO, transactionRepository);
+    }
+
+    /**
+     * TC01: 测试预热把最近的交易全部写入缓存，不覆盖预热期间已写入的条目
+     */
+    @Test
+    void testRun_ShouldLoadRecentTransactions() throws InterruptedException {
+        // Arrange
+        List<Transaction> recent = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 2500; i++) {
+            recent.add(new Transaction("TX" + i, "ACC1", new BigDecimal("1.00"), TransactionType.DEPOSIT, now.minusSeconds(i), "desc"));
+        }
+        when(transactionRepository.findAllAfter(null, null, 5000)).thenReturn(recent);
+        Cache cache = cacheManager.getCache("transactions");
+        Transaction updated = new Transaction("TX0", "ACC1", new BigDecimal("2.00"), TransactionType.DEPOSIT, now, "updated");
+        updated.setVersion(1);
+        cache.put("TX0", TransactionResponse.fromEntity(updated));
+
+        // Act
+        new TransactionCacheWarmer(transactionRepository, cacheManager, 5000, Duration.ofSeconds(10)).run(null);
+
+        // Assert
+        for (int i = 0; i < 2500; i++) {
+            assertNotNull(cache.get("TX" + i));
+        }
+        assertEquals("updated", cache.get("TX0", TransactionResponse.class).getDescription());
+    }
+
+    /**
+     * TC02: 测试预热条数为 0 时不访问仓库
+     */
+    @Test
+    void testRun_Disabled_ShouldNotQueryRepository() throws InterruptedException {
+        new TransactionCacheWarmer(transactionRepository, cacheManager, 0, Duration.ofSeconds(10)).run(null);
+
+        verifyNoInteractions(transactionRepository);
+    }
+}
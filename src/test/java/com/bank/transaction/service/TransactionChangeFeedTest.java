@@ -0,0 +1,93 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.enums.TransactionChangeType;
+import com.bank.transaction.response.TransactionChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionChangeFeedTest {
+
+    /**
+     * TC01: 测试携带 Last-Event-ID 订阅时先补发之后的事件，再接收新的事件；不携带时只接收新的事件
+     */
+    @Test
+    void testSubscribe_ShouldResumeAfterLastEventId() throws InterruptedException {
+        TransactionChangeFeed feed = new TransactionChangeFeed(10, 10);
+        feed.publish(TransactionChangeType.CREATED, "TX1", null);
+        TransactionChangeEvent first;
+        try (TransactionChangeFeed.Subscription subscription = feed.subscribe(null)) {
+            feed.publish(TransactionChangeType.CREATED, "TX2", null);
+            first = subscription.next();
+            assertEquals("TX2", first.getTransactionId());
+        }
+        feed.publish(TransactionChangeType.UPDATED, "TX2", null);
+        feed.publish(TransactionChangeType.DELETED, "TX2", null);
+
+        try (TransactionChangeFeed.Subscription resumed = feed.subscribe(first.getEventId())) {
+            feed.publish(TransactionChangeType.CREATED, "TX3", null);
+
+            assertFalse(resumed.isReset());
+            assertEquals(TransactionChangeType.UPDATED, resumed.next().getType());
+            assertEquals(TransactionChangeType.DELETED, resumed.next().getType());
+            assertEquals("TX3", resumed.next().getTransactionId());
+        }
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    /**
+     * TC02: 测试 Last-Event-ID 对应的事件已被覆盖或来自其他实例时提示重新同步
+     */
+    @Test
+    void testSubscribe_UnknownLastEventId_ShouldReset() throws InterruptedException {
+        TransactionChangeFeed feed = new TransactionChangeFeed(2, 10);
+        TransactionChangeEvent first;
+        try (TransactionChangeFeed.Subscription subscription = feed.subscribe(null)) {
+            feed.publish(TransactionChangeType.CREATED, "TX1", null);
+            first = subscription.next();
+        }
+        feed.publish(TransactionChangeType.CREATED, "TX2", null);
+
+        try (TransactionChangeFeed.Subscription subscription = feed.subscribe(first.getEventId())) {
+            assertFalse(subscription.isReset());
+        }
+        // 缓冲区只保留最近 2 个事件，TX2 的事件被覆盖后无法从 TX1 之后续传
+        feed.publish(TransactionChangeType.CREATED, "TX3", null);
+        feed.publish(TransactionChangeType.CREATED, "TX4", null);
+        try (TransactionChangeFeed.Subscription subscription = feed.subscribe(first.getEventId())) {
+            assertTrue(subscription.isReset());
+        }
+        try (TransactionChangeFeed.Subscription subscription = feed.subscribe("other-1")) {
+            assertTrue(subscription.isReset());
+        }
+    }
+
+    /**
+     * TC03: 测试队列满的订阅者被丢弃，不影响其他订阅者
+     */
+    @Test
+    void testPublish_SlowSubscriber_ShouldBeDropped() throws InterruptedException {
+        TransactionChangeFeed feed = new TransactionChangeFeed(100, 2);
+        TransactionChangeFeed.Subscription slow = feed.subscribe(null);
+        TransactionChangeFeed.Subscription fast = feed.subscribe(null);
+
+        for (int i = 0; i < 3; i++) {
+            feed.publish(TransactionChangeType.CREATED, "TX" + i, null);
+            assertEquals("TX" + i, fast.next().getTransactionId());
+        }
+
+        assertNull(slow.next());
+        assertEquals(1, feed.getSubscriberCount());
+        fast.close();
+    }
+
+    /**
+     * TC04: 测试缓冲区大小或订阅者队列长度不大于 0 时拒绝创建
+     */
+    @Test
+    void testConstructor_NonPositiveSizes_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new TransactionChangeFeed(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionChangeFeed(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionChangeFeed(-1, -1));
+    }
+}
@@ -4,21 +4,37 @@ import com.bank.transaction.common.TransactionNotFoundException;
 import com.bank.transaction.enums.TransactionType;
 import com.bank.transaction.model.Transaction;
 import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.request.CreateTransactionRequest;
 import com.bank.transaction.request.UpdateTransactionRequest;
 import com.bank.transaction.response.TransactionResponse;
+import com.bank.transaction.util.TokenUtil;
+import com.bank.transaction.util.TransactionIdGenerateUtil;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -48,6 +64,9 @@ class TransactionServiceImplCacheTest {
         if (cache != null) {
             cache.clear();
         }
+        // 清空负缓存，避免前一个测试记入的不存在的ID影响当前测试
+        TransactionServiceImpl target = AopTestUtils.getTargetObject(transactionService);
+        ((com.github.benmanes.caffeine.cache.Cache<?, ?>) ReflectionTestUtils.getField(target, "missingIds")).invalidateAll();
     }
 
     @Test
@@ -61,32 +80,241 @@ class TransactionServiceImplCacheTest {
     }
 
     @Test
-    void updateTransaction_shouldEvictCache() {
+    void updateTransaction_shouldPutUpdatedResult() {
         when(transactionRepository.findById("tx123")).thenReturn(transaction);
-        when(transactionRepository.update(any(Transaction.class))).thenReturn(transaction);
+        when(transactionRepository.update(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction updated = invocation.getArgument(0);
+            updated.setVersion(updated.getVersion() + 1);
+            return updated;
+        });
         transactionService.getTransactionById("tx123");
         UpdateTransactionRequest req = new UpdateTransactionRequest();
         req.setAmount(new BigDecimal("200.00"));
         req.setType(TransactionType.DEPOSIT);
         req.setDescription("updated");
         transactionService.updateTransaction("tx123", req);
-        transactionService.getTransactionById("tx123");
-        // 因为 updateTransaction 方法使缓存失效了，但里面调用了 findById 方法，所以这里应该会调用三次 findById 方法
-        verify(transactionRepository, times(3)).findById("tx123");
+        TransactionResponse cached = transactionService.getTransactionById("tx123");
+        // updateTransaction 把更新后的结果写入缓存，之后的查询不再访问仓库，只有第一次查询和更新本身调用 findById
+        verify(transactionRepository, times(2)).findById("tx123");
+        assertThat(cached.getAmount()).isEqualByComparingTo("200.00");
+        assertThat(cached.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void createTransaction_shouldPutResult() {
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        CreateTransactionRequest req = new CreateTransactionRequest();
+        req.setAccountId("acc1");
+        req.setAmount(new BigDecimal("100.00"));
+        req.setType(TransactionType.DEPOSIT);
+        req.setPreventDuplicateToken(TokenUtil.generateToken());
+        TransactionResponse created = transactionService.createTransaction(req);
+        TransactionResponse read = transactionService.getTransactionById(created.getId());
+        // 创建时已写入缓存，创建后的第一次查询不访问仓库
+        assertThat(read).isEqualTo(created);
+        verify(transactionRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void cachePut_shouldNotReplaceNewerVersion() {
+        Cache cache = cacheManager.getCache("transactions");
+        TransactionResponse older = TransactionResponse.fromEntity(transaction);
+        transaction.setVersion(1);
+        TransactionResponse newer = TransactionResponse.fromEntity(transaction);
+        // 两个并发更新按相反的顺序写回缓存
+        cache.put("tx123", newer);
+        cache.put("tx123", older);
+        assertThat(cache.get("tx123", TransactionResponse.class)).isSameAs(newer);
+    }
+
+    @Test
+    void cacheWeight_shouldGrowWithDescriptionLength() {
+        com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache =
+                ((CaffeineCache) cacheManager.getCache("transactions")).getNativeCache();
+        Cache cache = cacheManager.getCache("transactions");
+        cache.put("short", TransactionResponse.fromEntity(transaction));
+        // 权重在 Caffeine 的维护任务中异步更新
+        nativeCache.cleanUp();
+        long shortWeight = nativeCache.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        cache.clear();
+        transaction.setDescription("描述".repeat(500));
+        cache.put("long", TransactionResponse.fromEntity(transaction));
+        nativeCache.cleanUp();
+        long longWeight = nativeCache.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        // 1000 个中文字符按每个 2 字节计入权重（减去原描述和键的差异）
+        assertThat(longWeight - shortWeight).isGreaterThan(1900);
+    }
+
+    /**
+     * 先创建后查询的负载下对比缓存命中率：写入时填充缓存与写入后不填充缓存（原来的行为）
+     */
+    @Test
+    void createThenRead_hitRatio() {
+        Map<String, Transaction> stored = new ConcurrentHashMap<>();
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction saved = invocation.getArgument(0);
+            stored.put(saved.getId(), saved);
+            return saved;
+        });
+        when(transactionRepository.findById(anyString())).thenAnswer(invocation -> stored.get(invocation.<String>getArgument(0)));
+        com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache =
+                ((CaffeineCache) cacheManager.getCache("transactions")).getNativeCache();
+
+        double writeThrough = hitRatio(nativeCache, false);
+        double evictOnWrite = hitRatio(nativeCache, true);
+
+        System.out.printf("先创建后查询（每笔查询 3 次）：写入时填充缓存命中率 %.2f，不填充缓存命中率 %.2f\n", writeThrough, evictOnWrite);
+        assertThat(writeThrough).isEqualTo(1.0);
+        assertThat(writeThrough).isGreaterThan(evictOnWrite);
+    }
+
+    private double hitRatio(com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache, boolean evictAfterCreate) {
+        Cache cache = cacheManager.getCache("transactions");
+        CacheStats before = nativeCache.stats();
+        for (int i = 0; i < 200; i++) {
+            CreateTransactionRequest req = new CreateTransactionRequest();
+            req.setAccountId("acc1");
+            req.setAmount(new BigDecimal("100.00"));
+            req.setType(TransactionType.DEPOSIT);
+            req.setPreventDuplicateToken(TokenUtil.generateToken());
+            String id = transactionService.createTransaction(req).getId();
+            if (evictAfterCreate) {
+                cache.evict(id);
+            }
+            for (int read = 0; read < 3; read++) {
+                transactionService.getTransactionById(id);
+            }
+        }
+        return nativeCache.stats().minus(before).hitRate();
     }
 
     @Test
     void deleteTransaction_shouldEvictCache() {
         when(transactionRepository.findById("tx123")).thenReturn(transaction);
-        when(transactionRepository.existsById("tx123")).thenReturn(true);
         doReturn(true).when(transactionRepository).deleteById("tx123");
         transactionService.getTransactionById("tx123");
         transactionService.deleteTransaction("tx123");
-        transactionService.getTransactionById("tx123");
-        // 因为 deleteTransaction 方法使缓存失效了，所以这里应该会调用两次 findById 方法
+        // deleteTransaction 使缓存失效并把ID记入负缓存，删除后的查询直接返回不存在，不再访问仓库
+        // （两次访问分别为第一次查询和删除时读取被删除交易的版本号）
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionById("tx123"));
         verify(transactionRepository, times(2)).findById("tx123");
     }
 
+    @Test
+    void deleteDuringUpdate_shouldNotBeUndoneByUpdateCachePut() throws InterruptedException {
+        when(transactionRepository.findById("tx123")).thenReturn(transaction);
+        doReturn(true).when(transactionRepository).deleteById("tx123");
+        Thread[] deleter = new Thread[1];
+        when(transactionRepository.update(any(Transaction.class))).thenAnswer(invocation -> {
+            // 仓库更新完成、更新结果写入缓存之前，另一个线程删除同一笔交易
+            deleter[0] = Thread.ofVirtual().start(() -> transactionService.deleteTransaction("tx123"));
+            deleter[0].join(200);
+            Transaction updated = invocation.getArgument(0);
+            updated.setVersion(1);
+            return updated;
+        });
+        UpdateTransactionRequest req = new UpdateTransactionRequest(new BigDecimal("200.00"), TransactionType.DEPOSIT, "updated");
+
+        transactionService.updateTransaction("tx123", req);
+        deleter[0].join();
+
+        // 删除在更新写入缓存之后才移除缓存，删除后的查询返回不存在
+        assertThat(cacheManager.getCache("transactions").get("tx123")).isNull();
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionById("tx123"));
+    }
+
+    @Test
+    void getTransactionById_repeatedMiss_shouldQueryRepositoryOnce() {
+        when(transactionRepository.findById("not_exist")).thenReturn(null);
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache("transactions");
+        CacheStats before = cache.getNativeCache().stats();
+        for (int i = 0; i < 100; i++) {
+            assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionById("not_exist"));
+        }
+        // 第一次未找到后记入负缓存，之后的查询不访问仓库
+        verify(transactionRepository, times(1)).findById("not_exist");
+        // 不存在的交易不写入交易缓存，负缓存命中时也不进入交易缓存的查询
+        assertThat(cache.getAsyncCache().asMap()).doesNotContainKey("not_exist");
+        assertThat(cache.getNativeCache().stats().minus(before).requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void createTransaction_shouldInvalidateMissingId() {
+        when(transactionRepository.findById("tx123")).thenReturn(null);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.getTransactionById("tx123"));
+        cacheManager.getCache("transactions").clear();
+
+        // 创建一笔ID相同的交易，负缓存中的ID被移除
+        CreateTransactionRequest req = new CreateTransactionRequest();
+        req.setAccountId("acc1");
+        req.setAmount(new BigDecimal("100.00"));
+        req.setType(TransactionType.DEPOSIT);
+        req.setPreventDuplicateToken(TokenUtil.generateToken());
+        try (MockedStatic<TransactionIdGenerateUtil> ids = mockStatic(TransactionIdGenerateUtil.class)) {
+            ids.when(TransactionIdGenerateUtil::generateTransactionId).thenReturn("tx123");
+            transactionService.createTransaction(req);
+        }
+        // 清空交易缓存，确认查询会重新访问仓库而不是命中负缓存
+        cacheManager.getCache("transactions").clear();
+        when(transactionRepository.findById("tx123")).thenReturn(transaction);
+        assertThat(transactionService.getTransactionById("tx123").getId()).isEqualTo("tx123");
+        verify(transactionRepository, times(2)).findById("tx123");
+    }
+
+    @Test
+    void getTransactionById_concurrentMisses_shouldLoadOnce() throws InterruptedException {
+        // 模拟较慢的仓库，保证所有查询都在第一次加载完成前到达
+        when(transactionRepository.findById("tx123")).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return transaction;
+        });
+        List<TransactionResponse> responses = concurrentGets("tx123", 500);
+
+        assertThat(responses).hasSize(500).allMatch(response -> response.getId().equals("tx123"));
+        verify(transactionRepository, times(1)).findById("tx123");
+    }
+
+    @Test
+    void getTransactionById_concurrentMissesOfMissingId_shouldQueryOnce() throws InterruptedException {
+        when(transactionRepository.findById("not_exist")).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return null;
+        });
+        List<TransactionResponse> responses = concurrentGets("not_exist", 500);
+
+        // 等待同一次加载的查询都得到 TransactionNotFoundException
+        assertThat(responses).isEmpty();
+        verify(transactionRepository, times(1)).findById("not_exist");
+    }
+
+    /**
+     * 用虚拟线程同时查询同一个ID
+     * @return 查询成功的结果，抛出 TransactionNotFoundException 的查询不计入
+     */
+    private List<TransactionResponse> concurrentGets(String id, int threadCount) throws InterruptedException {
+        List<TransactionResponse> responses = new CopyOnWriteArrayList<>();
+        AtomicInteger unexpected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threadCount; i++) {
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        responses.add(transactionService.getTransactionById(id));
+                    } catch (TransactionNotFoundException e) {
+                        // 交易不存在
+                    } catch (Exception e) {
+                        unexpected.incrementAndGet();
+                    }
+                });
+            }
+            start.countDown();
+        }
+        assertThat(unexpected.get()).isZero();
+        return responses;
+    }
+
     @Test
     void getTransactionById_notFound_shouldThrow() {
         when(transactionRepository.findById("not_exist")).thenReturn(null);
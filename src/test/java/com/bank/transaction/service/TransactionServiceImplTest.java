@@ -2,12 +2,20 @@ package com.bank.transaction.service;
 
 import com.bank.transaction.common.InvalidRequestException;
 import com.bank.transaction.common.TransactionNotFoundException;
+import com.bank.transaction.common.VersionConflictException;
+import com.bank.transaction.enums.TransactionChangeType;
 import com.bank.transaction.enums.TransactionType;
 import com.bank.transaction.model.Transaction;
 import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.request.BatchCreateTransactionRequest;
+import com.bank.transaction.request.BatchTransactionItem;
 import com.bank.transaction.request.CreateTransactionRequest;
 import com.bank.transaction.request.UpdateTransactionRequest;
+import com.bank.transaction.response.TransactionBatchResponse;
+import com.bank.transaction.response.TransactionChangeEvent;
 import com.bank.transaction.response.TransactionResponse;
+import com.bank.transaction.response.TransactionScrollResponse;
+import com.bank.transaction.util.ScrollCursorUtil;
 import com.bank.transaction.util.TokenUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,13 +23,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,12 +46,14 @@ import static org.mockito.Mockito.*;
 class TransactionServiceImplTest {
 
     private TransactionRepository transactionRepository;
+    private TransactionChangeFeed changeFeed;
     private TransactionServiceImpl transactionService;
 
     @BeforeEach
     void setUp() {
         transactionRepository = Mockito.mock(TransactionRepository.class);
-        transactionService = new TransactionServiceImpl(transactionRepository);
+        changeFeed = new TransactionChangeFeed(100, 100);
+        transactionService = new TransactionServiceImpl(transactionRepository, changeFeed, new NoOpCacheManager());
     }
 
     @Test
@@ -254,6 +267,91 @@ class TransactionServiceImplTest {
         verify(transactionRepository, times(1)).findAll(pageable);
     }
 
+    @Test
+    void testGetTransactionsByAccountId_WithData() {
+        // 准备测试数据
+        Pageable pageable = PageRequest.of(0, 10);
+        Transaction transaction = new Transaction("TRANS123", "ACC123", new BigDecimal("100.00"),
+                TransactionType.DEPOSIT, LocalDateTime.now(), "存款");
+        when(transactionRepository.findByAccountId("ACC123", pageable))
+                .thenReturn(new PageImpl<>(List.of(transaction), pageable, 1));
+
+        // 执行测试
+        Page<TransactionResponse> result = transactionService.getTransactionsByAccountId("ACC123", pageable);
+
+        // 验证结果
+        assertEquals(1, result.getTotalElements());
+        assertEquals("TRANS123", result.getContent().getFirst().getId());
+        assertEquals("ACC123", result.getContent().getFirst().getAccountId());
+        verify(transactionRepository, never()).findAll();
+    }
+
+    @Test
+    void testScrollTransactions_HasMore_ShouldReturnNextCursor() {
+        // 准备测试数据，limit 为 1 时仓库返回 2 条，说明还有下一批
+        LocalDateTime now = LocalDateTime.now();
+        Transaction first = new Transaction("TRANS2", "ACC123", new BigDecimal("100.00"), TransactionType.DEPOSIT, now, "存款");
+        Transaction second = new Transaction("TRANS1", "ACC123", new BigDecimal("200.00"), TransactionType.DEPOSIT, now.minusDays(1), "存款");
+        when(transactionRepository.findAllAfter(null, null, 2)).thenReturn(new ArrayList<>(List.of(first, second)));
+
+        // 执行测试
+        TransactionScrollResponse response = transactionService.scrollTransactions(null, 1);
+
+        // 验证结果
+        assertEquals(1, response.getContent().size());
+        assertEquals("TRANS2", response.getContent().getFirst().getId());
+        assertEquals(ScrollCursorUtil.encode(now, "TRANS2"), response.getNextCursor());
+    }
+
+    @Test
+    void testScrollTransactions_WithCursor_LastBatch_ShouldReturnNullCursor() {
+        // 准备测试数据
+        LocalDateTime date = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+        String cursor = ScrollCursorUtil.encode(date, "TRANS2");
+        Transaction last = new Transaction("TRANS1", "ACC123", new BigDecimal("100.00"), TransactionType.DEPOSIT, date.minusDays(1), "存款");
+        when(transactionRepository.findAllAfter(date, "TRANS2", 11)).thenReturn(List.of(last));
+
+        // 执行测试
+        TransactionScrollResponse response = transactionService.scrollTransactions(cursor, 10);
+
+        // 验证结果
+        assertEquals(1, response.getContent().size());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void testForEachTransaction_ShouldReadInBatchesByCursor() {
+        // 准备测试数据：仓库中有 2500 笔交易，按游标每批最多返回 1000 条
+        LocalDateTime date = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+        List<Transaction> all = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            all.add(new Transaction("TRANS" + i, "ACC123", new BigDecimal("1.00"), TransactionType.DEPOSIT, date.minusSeconds(i), "存款"));
+        }
+        when(transactionRepository.findAllAfter(any(), any(), anyInt())).thenAnswer(invocation -> {
+            String afterId = invocation.getArgument(1);
+            int from = afterId == null ? 0 : Integer.parseInt(afterId.substring(5)) + 1;
+            return all.subList(from, Math.min(from + invocation.<Integer>getArgument(2), all.size()));
+        });
+
+        // 执行测试
+        List<String> ids = new ArrayList<>();
+        transactionService.forEachTransaction(response -> ids.add(response.getId()));
+
+        // 验证结果：按顺序遍历全部交易，分 3 批读取，不读取全量数据
+        assertEquals(2500, ids.size());
+        assertEquals("TRANS0", ids.getFirst());
+        assertEquals("TRANS2499", ids.getLast());
+        verify(transactionRepository, times(3)).findAllAfter(any(), any(), eq(1000));
+        verify(transactionRepository, never()).findAll();
+    }
+
+    @Test
+    void testScrollTransactions_InvalidLimit() {
+        // 验证异常
+        assertThrows(InvalidRequestException.class, () -> transactionService.scrollTransactions(null, 0));
+        verify(transactionRepository, never()).findAllAfter(any(), any(), anyInt());
+    }
+
     @Test
     void testUpdateTransaction_Success() {
         // 准备测试数据
@@ -274,7 +372,7 @@ class TransactionServiceImplTest {
         request.setDescription("修改后的描述");
 
         when(transactionRepository.findById(transactionId)).thenReturn(existingTransaction);
-        when(transactionRepository.update(any(Transaction.class))).thenReturn(existingTransaction);
+        when(transactionRepository.update(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // 执行测试
         TransactionResponse response = transactionService.updateTransaction(transactionId, request);
@@ -286,6 +384,11 @@ class TransactionServiceImplTest {
         assertEquals(new BigDecimal("150.00"), response.getAmount());
         assertEquals(TransactionType.WITHDRAWAL, response.getType());
         assertEquals("修改后的描述", response.getDescription());
+        assertEquals(existingTransaction.getDate(), response.getDate());
+        // 仓库中的对象不被修改，更新以新对象的形式交给仓库
+        assertEquals(new BigDecimal("100.00"), existingTransaction.getAmount());
+        assertEquals("存款", existingTransaction.getDescription());
+        verify(transactionRepository).update(argThat(transaction -> transaction != existingTransaction));
     }
 
     @Test
@@ -305,20 +408,30 @@ class TransactionServiceImplTest {
     }
 
     @Test
-    void testDeleteTransaction_Success() {
+    void testDeleteTransaction_Success() throws InterruptedException {
         // 准备测试数据
         String transactionId = "TRANS123";
+        Transaction existingTransaction = new Transaction(transactionId, "ACC123", new BigDecimal("100.00"),
+                TransactionType.DEPOSIT, LocalDateTime.now(), "存款", 5);
 
-        when(transactionRepository.existsById(transactionId)).thenReturn(true);
+        when(transactionRepository.findById(transactionId)).thenReturn(existingTransaction);
 
         doReturn(true).when(transactionRepository).deleteById(transactionId);
 
+        TransactionChangeFeed.Subscription subscription = changeFeed.subscribe(null);
+
         // 执行测试
         assertDoesNotThrow(() -> transactionService.deleteTransaction(transactionId));
 
         // 验证交互
-        verify(transactionRepository, times(1)).existsById(transactionId);
+        verify(transactionRepository, times(1)).findById(transactionId);
         verify(transactionRepository, times(1)).deleteById(transactionId);
+        // 删除事件带有被删除交易的版本号
+        TransactionChangeEvent deleted = subscription.next();
+        assertEquals(TransactionChangeType.DELETED, deleted.getType());
+        assertEquals(5, deleted.getVersion());
+        assertNull(deleted.getTransaction());
+        subscription.close();
     }
 
     @Test
@@ -326,14 +439,135 @@ class TransactionServiceImplTest {
         // 准备测试数据
         String transactionId = "NON_EXISTENT";
 
-        when(transactionRepository.existsById(transactionId)).thenReturn(false);
+        when(transactionRepository.findById(transactionId)).thenReturn(null);
 
         // 验证异常
         assertThrows(TransactionNotFoundException.class, () -> transactionService.deleteTransaction(transactionId));
 
         // 验证交互
-        verify(transactionRepository, times(1)).existsById(transactionId);
+        verify(transactionRepository, times(1)).findById(transactionId);
         verify(transactionRepository, never()).deleteById(transactionId);
     }
-}
 
+    @Test
+    void testUpdateTransaction_WithMatchingVersion_ShouldCompareAndSet() {
+        // 准备测试数据
+        String transactionId = "TRANS123";
+        LocalDateTime date = LocalDateTime.now();
+        Transaction existingTransaction = new Transaction(transactionId, "ACC123", new BigDecimal("100.00"),
+                TransactionType.DEPOSIT, date, "存款", 3);
+        UpdateTransactionRequest request = new UpdateTransactionRequest(new BigDecimal("150.00"), TransactionType.WITHDRAWAL, "修改后的描述");
+
+        when(transactionRepository.findById(transactionId)).thenReturn(existingTransaction);
+        when(transactionRepository.updateIfVersion(any(Transaction.class), eq(3L))).thenAnswer(invocation -> {
+            invocation.<Transaction>getArgument(0).setVersion(4);
+            return existingTransaction;
+        });
+
+        // 执行测试
+        TransactionResponse response = transactionService.updateTransaction(transactionId, request, 3);
+
+        // 验证结果：不修改仓库返回的对象，不调用加锁的 update
+        assertEquals(new BigDecimal("150.00"), response.getAmount());
+        assertEquals(date, response.getDate());
+        assertEquals(4, response.getVersion());
+        assertEquals(new BigDecimal("100.00"), existingTransaction.getAmount());
+        verify(transactionRepository, never()).update(any());
+    }
+
+    @Test
+    void testUpdateTransaction_WithStaleVersion_ShouldThrowVersionConflict() {
+        // 准备测试数据
+        String transactionId = "TRANS123";
+        Transaction existingTransaction = new Transaction(transactionId, "ACC123", new BigDecimal("100.00"),
+                TransactionType.DEPOSIT, LocalDateTime.now(), "存款", 3);
+        Transaction concurrentTransaction = new Transaction(transactionId, "ACC123", new BigDecimal("120.00"),
+                TransactionType.DEPOSIT, LocalDateTime.now(), "存款", 4);
+        UpdateTransactionRequest request = new UpdateTransactionRequest(new BigDecimal("150.00"), TransactionType.WITHDRAWAL, "修改后的描述");
+
+        when(transactionRepository.findById(transactionId)).thenReturn(existingTransaction);
+        // 读取之后被其他请求抢先更新
+        when(transactionRepository.updateIfVersion(any(Transaction.class), eq(3L))).thenReturn(concurrentTransaction);
+
+        // 验证异常：读取时版本已过期，以及 CAS 时版本已变化
+        assertThrows(VersionConflictException.class, () -> transactionService.updateTransaction(transactionId, request, 2));
+        assertThrows(VersionConflictException.class, () -> transactionService.updateTransaction(transactionId, request, 3));
+        verify(transactionRepository, times(1)).updateIfVersion(any(Transaction.class), anyLong());
+    }
+
+    @Test
+    void testDeleteTransaction_WithVersion() throws InterruptedException {
+        // 准备测试数据
+        String transactionId = "TRANS123";
+        Transaction existingTransaction = new Transaction(transactionId, "ACC123", new BigDecimal("100.00"),
+                TransactionType.DEPOSIT, LocalDateTime.now(), "存款", 3);
+
+        when(transactionRepository.deleteByIdIfVersion(transactionId, 3)).thenReturn(existingTransaction);
+        when(transactionRepository.deleteByIdIfVersion(transactionId, 2)).thenReturn(existingTransaction);
+        when(transactionRepository.deleteByIdIfVersion("NON_EXISTENT", 1)).thenReturn(null);
+
+        TransactionChangeFeed.Subscription subscription = changeFeed.subscribe(null);
+
+        // 执行测试
+        assertDoesNotThrow(() -> transactionService.deleteTransaction(transactionId, 3));
+        assertThrows(VersionConflictException.class, () -> transactionService.deleteTransaction(transactionId, 2));
+        assertThrows(TransactionNotFoundException.class, () -> transactionService.deleteTransaction("NON_EXISTENT", 1));
+        verify(transactionRepository, never()).deleteById(any());
+        // 只有成功的删除增加修改计数并发布变更事件
+        assertEquals(1, transactionService.getModificationCount());
+        changeFeed.publish(TransactionChangeType.CREATED, "MARKER", null);
+        TransactionChangeEvent deleted = subscription.next();
+        assertEquals(TransactionChangeType.DELETED, deleted.getType());
+        assertEquals(transactionId, deleted.getTransactionId());
+        assertEquals(3, deleted.getVersion());
+        assertEquals("MARKER", subscription.next().getTransactionId());
+        subscription.close();
+    }
+
+    @Test
+    void testCreateTransactions_ShouldValidateEachItemAndSaveOnce() {
+        // 准备测试数据：第二条缺少金额，第四条为 null
+        BatchTransactionItem valid1 = new BatchTransactionItem("ACC1", new BigDecimal("100.00"), TransactionType.DEPOSIT, "存款1");
+        BatchTransactionItem invalid = new BatchTransactionItem("ACC2", null, TransactionType.DEPOSIT, "");
+        BatchTransactionItem valid2 = new BatchTransactionItem("ACC3", new BigDecimal("300.00"), TransactionType.WITHDRAWAL, "取款");
+        BatchCreateTransactionRequest request = new BatchCreateTransactionRequest("TOKEN123",
+                Arrays.asList(valid1, invalid, valid2, null));
+
+        try (MockedStatic<TokenUtil> mockedTokenUtil = Mockito.mockStatic(TokenUtil.class)) {
+            // 执行测试
+            TransactionBatchResponse response = transactionService.createTransactions(request);
+
+            // 验证结果
+            assertEquals(2, response.getCreated());
+            assertEquals(2, response.getFailed());
+            assertEquals(4, response.getResults().size());
+            assertTrue(response.getResults().get(0).isSuccess());
+            assertEquals("ACC1", response.getResults().get(0).getTransaction().getAccountId());
+            assertFalse(response.getResults().get(1).isSuccess());
+            assertEquals("amount: 金额不能为空; description: 描述不能为空", response.getResults().get(1).getMessage());
+            assertEquals("ACC3", response.getResults().get(2).getTransaction().getAccountId());
+            assertEquals("交易不能为空", response.getResults().get(3).getMessage());
+            assertNotEquals(response.getResults().get(0).getTransaction().getId(), response.getResults().get(2).getTransaction().getId());
+
+            // 验证交互：令牌只校验一次，只调用一次批量保存
+            mockedTokenUtil.verify(() -> TokenUtil.validateAndConsumeToken("TOKEN123"), times(1));
+            verify(transactionRepository, times(1)).saveAll(argThat(list -> list.size() == 2));
+            verify(transactionRepository, never()).save(any());
+        }
+    }
+
+    @Test
+    void testCreateTransactions_InvalidSize() {
+        BatchCreateTransactionRequest empty = new BatchCreateTransactionRequest("TOKEN123", new ArrayList<>());
+        List<BatchTransactionItem> items = new ArrayList<>();
+        for (int i = 0; i < 10001; i++) {
+            items.add(new BatchTransactionItem("ACC1", new BigDecimal("1.00"), TransactionType.DEPOSIT, "desc"));
+        }
+        BatchCreateTransactionRequest tooLarge = new BatchCreateTransactionRequest("TOKEN123", items);
+
+        // 验证异常：超出范围时不消费令牌也不保存
+        assertThrows(InvalidRequestException.class, () -> transactionService.createTransactions(empty));
+        assertThrows(InvalidRequestException.class, () -> transactionService.createTransactions(tooLarge));
+        verify(transactionRepository, never()).saveAll(any());
+    }
+}
@@ -0,0 +1,45 @@
+package com.bank.transaction.util;
+
+import com.bank.transaction.common.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScrollCursorUtilTest {
+
+    /**
+     * 测试编码后再解码能还原 (日期, ID)
+     */
+    @Test
+    void testEncodeDecode_RoundTrip() {
+        LocalDateTime date = LocalDateTime.of(2025, 4, 5, 13, 30, 45, 123456789);
+        String cursor = ScrollCursorUtil.encode(date, "20250405133045123001");
+
+        ScrollCursorUtil.Cursor decoded = ScrollCursorUtil.decode(cursor);
+
+        assertEquals(date, decoded.date());
+        assertEquals("20250405133045123001", decoded.id());
+    }
+
+    /**
+     * 测试日期为 null 时也能正确编码和解码
+     */
+    @Test
+    void testEncodeDecode_NullDate() {
+        ScrollCursorUtil.Cursor decoded = ScrollCursorUtil.decode(ScrollCursorUtil.encode(null, "TX1"));
+
+        assertNull(decoded.date());
+        assertEquals("TX1", decoded.id());
+    }
+
+    /**
+     * 测试非法游标抛出 InvalidRequestException
+     */
+    @Test
+    void testDecode_InvalidCursor_ThrowsInvalidRequestException() {
+        assertThrows(InvalidRequestException.class, () -> ScrollCursorUtil.decode("not-a-cursor"));
+        assertThrows(InvalidRequestException.class, () -> ScrollCursorUtil.decode("%%%"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.bank.transaction.util;
+
+import com.bank.transaction.common.DuplicateRequestException;
+import com.bank.transaction.common.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignedTokensTest {
+
+    private static final byte[] SECRET = "test-secret".getBytes(StandardCharsets.UTF_8);
+    private static final long NOW = 1_735_689_600L;
+
+    private final SignedTokens tokens = new SignedTokens(SECRET, 50);
+
+    /**
+     * TC01: 测试签发的token只能被消费一次，且可以在共用密钥的另一个副本上校验
+     */
+    @Test
+    void testValidateAndConsume_ShouldAcceptOnceAcrossReplicas() {
+        SignedTokens otherReplica = new SignedTokens(SECRET, 50);
+        String token = tokens.issue(NOW);
+
+        assertDoesNotThrow(() -> otherReplica.validateAndConsume(token, NOW + 1));
+        DuplicateRequestException exception = assertThrows(DuplicateRequestException.class,
+                () -> otherReplica.validateAndConsume(token, NOW + 2));
+        assertEquals("重复请求！", exception.getMessage());
+        assertEquals(1, otherReplica.consumedCount());
+    }
+
+    /**
+     * TC02: 测试篡改、格式错误或其他密钥签发的token无效
+     */
+    @Test
+    void testValidateAndConsume_InvalidToken_ThrowsInvalidRequestException() {
+        String token = tokens.issue(NOW);
+        char last = token.charAt(10);
+        String tampered = token.substring(0, 10) + (last == 'A' ? 'B' : 'A') + token.substring(11);
+        String foreign = new SignedTokens("other-secret".getBytes(StandardCharsets.UTF_8), 50).issue(NOW);
+
+        for (String invalid : new String[]{tampered, foreign, "abc123", token + "A", "!".repeat(38)}) {
+            InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                    () -> tokens.validateAndConsume(invalid, NOW));
+            assertEquals("无效的 token！", exception.getMessage());
+        }
+        assertEquals(0, tokens.consumedCount());
+    }
+
+    /**
+     * TC03: 测试过期的token和签发时间明显晚于当前时间的token被拒绝
+     */
+    @Test
+    void testValidateAndConsume_ExpiredOrFutureToken_ThrowsInvalidRequestException() {
+        String token = tokens.issue(NOW);
+
+        InvalidRequestException expired = assertThrows(InvalidRequestException.class,
+                () -> tokens.validateAndConsume(token, NOW + 51));
+        assertEquals("token 已过期！", expired.getMessage());
+        assertThrows(InvalidRequestException.class, () -> tokens.validateAndConsume(tokens.issue(NOW + 60), NOW));
+        // 有效期的最后一秒仍然可用
+        assertDoesNotThrow(() -> tokens.validateAndConsume(token, NOW + 50));
+    }
+
+    /**
+     * TC04: 测试已消费记录按时间窗口整代丢弃，只保留有效期内的数据
+     */
+    @Test
+    void testConsumedNonces_ShouldBeDroppedByWindow() {
+        int perSecond = 100;
+        for (int second = 0; second < 500; second++) {
+            for (int i = 0; i < perSecond; i++) {
+                tokens.validateAndConsume(tokens.issue(NOW + second), NOW + second);
+            }
+        }
+        // 最多保留三个窗口的数据
+        assertTrue(tokens.consumedCount() <= 3 * 50 * perSecond, "已消费记录过多：" + tokens.consumedCount());
+    }
+
+    /**
+     * 基准测试：签名token的签发和校验速率
+     */
+    @Test
+    void testIssueAndConsume_Throughput() {
+        int count = 500_000;
+        String[] issued = new String[count];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            issued[i] = tokens.issue(NOW);
+        }
+        long issueNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (String token : issued) {
+            tokens.validateAndConsume(token, NOW);
+        }
+        long consumeNanos = System.nanoTime() - start;
+
+        System.out.printf("签名token签发：每秒 %.0f 个，校验并消费：每秒 %.0f 个\n",
+                count * 1e9 / issueNanos, count * 1e9 / consumeNanos);
+        assertEquals(count, tokens.consumedCount());
+    }
+}
@@ -0,0 +1,166 @@
+package com.bank.transaction.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + 86_400_000L;
+
+    // 对比用的原实现：其他测试启动的 Spring 上下文可能已切换为 Snowflake ID
+    @BeforeEach
+    void setUp() {
+        TransactionIdGenerateUtil.useSnowflake(null);
+    }
+
+    /**
+     * TC01: 测试ID包含时间戳和节点ID，字符串形式定长且可以解析回原值
+     */
+    @Test
+    void testNextId_ShouldEncodeTimestampAndNode() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, () -> NOW);
+
+        long id = generator.nextId();
+        String text = SnowflakeIdGenerator.toString(id);
+
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(id));
+        assertEquals(5, (id >>> 12) & 1023);
+        assertEquals(SnowflakeIdGenerator.STRING_LENGTH, text.length());
+        assertEquals(id, SnowflakeIdGenerator.parse(text));
+        assertEquals(id, SnowflakeIdGenerator.parse(text.toLowerCase()));
+        assertEquals(Long.MAX_VALUE, SnowflakeIdGenerator.parse(SnowflakeIdGenerator.toString(Long.MAX_VALUE)));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeIdGenerator.parse("U000000000000"));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeIdGenerator.parse("ZZZZZZZZZZZZZ"));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+
+        // 严格解析只接受标准形式
+        assertEquals(id, SnowflakeIdGenerator.decode(text));
+        assertEquals(Long.MAX_VALUE, SnowflakeIdGenerator.decode(SnowflakeIdGenerator.toString(Long.MAX_VALUE)));
+        assertEquals(-1, SnowflakeIdGenerator.decode(text.toLowerCase()));
+        assertEquals(-1, SnowflakeIdGenerator.decode("O000000000000"));
+        assertEquals(-1, SnowflakeIdGenerator.decode("G000000000000"));
+        assertEquals(-1, SnowflakeIdGenerator.decode("000000000000Ā"));
+        assertEquals(-1, SnowflakeIdGenerator.decode("00000000000001"));
+    }
+
+    /**
+     * TC02: 测试同一毫秒内序号用完和时钟回拨时，ID仍然严格递增且字符串字典序一致
+     */
+    @Test
+    void testNextId_WithSequenceOverflowAndClockSkew_ShouldStayMonotonic() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+        long previous = generator.nextId();
+        String previousText = SnowflakeIdGenerator.toString(previous);
+        for (int i = 0; i < 20_000; i++) {
+            // 时钟在前后 5 秒之间跳动
+            if (i % 1000 == 0) {
+                clock.set(NOW + (i % 3000 == 0 ? -5000 : 5000));
+            }
+            long id = generator.nextId();
+            String text = SnowflakeIdGenerator.toString(id);
+            assertTrue(id > previous);
+            assertTrue(text.compareTo(previousText) > 0);
+            previous = id;
+            previousText = text;
+        }
+        // 时钟恢复后重新使用真实时间
+        clock.set(NOW + 60_000);
+        assertEquals(NOW + 60_000, SnowflakeIdGenerator.timestampOf(generator.nextId()));
+    }
+
+    /**
+     * TC03: 多线程以每秒 100 万个的速率生成ID，不应出现重复；作为对比统计原实现的重复数量
+     */
+    @Test
+    void testNextId_ConcurrentAtOneMillionPerSecond_ShouldNotCollide() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        int threadCount = 8;
+        int perThread = 125_000;
+        long[] ids = new long[threadCount * perThread];
+        AtomicInteger outOfOrder = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threadCount; t++) {
+                final int offset = t * perThread;
+                executor.submit(() -> {
+                    try {
+                        for (int i = 0; i < perThread; i++) {
+                            ids[offset + i] = generator.nextId();
+                            // 每个线程内严格递增
+                            if (i > 0 && ids[offset + i] <= ids[offset + i - 1]) {
+                                outOfOrder.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            latch.await();
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(ids);
+        int collisions = 0;
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] == ids[i - 1]) {
+                collisions++;
+            }
+        }
+
+        Set<String> legacy = new HashSet<>();
+        int legacyCollisions = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (!legacy.add(TransactionIdGenerateUtil.generateTransactionId())) {
+                legacyCollisions++;
+            }
+        }
+        System.out.printf("生成 %d 个 Snowflake ID 耗时 %d ms，重复 %d 个；原实现生成相同数量重复 %d 个\n",
+                ids.length, elapsed / 1_000_000, collisions, legacyCollisions);
+        assertEquals(0, collisions);
+        assertEquals(0, outOfOrder.get());
+    }
+
+    /**
+     * 基准测试：与原实现对比单个ID的生成耗时，只打印结果，耗时受 JIT 和机器负载影响，不作断言
+     */
+    @Test
+    void testNextId_ComparedWithLegacyGenerator() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        int count = 1_000_000;
+        long sink = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += TransactionIdGenerateUtil.generateTransactionId().length();
+        }
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += generator.nextId();
+        }
+        long snowflakeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += generator.nextIdString().length();
+        }
+        long snowflakeStringNanos = System.nanoTime() - start;
+
+        System.out.printf("原实现每个 %.1f ns，Snowflake long 每个 %.1f ns，Snowflake 字符串每个 %.1f ns (%d)\n",
+                legacyNanos / (double) count, snowflakeNanos / (double) count, snowflakeStringNanos / (double) count, sink & 1);
+    }
+}
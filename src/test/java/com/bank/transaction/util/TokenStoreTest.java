@@ -0,0 +1,160 @@
+package com.bank.transaction.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenStoreTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0, 0);
+
+    /**
+     * TC01: 测试生成的token和任意字符串token都能保存、查询和删除
+     */
+    @Test
+    void testIssueAndPut_ShouldStoreTokens() {
+        TokenStore store = new TokenStore(50, false);
+
+        String issued = store.issue(BASE);
+        store.put("abc123", new TokenUtil.TokenInfo(BASE.plusSeconds(1), true));
+
+        assertEquals(new TokenUtil.TokenInfo(BASE, false), store.get(issued));
+        assertEquals(new TokenUtil.TokenInfo(BASE.plusSeconds(1), true), store.get("abc123"));
+        // 大写形式不是生成的token
+        assertNull(store.get(issued.toUpperCase()));
+        assertEquals(2, store.size());
+        assertEquals(new TokenUtil.TokenInfo(BASE, false), store.remove(issued));
+        assertFalse(store.containsKey(issued));
+        assertNull(store.remove(issued));
+        assertEquals(1, store.size());
+    }
+
+    /**
+     * TC02: 测试随机写入和删除后与 HashMap 的结果一致，覆盖扩容、缩容和删除时的元素前移
+     */
+    @Test
+    void testRandomOperations_ShouldMatchHashMap() {
+        TokenStore store = new TokenStore(50, false);
+        Map<String, TokenUtil.TokenInfo> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            String token = "token-" + random.nextInt(20_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(token), store.remove(token));
+            } else {
+                TokenUtil.TokenInfo info = new TokenUtil.TokenInfo(BASE.plusSeconds(random.nextInt(100)), random.nextBoolean());
+                expected.put(token, info);
+                store.put(token, info);
+            }
+        }
+        assertEquals(expected.size(), store.size());
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(expected.get("token-" + i), store.get("token-" + i));
+        }
+    }
+
+    /**
+     * TC03: 测试时间轮只清理超过有效期的token
+     */
+    @Test
+    void testExpire_ShouldRemoveOnlyExpiredTokens() {
+        TokenStore store = new TokenStore(50, false);
+        long now = BASE.toEpochSecond(ZoneOffset.UTC);
+        String expired = store.issue(BASE.minusSeconds(51));
+        String boundary = store.issue(BASE.minusSeconds(50));
+        String fresh = store.issue(BASE.minusSeconds(10));
+        String future = store.issue(BASE.plusSeconds(30));
+        // 已使用的token过期后同样要被清理
+        store.put("used", new TokenUtil.TokenInfo(BASE.minusSeconds(60), true));
+
+        store.expire(now);
+
+        assertNull(store.get(expired));
+        assertNull(store.get("used"));
+        assertNotNull(store.get(boundary));
+        assertNotNull(store.get(fresh));
+        assertNotNull(store.get(future));
+
+        store.expire(now + 200);
+        assertEquals(0, store.size());
+    }
+
+    /**
+     * 基准测试：token生成和消费的速率
+     */
+    @Test
+    void testIssueAndConsume_Throughput() {
+        TokenStore store = new TokenStore(50, false);
+        int count = 1_000_000;
+        String[] tokens = new String[count];
+        LocalDateTime now = LocalDateTime.now();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            tokens[i] = store.issue(now);
+        }
+        long issueNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (String token : tokens) {
+            store.consume(token, now);
+        }
+        long consumeNanos = System.nanoTime() - start;
+
+        System.out.printf("token生成：每秒 %.0f 个，token消费：每秒 %.0f 个\n",
+                count * 1e9 / issueNanos, count * 1e9 / consumeNanos);
+        assertEquals(count, store.size());
+    }
+
+    /**
+     * 基准测试：以固定速率持续生成token，过期清理后的稳定内存占用，与 ConcurrentHashMap 对比
+     */
+    @Test
+    void testSteadyStateMemory_ShouldStayBounded() {
+        int perSecond = 10_000;
+        int seconds = 200;
+        Runtime runtime = Runtime.getRuntime();
+        long baseSecond = BASE.toEpochSecond(ZoneOffset.UTC);
+
+        long before = usedHeap(runtime);
+        TokenStore store = new TokenStore(50, false);
+        for (int second = 0; second < seconds; second++) {
+            LocalDateTime createdAt = BASE.plusSeconds(second);
+            for (int i = 0; i < perSecond; i++) {
+                store.issue(createdAt);
+            }
+            store.expire(baseSecond + second);
+        }
+        long storeBytes = usedHeap(runtime) - before;
+
+        // 原实现：token 永不清理，这里只保留一个有效期内的数据作对比
+        before = usedHeap(runtime);
+        ConcurrentHashMap<String, TokenUtil.TokenInfo> map = new ConcurrentHashMap<>();
+        for (int i = 0; i < store.size(); i++) {
+            map.put(UUID.randomUUID().toString(), new TokenUtil.TokenInfo(LocalDateTime.now(), false));
+        }
+        long mapBytes = usedHeap(runtime) - before;
+
+        // 堆占用受 GC 影响，只打印不作断言
+        System.out.printf("持续 %d 秒每秒生成 %d 个token，稳定后保留 %d 个，哈希表 %d 个槽，TokenStore 每个约 %.1f 字节，ConcurrentHashMap 每个约 %.1f 字节\n",
+                seconds, perSecond, store.size(), store.capacity(), storeBytes / (double) store.size(), mapBytes / (double) map.size());
+        // 只保留最近 51 秒内生成的token，哈希表的槽数随保留的token数而不是生成的总数增长
+        assertEquals(51 * perSecond, store.size());
+        assertTrue(store.capacity() <= 4 * store.size());
+    }
+
+    private static long usedHeap(Runtime runtime) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
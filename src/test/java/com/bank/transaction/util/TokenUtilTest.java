@@ -8,6 +8,11 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -155,7 +160,8 @@ class TokenUtilTest {
     @Test
     void testValidateAndConsumeToken_ValidToken_SuccessfullyConsumed() {
         String token = "abc123";
-        LocalDateTime createdAt = LocalDateTime.now().minusSeconds(1);
+        // tokenStore 只保存到秒
+        LocalDateTime createdAt = LocalDateTime.now().minusSeconds(1).withNano(0);
         TokenUtil.TokenInfo tokenInfo = new TokenUtil.TokenInfo(createdAt, false);
         TokenUtilTestHelper.putToken(token, tokenInfo);
 
@@ -168,4 +174,62 @@ class TokenUtilTest {
         assertEquals(createdAt, updatedTokenInfo.createdAt());
     }
 
-}
\ No newline at end of file
+    /**
+     * TC06: 签名token模式下不读写 tokenStore，同一个token只能消费一次
+     */
+    @Test
+    void testValidateAndConsumeToken_SignedMode_DoesNotUseTokenStore() {
+        TokenUtil.useSignedTokens(new SignedTokens("test-secret".getBytes(), 50));
+        try {
+            String token = TokenUtil.generateToken();
+
+            assertDoesNotThrow(() -> TokenUtil.validateAndConsumeToken(token));
+            assertThrows(DuplicateRequestException.class, () -> TokenUtil.validateAndConsumeToken(token));
+            assertEquals(0, TokenUtilTestHelper.getTokenStoreSize());
+        } finally {
+            TokenUtil.useSignedTokens(null);
+        }
+    }
+
+    /**
+     * TC07: 1 万个虚拟线程同时提交同一个token，只有一个请求成功，并统计消费耗时的分位数
+     */
+    @Test
+    void testValidateAndConsumeToken_ConcurrentSameToken_ExactlyOneWinner() throws InterruptedException {
+        int threadCount = 10_000;
+        String token = TokenUtil.generateToken();
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        long[] latencies = new long[threadCount];
+        CountDownLatch ready = new CountDownLatch(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threadCount; i++) {
+                final int index = i;
+                executor.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    long begin = System.nanoTime();
+                    try {
+                        TokenUtil.validateAndConsumeToken(token);
+                        winners.incrementAndGet();
+                    } catch (DuplicateRequestException e) {
+                        duplicates.incrementAndGet();
+                    }
+                    latencies[index] = System.nanoTime() - begin;
+                    return null;
+                });
+            }
+            ready.await();
+            start.countDown();
+        }
+
+        Arrays.sort(latencies);
+        System.out.printf("同一token并发消费完成，成功：%d，重复：%d，耗时 p50：%.1f us，p99：%.1f us，p999：%.1f us\n",
+                winners.get(), duplicates.get(), latencies[threadCount / 2] / 1000.0,
+                latencies[threadCount * 99 / 100] / 1000.0, latencies[threadCount * 999 / 1000] / 1000.0);
+        assertEquals(1, winners.get());
+        assertEquals(threadCount - 1, duplicates.get());
+        assertTrue(TokenUtil.tokenStore.get(token).used());
+    }
+}
@@ -6,21 +6,31 @@ import org.junit.jupiter.api.*;
 
 import java.lang.reflect.Field;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.HashSet;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 class TransactionIdGenerateUtilTest {
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
 
-    // 用于重置计数器
+    // 用于重置计数器，结束后同样重置，批量生成的状态不影响其他测试
     @BeforeEach
+    @AfterEach
     void setUp() throws Exception {
         // 使用反射重置计数器
         Field field = TransactionIdGenerateUtil.class.getDeclaredField("counter");
         field.setAccessible(true);
         AtomicInteger counter = (AtomicInteger) field.get(null);
         counter.set(0); // 重置计数器
+        Field batchField = TransactionIdGenerateUtil.class.getDeclaredField("batchState");
+        batchField.setAccessible(true);
+        ((AtomicLong) batchField.get(null)).set(0);
+        // 其他测试启动的 Spring 上下文可能切换为 Snowflake ID
+        TransactionIdGenerateUtil.useSnowflake(null);
     }
 
     /**
@@ -90,4 +100,106 @@ class TransactionIdGenerateUtilTest {
         assertEquals("001", id2.substring(17));
         assertEquals("002", id3.substring(17));
     }
-}
\ No newline at end of file
+
+    /**
+     * 测试批量生成的ID长度与单个生成一致，序号连续且不重复
+     */
+    @Test
+    void testGenerateTransactionIds_ShouldBeUniqueAndConsecutive() {
+        String single = TransactionIdGenerateUtil.generateTransactionId();
+        String[] ids = TransactionIdGenerateUtil.generateTransactionIds(10000);
+
+        assertEquals(10000, ids.length);
+        assertEquals(10000, Set.of(ids).size());
+        for (String id : ids) {
+            assertEquals(single.length(), id.length());
+            assertTrue(id.matches("\\d{20}"));
+        }
+        // 批量使用单独的序号，从 0 开始，第 15 位固定为 0
+        assertEquals("000000", ids[0].substring(14));
+        assertEquals("009999", ids[9999].substring(14));
+        assertEquals(0, TransactionIdGenerateUtil.generateTransactionIds(0).length);
+        assertThrows(IllegalArgumentException.class, () -> TransactionIdGenerateUtil.generateTransactionIds(-1));
+        assertThrows(IllegalArgumentException.class, () -> TransactionIdGenerateUtil.generateTransactionIds(100_001));
+    }
+
+    /**
+     * 测试同一秒内批量生成的序号用完时拒绝整批，而不是循环使用序号生成重复的ID
+     */
+    @Test
+    void testGenerateTransactionIds_SecondExhausted_ShouldReject() throws Exception {
+        // 最近一次批量使用的时间在一小时之后（时钟回拨），且该秒的序号已用完
+        long second = LocalDateTime.now().plusHours(1).toEpochSecond(ZoneOffset.UTC);
+        Field field = TransactionIdGenerateUtil.class.getDeclaredField("batchState");
+        field.setAccessible(true);
+        ((AtomicLong) field.get(null)).set(second << 17 | 99_990);
+
+        String[] ids = TransactionIdGenerateUtil.generateTransactionIds(10);
+        assertEquals(LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC).format(formatter) + "099999", ids[9]);
+        assertThrows(IllegalStateException.class, () -> TransactionIdGenerateUtil.generateTransactionIds(1));
+        assertEquals(0, TransactionIdGenerateUtil.generateTransactionIds(0).length);
+    }
+
+    /**
+     * 测试同一秒内交替单个和批量生成时，批量生成的ID不会与单个生成的ID重复
+     */
+    @Test
+    void testGenerateTransactionIds_MixedWithSingle_ShouldNotCollide() throws Exception {
+        // 单个生成的计数器越过 100000 后，旧格式的批量序号可以与 {随机数}{序号} 组成相同的 6 位后缀
+        Field field = TransactionIdGenerateUtil.class.getDeclaredField("counter");
+        field.setAccessible(true);
+        ((AtomicInteger) field.get(null)).set(123_456);
+        Set<String> singles = new HashSet<>();
+        Set<String> batches = new HashSet<>();
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 1000; i++) {
+                singles.add(TransactionIdGenerateUtil.generateTransactionId());
+            }
+            batches.addAll(Set.of(TransactionIdGenerateUtil.generateTransactionIds(5000)));
+        }
+
+        assertEquals(100_000, batches.size());
+        for (String id : singles) {
+            assertNotEquals('0', id.charAt(14));
+            assertFalse(batches.contains(id));
+        }
+        for (String id : batches) {
+            assertEquals('0', id.charAt(14));
+        }
+    }
+
+    /**
+     * 测试计数器溢出为负数后，单个生成的序号仍为三位非负数
+     */
+    @Test
+    void testCounter_IntegerOverflow_ShouldStayNonNegative() throws Exception {
+        Field field = TransactionIdGenerateUtil.class.getDeclaredField("counter");
+        field.setAccessible(true);
+        ((AtomicInteger) field.get(null)).set(Integer.MAX_VALUE);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(TransactionIdGenerateUtil.generateTransactionId().matches("\\d{20}"));
+        }
+    }
+
+    /**
+     * 测试使用 Snowflake 时单个和批量生成的都是 13 位 Crockford Base32 ID，且严格递增
+     */
+    @Test
+    void testGenerateTransactionId_WithSnowflake() {
+        TransactionIdGenerateUtil.useSnowflake(new SnowflakeIdGenerator(1));
+        try {
+            String single = TransactionIdGenerateUtil.generateTransactionId();
+            String[] ids = TransactionIdGenerateUtil.generateTransactionIds(1000);
+
+            assertEquals(SnowflakeIdGenerator.STRING_LENGTH, single.length());
+            String previous = single;
+            for (String id : ids) {
+                assertTrue(id.compareTo(previous) > 0);
+                previous = id;
+            }
+        } finally {
+            TransactionIdGenerateUtil.useSnowflake(null);
+        }
+    }
+}